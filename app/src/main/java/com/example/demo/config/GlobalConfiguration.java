@@ -18,7 +18,9 @@ import okhttp3.OkHttpClient;
 public final class GlobalConfiguration implements ConfigModule {
     @Override
     public void applyOptions(@NonNull Context context, @NonNull GlobalConfigModule.Builder builder) {
-        builder.baseurl("http://192.168.31.69:8081/");
+        builder.baseurl("http://192.168.31.69:8081/")
+                //注册 @GenerateTypeAdapter 生成的 TypeAdapter
+                .gsonConfiguration((appContext, gsonBuilder) -> gsonBuilder.registerTypeAdapterFactory(new AppGsonAdapterFactory()));
     }
 
     @Override
@@ -7,7 +7,6 @@ import com.example.core.net.IRepositoryManager;
 import com.example.demo.contract.TestContract;
 import com.example.demo.mvp.model.api.APIService;
 import com.example.demo.mvp.model.entity.TokenVo;
-import com.google.gson.Gson;
 
 import java.util.HashMap;
 import java.util.List;
@@ -17,14 +16,11 @@ import javax.inject.Inject;
 
 
 import io.reactivex.rxjava3.core.Observable;
-import okhttp3.MediaType;
 import okhttp3.RequestBody;
 
 @ActivityScope
 public class TestModel extends BaseModel implements TestContract.Model {
 
-    @Inject
-    Gson gson;
     @Inject
     public TestModel(IRepositoryManager repositoryManager) {
         super(repositoryManager);
@@ -34,7 +30,7 @@ public class TestModel extends BaseModel implements TestContract.Model {
         Map<String,Object> map = new HashMap<>();
         map.put("username","test");
         map.put("password","123456");
-        RequestBody body = RequestBody.Companion.create(gson.toJson(map), MediaType.parse("application/json;charset=utf-8"));
+        RequestBody body = jsonBody(map);
         return mRepositoryManager.obtainRetrofitService(APIService.class)
                 .login("test","123456");
     }
@@ -1,5 +1,8 @@
 package com.example.demo.mvp.model.entity;
 
+import com.example.core.gson.GenerateTypeAdapter;
+
+@GenerateTypeAdapter
 public class TokenVo {
     private String token;
     private String tokenPrefix;
@@ -15,6 +15,8 @@ import androidx.annotation.Nullable;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.core.util.CancellationToken;
+import com.example.core.util.TaskLane;
 import com.example.core.util.ThreadPoolManager;
 import com.example.core.base.AppActivity;
 import com.example.core.di.component.AppComponent;
@@ -53,6 +55,8 @@ public final class ImageSelectActivity extends AppActivity
     /** 图片专辑 */
     private final HashMap<String, List<String>> mAllAlbum = new HashMap<>();
     private Toolbar toolbar;
+    /** 页面销毁时取消图片扫描 */
+    private CancellationToken mScanToken;
     @Override
     public void setupActivityComponent(@NonNull AppComponent appComponent) {
 
@@ -78,8 +82,9 @@ public final class ImageSelectActivity extends AppActivity
         mAdapter.setOnItemClickListener(this);
         mAdapter.setOnItemLongClickListener(this);
         mRecyclerView.setAdapter(mAdapter);
-        //开启线程池加载图片列表
-        ThreadPoolManager.getInstance().execute(this);
+        //开启线程池加载图片列表, 页面销毁时停止扫描
+        mScanToken = CancellationToken.bindTo(this);
+        ThreadPoolManager.getInstance().execute(TaskLane.USER_VISIBLE, mScanToken, this);
         mFloatingView.setOnClickListener(this);
     }
     //菜单专辑选择
@@ -171,13 +176,20 @@ public final class ImageSelectActivity extends AppActivity
         //执行查询
         Cursor cursor = contentResolver.query(contentUri, projections, selection, selectionArgs, sortOrder);
 
-        if (cursor != null && cursor.moveToFirst()) {
+        if (cursor == null) {
+            return;
+        }
+        try {
+            if (!cursor.moveToFirst()) {
+                return;
+            }
             //获取某字段在第几列
             int pathIndex = cursor.getColumnIndex(MediaStore.MediaColumns.DATA);
             int mimeTypeIndex = cursor.getColumnIndex(MediaStore.MediaColumns.MIME_TYPE);
             int sizeIndex = cursor.getColumnIndex(MediaStore.MediaColumns.SIZE);
 
             do {
+                if (mScanToken.isCancelled()) return;//页面已经销毁
                 long size = cursor.getLong(sizeIndex);
                 if (size < 1024) continue;// 图片大小不得小于 1 KB
                 String type = cursor.getString(mimeTypeIndex);//获取图片类型
@@ -198,8 +210,12 @@ public final class ImageSelectActivity extends AppActivity
                     mAllImage.add(path);
                 }
             } while (cursor.moveToNext());
+        } finally {
             cursor.close();
         }
+        if (mScanToken.isCancelled()) {
+            return;
+        }
 
         //延迟一段时间再渲染数据
         postDelayed(() -> {
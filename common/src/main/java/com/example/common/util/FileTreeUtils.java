@@ -0,0 +1,274 @@
+package com.example.common.util;
+
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并行统计目录大小、删除目录
+ * <p>
+ * 每个子目录作为一个 {@link java.util.concurrent.ForkJoinTask} 并行处理, 可以通过 {@link Progress} 获取进度,
+ * 通过 {@link Cancellable} 中途取消 (抛出 {@link CancellationException});
+ * Android 8.0 及以上使用 {@link DirectoryStream} 遍历目录, 同时读出文件类型与大小, 不跟随符号链接,
+ * 8.0 以下使用 {@link File#listFiles()}
+ * <p>
+ * 都是耗时操作, 不要在主线程调用
+ */
+public final class FileTreeUtils {
+    /**
+     * 每处理这么多个文件回调一次进度
+     */
+    private static final int PROGRESS_INTERVAL = 256;
+
+    private FileTreeUtils() {
+        throw new IllegalStateException("you can't instantiate me!");
+    }
+
+    /**
+     * 进度回调, 会在多个线程中调用
+     */
+    public interface Progress {
+        /**
+         * @param files 已经处理的文件数
+         * @param bytes 已经处理的文件大小
+         */
+        void onProgress(long files, long bytes);
+    }
+
+    /**
+     * 取消标记
+     */
+    public interface Cancellable {
+        boolean isCancelled();
+    }
+
+    /**
+     * 获取目录下所有文件的大小
+     */
+    public static long sizeOf(@Nullable File dir) {
+        return sizeOf(dir, null, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 获取目录下所有文件的大小
+     *
+     * @param dir         目录, 是文件时返回文件大小
+     * @param progress    进度回调, 可以为 {@code null}
+     * @param cancellable 取消标记, 可以为 {@code null}
+     * @param pool        执行遍历的线程池
+     * @return 字节数
+     * @throws CancellationException 遍历过程中被取消
+     */
+    public static long sizeOf(@Nullable File dir, @Nullable Progress progress, @Nullable Cancellable cancellable,
+                              @NonNull ForkJoinPool pool) {
+        if (dir == null || !dir.exists()) {
+            return 0;
+        }
+        if (!dir.isDirectory()) {
+            return dir.length();
+        }
+        Walk walk = new Walk(progress, cancellable);
+        long size = pool.invoke(new SizeTask(dir, walk));
+        walk.finish();
+        return size;
+    }
+
+    /**
+     * 删除文件或者目录 (包括目录本身)
+     */
+    public static boolean delete(@Nullable File file) {
+        return delete(file, true, null, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 删除文件或者目录
+     *
+     * @param file        文件或者目录
+     * @param includeRoot 是否删除目录本身, 为 {@code false} 时只清空目录
+     * @param progress    进度回调, 可以为 {@code null}
+     * @param cancellable 取消标记, 可以为 {@code null}
+     * @param pool        执行删除的线程池
+     * @return 是否全部删除成功
+     * @throws CancellationException 删除过程中被取消, 已经删除的文件无法恢复
+     */
+    public static boolean delete(@Nullable File file, boolean includeRoot, @Nullable Progress progress,
+                                 @Nullable Cancellable cancellable, @NonNull ForkJoinPool pool) {
+        if (file == null || !file.exists()) {
+            return true;
+        }
+        if (!file.isDirectory()) {
+            return !includeRoot || file.delete();
+        }
+        Walk walk = new Walk(progress, cancellable);
+        boolean success = pool.invoke(new DeleteTask(file, includeRoot, walk));
+        walk.finish();
+        return success;
+    }
+
+    /**
+     * 遍历一个目录的直接子项
+     */
+    private interface Visitor {
+        void visit(File file, boolean isDirectory, long size);
+    }
+
+    private static void list(File dir, Visitor visitor) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            try {
+                NioLister.list(dir, visitor);
+            } catch (IOException ignored) {
+                //目录不可读或者遍历中途被删除, 与 listFiles 一样按空目录处理
+            }
+            return;
+        }
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            boolean isDirectory = child.isDirectory();
+            visitor.visit(child, isDirectory, isDirectory ? 0 : child.length());
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.O)
+    private static final class NioLister {
+        static void list(File dir, Visitor visitor) throws IOException {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath())) {
+                for (Path path : stream) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        //遍历期间被删除
+                        continue;
+                    }
+                    boolean isDirectory = attributes.isDirectory();
+                    visitor.visit(path.toFile(), isDirectory, isDirectory ? 0 : attributes.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * 一次遍历共用的进度与取消状态
+     */
+    private static final class Walk {
+        @Nullable
+        final Progress mProgress;
+        @Nullable
+        final Cancellable mCancellable;
+        final AtomicLong mFiles = new AtomicLong();
+        final AtomicLong mBytes = new AtomicLong();
+
+        Walk(@Nullable Progress progress, @Nullable Cancellable cancellable) {
+            this.mProgress = progress;
+            this.mCancellable = cancellable;
+        }
+
+        void checkCancelled() {
+            if (mCancellable != null && mCancellable.isCancelled()) {
+                throw new CancellationException();
+            }
+        }
+
+        void onFile(long size) {
+            long bytes = mBytes.addAndGet(size);
+            long files = mFiles.incrementAndGet();
+            if (mProgress != null && files % PROGRESS_INTERVAL == 0) {
+                mProgress.onProgress(files, bytes);
+            }
+        }
+
+        void finish() {
+            if (mProgress != null) {
+                mProgress.onProgress(mFiles.get(), mBytes.get());
+            }
+        }
+    }
+
+    private static final class SizeTask extends RecursiveTask<Long> {
+        private final File mDir;
+        private final Walk mWalk;
+
+        SizeTask(File dir, Walk walk) {
+            this.mDir = dir;
+            this.mWalk = walk;
+        }
+
+        @Override
+        protected Long compute() {
+            mWalk.checkCancelled();
+            List<SizeTask> subtasks = new ArrayList<>();
+            long[] size = new long[1];
+            list(mDir, (file, isDirectory, length) -> {
+                if (isDirectory) {
+                    SizeTask subtask = new SizeTask(file, mWalk);
+                    subtask.fork();
+                    subtasks.add(subtask);
+                } else {
+                    size[0] += length;
+                    mWalk.onFile(length);
+                }
+            });
+            for (SizeTask subtask : subtasks) {
+                size[0] += subtask.join();
+            }
+            return size[0];
+        }
+    }
+
+    private static final class DeleteTask extends RecursiveTask<Boolean> {
+        private final File mDir;
+        private final boolean mDeleteSelf;
+        private final Walk mWalk;
+
+        DeleteTask(File dir, boolean deleteSelf, Walk walk) {
+            this.mDir = dir;
+            this.mDeleteSelf = deleteSelf;
+            this.mWalk = walk;
+        }
+
+        @Override
+        protected Boolean compute() {
+            mWalk.checkCancelled();
+            List<DeleteTask> subtasks = new ArrayList<>();
+            boolean[] success = {true};
+            list(mDir, (file, isDirectory, length) -> {
+                if (isDirectory) {
+                    DeleteTask subtask = new DeleteTask(file, true, mWalk);
+                    subtask.fork();
+                    subtasks.add(subtask);
+                } else if (file.delete()) {
+                    mWalk.onFile(length);
+                } else {
+                    success[0] = false;
+                }
+            });
+            for (DeleteTask subtask : subtasks) {
+                success[0] &= subtask.join();
+            }
+            //子项都删除后才能删除目录本身
+            if (mDeleteSelf && success[0]) {
+                success[0] = mDir.delete();
+            }
+            return success[0];
+        }
+    }
+}
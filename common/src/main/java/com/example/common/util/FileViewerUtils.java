@@ -144,50 +144,18 @@ public class FileViewerUtils {
         deleteDir(context.getExternalCacheDir());
     }
     /**
-     * 删除某文件夹下的文件及其目录
+     * 删除某文件夹下的文件及其目录, 子目录并行删除
      */
     public static boolean deleteDir(File dir) {
-        //如果缓存有很多目录
-        if (dir != null && dir.isDirectory()) {
-            //获取目录数组
-            String[] children = dir.list();
-            int size = 0;
-            if (children != null) {
-                size = children.length;
-                for (int i = 0; i < size; i++) {
-                    //拿到每个目录再递归
-                    boolean success = deleteDir(new File(dir, children[i]));
-                    if (!success) {
-                        return false;
-                    }
-                }
-            }
-        }
-        if (dir == null) {
-            return true;
-        } else {
-            //删除
-            return dir.delete();
-        }
+        return FileTreeUtils.delete(dir);
     }
 
     /**
-     * 获取某文件中的大小
+     * 获取某文件中的大小, 子目录并行统计
      */
     public static long getFolderSize(File file){
-        long size = 0;
-        File[] files = file.listFiles();
-        if(files == null) return 0;
-        for (File value : files) {
-            //如果还有文件夹,递归找出
-            if (value.isDirectory()) {
-                size += getFolderSize(value);
-            } else {
-                //获取文件大小
-                size += value.length();
-            }
-        }
-        return size;
+        if (file == null || !file.isDirectory()) return 0;
+        return FileTreeUtils.sizeOf(file);
     }
     public static String getFormatSize(double size){
         double kiloByte = size / 1024;
@@ -1,5 +1,10 @@
 package com.example.common.util;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -38,4 +43,31 @@ public class MD5Utils {
             return "";
         }
     }
+
+    /**
+     * 计算文件的 MD5, 通过 FileChannel 分块读取, 不会把整个文件读入内存
+     * @param file 文件
+     * @return 小写的 16 进制字符串
+     */
+    public static String md5(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("md5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
 }
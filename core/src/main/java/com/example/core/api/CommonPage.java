@@ -1,11 +1,14 @@
 package com.example.core.api;
 
+import com.example.core.gson.GenerateTypeAdapter;
+
 
 import java.util.List;
 
 /**
  * 分页数据封装类
  */
+@GenerateTypeAdapter
 public class CommonPage<T> {
     private Integer pageNum;
     private Integer pageSize;
@@ -1,8 +1,11 @@
 package com.example.core.api;
 
+import com.example.core.gson.GenerateTypeAdapter;
+
 /**
  * 通用返回对象
  */
+@GenerateTypeAdapter
 public class CommonResult<T> {
     private long code;
     private String message;
@@ -22,14 +22,21 @@ import androidx.annotation.NonNull;
 
 import com.example.core.base.App;
 import com.example.core.util.ManifestParser;
+import com.example.core.util.ThreadGovernor;
 import com.example.core.di.component.DaggerAppComponent;
 import com.example.core.di.module.GlobalConfigModule;
 import com.example.core.di.component.AppComponent;
+import com.example.core.net.ApiDns;
+import com.example.core.net.ConnectionWarmer;
+import com.example.core.net.RepositoryCache;
+import com.example.core.cache.DiskQuotaManager;
+import com.example.core.image.ImageCompressor;
 import com.example.core.util.Preconditions;
 import org.jetbrains.annotations.NotNull;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -51,6 +58,29 @@ public class AppDelegate implements App, AppLifecycles {
     @Named("ActivityLifecycle")
     protected Application.ActivityLifecycleCallbacks mActivityLifecycle;
 
+    @Inject
+    protected ApiDns mApiDns;
+
+    @Inject
+    @Named("PrefetchHosts")
+    protected List<String> mPrefetchHosts;
+
+    @Inject
+    protected ConnectionWarmer mConnectionWarmer;
+
+    @Inject
+    protected DiskQuotaManager mDiskQuotaManager;
+
+    @Inject
+    @Named("RxCacheDirectory")
+    protected File mRxCacheDirectory;
+
+    @Inject
+    protected RepositoryCache mRepositoryCache;
+
+    @Inject
+    protected ImageCompressor mImageCompressor;
+
     private List<ConfigModule> mModules;
     private List<AppLifecycles> mAppLifecycles = new ArrayList<>();
     private List<Application.ActivityLifecycleCallbacks> mActivityLifecycles = new ArrayList<>();
@@ -75,6 +105,8 @@ public class AppDelegate implements App, AppLifecycles {
     @Override
     public void onCreate(@NonNull Application application) {
         this.mApplication = application;
+        //RxJava、OkHttp、ThreadPoolManager 共用有上限的线程池, 需要在使用 RxJava 之前调用
+        ThreadGovernor.install();
         //构建Dagger组件化
         mAppComponent = DaggerAppComponent
                 .builder()
@@ -83,6 +115,16 @@ public class AppDelegate implements App, AppLifecycles {
                 .build();
         mAppComponent.inject(this);
         this.mModules = null;
+        //后台预解析常用域名, 首次请求时直接命中 DNS 缓存
+        mApiDns.prefetch(mPrefetchHosts);
+        //后台预热连接, 首次请求直接复用连接池中的连接
+        mConnectionWarmer.warmUp();
+        //框架内部的缓存目录受总磁盘配额限制, 写入中的临时文件不删除
+        mDiskQuotaManager.register("RxCache", mRxCacheDirectory, DiskQuotaManager.UNLIMITED);
+        mDiskQuotaManager.register("RepositoryCache", mRepositoryCache.getDirectory(), DiskQuotaManager.UNLIMITED,
+                file -> !file.getName().endsWith(".tmp"));
+        mDiskQuotaManager.register("Compressed", mImageCompressor.getDirectory(), DiskQuotaManager.UNLIMITED,
+                file -> !file.getName().endsWith(".tmp"));
         //注册框架内部已实现的 Activity 生命周期逻辑
         mApplication.registerActivityLifecycleCallbacks(mActivityLifecycle);
         //注册框架外部, 开发者扩展的 Activity 生命周期逻辑
@@ -1,11 +1,45 @@
 package com.example.core.base.mvp;
 
+import com.example.core.net.CachePolicy;
 import com.example.core.net.IRepositoryManager;
 
+import java.lang.reflect.Type;
+
+import io.reactivex.rxjava3.core.Observable;
+import okhttp3.RequestBody;
+
 public class BaseModel implements IModel{
     protected IRepositoryManager mRepositoryManager;//用于管理网络请求层, 以及数据缓存层
     public BaseModel(IRepositoryManager repositoryManager) {
-        this.mRepositoryManager = repositoryManager;
+        //通过它发出的请求都属于当前 Model, onDetach 时一起取消
+        this.mRepositoryManager = repositoryManager.withOwner(this);
+    }
+
+    /**
+     * 创建 JSON 请求体, 发送请求时才把 value 流式序列化, 不会先生成整个 JSON 字符串
+     *
+     * @param value 要序列化的对象, 如 {@code Map}、实体类
+     * @return {@link RequestBody}
+     */
+    protected RequestBody jsonBody(Object value) {
+        return mRepositoryManager.createJsonBody(value);
+    }
+
+    /**
+     * 按 {@link CachePolicy} 组合缓存与网络请求, 如再次进入页面时先显示上次的数据:
+     * <pre>{@code
+     * return fetch("user:" + id, User.class, CachePolicy.CACHE_THEN_NETWORK, service.getUser(id));
+     * }</pre>
+     * 泛型数据使用 {@code new TypeToken<List<User>>() {}.getType()} 作为 type
+     *
+     * @param key     缓存的 key, 需要包含请求参数
+     * @param type    数据类型
+     * @param policy  {@link CachePolicy}
+     * @param network 网络请求
+     * @return 按 policy 发射缓存以及网络结果的 {@link Observable}
+     */
+    protected <T> Observable<T> fetch(String key, Type type, CachePolicy policy, Observable<T> network) {
+        return mRepositoryManager.fetch(key, type, policy, network);
     }
 
     /**
@@ -13,6 +47,9 @@ public class BaseModel implements IModel{
      */
     @Override
     public void onDetach() {
+        if (mRepositoryManager != null) {
+            mRepositoryManager.cancelCalls(this);
+        }
         mRepositoryManager = null;
     }
 }
@@ -50,6 +50,9 @@ public abstract class BasePresenter<V extends IView,M extends IModel> implements
      */
     @Override
     public void onDetach() {
+        if (mModel != null) {
+            mModel.onDetach();
+        }
         mDisposable = null;
         mView = null;
     }
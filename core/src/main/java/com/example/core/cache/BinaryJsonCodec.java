@@ -0,0 +1,231 @@
+package com.example.core.cache;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.internal.LazilyParsedNumber;
+
+import java.io.EOFException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okio.Buffer;
+
+/**
+ * ================================================
+ * {@link JsonElement} 的紧凑二进制编码, 由 {@link BinarySpeaker} 使用
+ * <p>
+ * 每个值以一个字节的类型开头, 整数使用 zigzag 变长编码, 字符串与数组、对象的长度使用变长编码,
+ * 对象的字段名第一次出现时写入内容并编号, 之后只写编号, 列表中的同类对象不再重复字段名
+ * <p>
+ * 解码时所有长度都与剩余的字节数比较, 损坏的数据抛出 {@link JsonParseException} 或 {@link EOFException}, 不会申请过大的内存
+ * ================================================
+ */
+final class BinaryJsonCodec {
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int LONG = 3;
+    private static final int DOUBLE = 4;
+    private static final int STRING = 5;
+    private static final int ARRAY = 6;
+    private static final int OBJECT = 7;
+    /**
+     * BigDecimal、BigInteger 等无法用 long、double 精确表示的数字, 按字符串保存
+     */
+    private static final int BIG_NUMBER = 8;
+    private static final int NAME_NEW = 0;
+    private static final int NAME_REF = 1;
+
+    private BinaryJsonCodec() {
+        throw new IllegalStateException("you can't instantiate me!");
+    }
+
+    static void encode(JsonElement element, Buffer sink) {
+        new Encoder(sink).write(element);
+    }
+
+    static JsonElement decode(Buffer source) throws EOFException {
+        return new Decoder(source).read();
+    }
+
+    private static final class Encoder {
+        private final Buffer mSink;
+        private final Map<String, Integer> mNames = new HashMap<>();
+
+        Encoder(Buffer sink) {
+            this.mSink = sink;
+        }
+
+        void write(JsonElement element) {
+            if (element == null || element.isJsonNull()) {
+                mSink.writeByte(NULL);
+            } else if (element.isJsonPrimitive()) {
+                writePrimitive(element.getAsJsonPrimitive());
+            } else if (element.isJsonArray()) {
+                JsonArray array = element.getAsJsonArray();
+                mSink.writeByte(ARRAY);
+                writeVarint(array.size());
+                for (JsonElement item : array) {
+                    write(item);
+                }
+            } else {
+                JsonObject object = element.getAsJsonObject();
+                mSink.writeByte(OBJECT);
+                writeVarint(object.size());
+                for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                    writeName(entry.getKey());
+                    write(entry.getValue());
+                }
+            }
+        }
+
+        private void writePrimitive(JsonPrimitive primitive) {
+            if (primitive.isBoolean()) {
+                mSink.writeByte(primitive.getAsBoolean() ? TRUE : FALSE);
+            } else if (primitive.isString()) {
+                mSink.writeByte(STRING);
+                writeString(primitive.getAsString());
+            } else {
+                Number number = primitive.getAsNumber();
+                if (number instanceof Integer || number instanceof Long
+                        || number instanceof Short || number instanceof Byte) {
+                    mSink.writeByte(LONG);
+                    writeVarint((number.longValue() << 1) ^ (number.longValue() >> 63));
+                } else if (number instanceof Double || number instanceof Float) {
+                    mSink.writeByte(DOUBLE);
+                    mSink.writeLong(Double.doubleToRawLongBits(number.doubleValue()));
+                } else {
+                    mSink.writeByte(BIG_NUMBER);
+                    writeString(number.toString());
+                }
+            }
+        }
+
+        private void writeName(String name) {
+            Integer index = mNames.get(name);
+            if (index != null) {
+                mSink.writeByte(NAME_REF);
+                writeVarint(index);
+            } else {
+                mNames.put(name, mNames.size());
+                mSink.writeByte(NAME_NEW);
+                writeString(name);
+            }
+        }
+
+        private void writeString(String value) {
+            Buffer utf8 = new Buffer().writeUtf8(value);
+            writeVarint(utf8.size());
+            mSink.writeAll(utf8);
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                mSink.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            mSink.writeByte((int) value);
+        }
+    }
+
+    private static final class Decoder {
+        private final Buffer mSource;
+        private final List<String> mNames = new ArrayList<>();
+
+        Decoder(Buffer source) {
+            this.mSource = source;
+        }
+
+        JsonElement read() throws EOFException {
+            int type = mSource.readByte();
+            switch (type) {
+                case NULL:
+                    return JsonNull.INSTANCE;
+                case TRUE:
+                    return new JsonPrimitive(true);
+                case FALSE:
+                    return new JsonPrimitive(false);
+                case LONG: {
+                    long zigzag = readVarint();
+                    return new JsonPrimitive((zigzag >>> 1) ^ -(zigzag & 1));
+                }
+                case DOUBLE:
+                    return new JsonPrimitive(Double.longBitsToDouble(mSource.readLong()));
+                case STRING:
+                    return new JsonPrimitive(readString());
+                case BIG_NUMBER:
+                    return new JsonPrimitive(new LazilyParsedNumber(readString()));
+                case ARRAY: {
+                    int size = readSize();
+                    JsonArray array = new JsonArray(size);
+                    for (int i = 0; i < size; i++) {
+                        array.add(read());
+                    }
+                    return array;
+                }
+                case OBJECT: {
+                    int size = readSize();
+                    JsonObject object = new JsonObject();
+                    for (int i = 0; i < size; i++) {
+                        String name = readName();
+                        object.add(name, read());
+                    }
+                    return object;
+                }
+                default:
+                    throw new JsonParseException("unknown type " + type);
+            }
+        }
+
+        private String readName() throws EOFException {
+            int kind = mSource.readByte();
+            if (kind == NAME_REF) {
+                int index = (int) readVarint();
+                if (index < 0 || index >= mNames.size()) {
+                    throw new JsonParseException("unknown name " + index);
+                }
+                return mNames.get(index);
+            }
+            String name = readString();
+            mNames.add(name);
+            return name;
+        }
+
+        private String readString() throws EOFException {
+            long length = readVarint();
+            if (length < 0 || length > mSource.size()) {
+                throw new JsonParseException("invalid string length " + length);
+            }
+            return mSource.readUtf8(length);
+        }
+
+        /**
+         * 数组、对象的元素个数, 每个元素至少占一个字节, 不会超过剩余的字节数
+         */
+        private int readSize() throws EOFException {
+            long size = readVarint();
+            if (size < 0 || size > mSource.size()) {
+                throw new JsonParseException("invalid size " + size);
+            }
+            return (int) size;
+        }
+
+        private long readVarint() throws EOFException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = mSource.readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new JsonParseException("malformed varint");
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.core.cache;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.victoralbertos.jolyglot.GsonSpeaker;
+import io.victoralbertos.jolyglot.JolyglotGenerics;
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * ================================================
+ * RxCache 的二进制序列化方式, 代替 {@link GsonSpeaker} 写入的 JSON 文本
+ * <p>
+ * 数据先由 {@link Gson} 转换为 {@link JsonElement}, 再使用 {@link BinaryJsonCodec} 编码, 读取时不需要解析文本;
+ * 超过 {@link #COMPRESS_THRESHOLD} 字节时使用 deflate 压缩; 文件通过 {@link FileChannel} 一次读入
+ * <p>
+ * RxCache 只接受字符串形式的序列化结果, 所以二进制内容以 Base64 (使用 okio 实现, 不依赖 Android) 保存, 并以 {@link #MAGIC} 开头,
+ * 之后是版本号、压缩方式; 不以 {@link #MAGIC} 开头的 JSON (旧的缓存, 或者比二进制更短的很小的数据)
+ * 仍然交给 {@link GsonSpeaker} 读取; 损坏的数据 (包括长度字段越界) 统一抛出 {@link JsonParseException}
+ * <p>
+ * 通过 {@link com.example.core.di.module.ClientModule.RxCacheConfiguration#speaker} 开启
+ * ================================================
+ */
+public class BinarySpeaker implements JolyglotGenerics {
+    private static final String MAGIC = "RXB:";
+    private static final byte[] MAGIC_BYTES = MAGIC.getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int CODEC_NONE = 0;
+    private static final int CODEC_DEFLATE = 1;
+    /**
+     * 小于这个大小的数据压缩收益很小, 不压缩
+     */
+    private static final int COMPRESS_THRESHOLD = 512;
+    /**
+     * deflate 的压缩率最高约为 1032:1, 记录的原始长度超过压缩数据的这个倍数时说明数据已损坏
+     */
+    private static final int MAX_DEFLATE_RATIO = 1032;
+    /**
+     * 解压后的最大长度, 避免损坏的长度字段申请过大的内存
+     */
+    private static final int MAX_INFLATED_LENGTH = 64 * 1024 * 1024;
+
+    private final Gson mGson;
+    private final GsonSpeaker mJsonSpeaker;
+    private final boolean mCompress;
+
+    public BinarySpeaker(@NonNull Gson gson) {
+        this(gson, true);
+    }
+
+    /**
+     * @param gson     {@link Gson}
+     * @param compress 是否使用 deflate 压缩较大的数据
+     */
+    public BinarySpeaker(@NonNull Gson gson, boolean compress) {
+        this.mGson = gson;
+        this.mJsonSpeaker = new GsonSpeaker(gson);
+        this.mCompress = compress;
+    }
+
+    @Override
+    public String toJson(Object src) {
+        return encode(mGson.toJsonTree(src));
+    }
+
+    @Override
+    public String toJson(Object src, Type typeOfSrc) {
+        return encode(mGson.toJsonTree(src, typeOfSrc));
+    }
+
+    @Override
+    public <T> T fromJson(String json, Class<T> classOfT) throws RuntimeException {
+        if (!json.startsWith(MAGIC)) {
+            return mJsonSpeaker.fromJson(json, classOfT);
+        }
+        return mGson.fromJson(decode(json.substring(MAGIC.length())), classOfT);
+    }
+
+    @Override
+    public <T> T fromJson(String json, Type typeOfT) throws RuntimeException {
+        if (!json.startsWith(MAGIC)) {
+            return mJsonSpeaker.fromJson(json, typeOfT);
+        }
+        return mGson.fromJson(decode(json.substring(MAGIC.length())), typeOfT);
+    }
+
+    @Override
+    public <T> T fromJson(File file, Class<T> classOfT) throws RuntimeException {
+        return fromJson(file, (Type) classOfT);
+    }
+
+    @Override
+    public <T> T fromJson(File file, Type typeOfT) throws RuntimeException {
+        byte[] bytes = readFile(file);
+        if (!startsWithMagic(bytes)) {
+            return mJsonSpeaker.fromJson(file, typeOfT);
+        }
+        String base64 = new String(bytes, MAGIC_BYTES.length, bytes.length - MAGIC_BYTES.length, StandardCharsets.US_ASCII);
+        return mGson.fromJson(decode(base64), typeOfT);
+    }
+
+    @Override
+    public GenericArrayType arrayOf(Type componentType) {
+        return mJsonSpeaker.arrayOf(componentType);
+    }
+
+    @Override
+    public ParameterizedType newParameterizedType(Type rawType, Type... typeArguments) {
+        return mJsonSpeaker.newParameterizedType(rawType, typeArguments);
+    }
+
+    private String encode(JsonElement element) {
+        Buffer payload = new Buffer();
+        BinaryJsonCodec.encode(element, payload);
+        Buffer out = new Buffer();
+        out.writeByte(VERSION);
+        if (mCompress && payload.size() >= COMPRESS_THRESHOLD) {
+            byte[] raw = payload.readByteArray();
+            out.writeByte(CODEC_DEFLATE);
+            out.writeInt(raw.length);
+            out.write(deflate(raw));
+        } else {
+            out.writeByte(CODEC_NONE);
+            out.writeAll(payload);
+        }
+        String binary = MAGIC + out.readByteString().base64();
+        if (binary.length() > COMPRESS_THRESHOLD) {
+            return binary;
+        }
+        //很小的数据 Base64 之后可能比 JSON 还长, 这时直接保存 JSON
+        String json = mGson.toJson(element);
+        return json.length() < binary.length() ? json : binary;
+    }
+
+    private static JsonElement decode(String base64) {
+        ByteString bytes = ByteString.decodeBase64(base64);
+        if (bytes == null) {
+            throw new JsonParseException("corrupted cache: invalid base64");
+        }
+        try {
+            Buffer in = new Buffer().write(bytes);
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new JsonParseException("unsupported version " + version);
+            }
+            int codec = in.readByte();
+            if (codec == CODEC_DEFLATE) {
+                int length = in.readInt();
+                in = new Buffer().write(inflate(in.readByteArray(), length));
+            } else if (codec != CODEC_NONE) {
+                throw new JsonParseException("unsupported codec " + codec);
+            }
+            return BinaryJsonCodec.decode(in);
+        } catch (IOException | DataFormatException | IllegalArgumentException e) {
+            throw new JsonParseException("corrupted cache", e);
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            Buffer out = new Buffer();
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(chunk);
+                out.write(chunk, 0, count);
+            }
+            return out.readByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int length) throws DataFormatException {
+        //长度来自文件内容, 分配内存前先检查
+        if (length < 0 || length > MAX_INFLATED_LENGTH || length > (long) compressed.length * MAX_DEFLATE_RATIO) {
+            throw new JsonParseException("corrupted cache: invalid inflated length " + length);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[length];
+            int offset = 0;
+            while (offset < length && !inflater.finished()) {
+                int count = inflater.inflate(raw, offset, length - offset);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("truncated data");
+                }
+                offset += count;
+            }
+            if (offset != length || !inflater.finished()) {
+                throw new DataFormatException("inflated length mismatch");
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 通过 {@link FileChannel} 把整个文件一次读入内存
+     */
+    private static byte[] readFile(File file) {
+        try (FileInputStream input = new FileInputStream(file);
+             FileChannel channel = input.getChannel()) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new JsonParseException("cache file too large: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                //继续读取
+            }
+            return buffer.array();
+        } catch (IOException e) {
+            throw new JsonParseException("failed to read " + file, e);
+        }
+    }
+
+    private static boolean startsWithMagic(byte[] bytes) {
+        if (bytes.length < MAGIC_BYTES.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC_BYTES.length; i++) {
+            if (bytes[i] != MAGIC_BYTES[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -23,6 +23,7 @@ public interface CacheType {
     int EXTRAS_TYPE_ID = 2;
     int ACTIVITY_CACHE_TYPE_ID = 3;
     int FRAGMENT_CACHE_TYPE_ID = 4;
+    int REPOSITORY_CACHE_TYPE_ID = 5;
     /**
      * {@link RepositoryManager}中存储 Retrofit Service 的容器
      */
@@ -138,6 +139,29 @@ public interface CacheType {
         }
     };
 
+    /**
+     * {@link com.example.core.net.RepositoryCache} 中缓存接口数据的内存容器
+     */
+    CacheType REPOSITORY_CACHE = new CacheType() {
+        private static final int MAX_SIZE = 100;
+        private static final float MAX_SIZE_MULTIPLIER = 0.001f;
+
+        @Override
+        public int getCacheTypeId() {
+            return REPOSITORY_CACHE_TYPE_ID;
+        }
+
+        @Override
+        public int calculateCacheSize(Context context) {
+            ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            int targetMemoryCacheSize = (int) (activityManager.getMemoryClass() * MAX_SIZE_MULTIPLIER * 1024);
+            if (targetMemoryCacheSize >= MAX_SIZE) {
+                return MAX_SIZE;
+            }
+            return targetMemoryCacheSize;
+        }
+    };
+
     /**
      * 返回框架内需要缓存的模块对应的 {@code id}
      *
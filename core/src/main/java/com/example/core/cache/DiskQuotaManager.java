@@ -0,0 +1,480 @@
+package com.example.core.cache;
+
+import android.os.FileObserver;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.util.DataHelper;
+import com.example.core.util.LogUtils;
+import com.example.core.util.Preconditions;
+import com.example.core.util.TaskLane;
+import com.example.core.util.ThreadPoolManager;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * ================================================
+ * 管理多个缓存目录的磁盘配额, 超出配额时在后台按最近访问时间 (LRU) 删除文件
+ * <p>
+ * 每个注册的目录在后台扫描一次, 之后通过 {@link FileObserver} 增量更新每个文件的大小与访问时间,
+ * 不需要每次都递归统计目录大小, {@link #getUsage()} 等方法直接返回维护好的总大小
+ * <p>
+ * 配额分两级: 每个目录自己的配额, 以及所有目录加起来的总配额 (使用
+ * {@link com.example.core.di.module.GlobalConfigModule.Builder#diskQuota(long)} 配置);
+ * 超出总配额时比较所有目录中文件的最近访问时间, 删除全局最久没有访问的文件;
+ * 注册的目录之间不能互相包含, 否则会重复统计
+ * ================================================
+ */
+@Singleton
+public class DiskQuotaManager {
+    private static final String TAG = "DiskQuotaManager";
+    /**
+     * 不限制目录自己的大小, 只受总配额限制
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+    private static final int OBSERVED_EVENTS = FileObserver.CLOSE_WRITE | FileObserver.MOVED_TO | FileObserver.CREATE
+            | FileObserver.OPEN | FileObserver.DELETE | FileObserver.MOVED_FROM;
+
+    private final long mGlobalBudget;
+    private final List<Directory> mDirectories = new ArrayList<>();
+    private final AtomicLong mUsage = new AtomicLong();
+    private final AtomicLong mEvictedFiles = new AtomicLong();
+    private final AtomicLong mEvictedBytes = new AtomicLong();
+    private final AtomicBoolean mEnforcePending = new AtomicBoolean();
+    /**
+     * 访问时间相同的文件按访问的先后排序
+     */
+    private long mSequence;
+
+    @Inject
+    public DiskQuotaManager(@Named("DiskQuota") long globalBudget) {
+        this.mGlobalBudget = globalBudget;
+    }
+
+    /**
+     * 注册目录, 目录中所有文件都可以被删除
+     *
+     * @param name   名称, 用于查询与日志
+     * @param dir    目录
+     * @param budget 目录自己的配额 (字节), 不限制时使用 {@link #UNLIMITED}
+     */
+    public void register(@NonNull String name, @NonNull File dir, long budget) {
+        register(name, dir, budget, null);
+    }
+
+    /**
+     * 注册目录
+     *
+     * @param name      名称, 用于查询与日志
+     * @param dir       目录
+     * @param budget    目录自己的配额 (字节), 不限制时使用 {@link #UNLIMITED}
+     * @param evictable 哪些文件可以被删除, 如排除 DiskLruCache 的 journal 文件, 为 {@code null} 时都可以删除
+     */
+    public void register(@NonNull String name, @NonNull File dir, long budget, @Nullable FileFilter evictable) {
+        Preconditions.checkNotNull(name, "name == null");
+        Preconditions.checkNotNull(dir, "dir == null");
+        Preconditions.checkArgument(budget > 0, "budget must be > 0");
+        Directory directory;
+        synchronized (this) {
+            for (Directory registered : mDirectories) {
+                Preconditions.checkArgument(!registered.mName.equals(name), "%s is already registered", name);
+            }
+            directory = new Directory(name, dir.getAbsoluteFile(), budget, evictable);
+            mDirectories.add(directory);
+        }
+        ThreadPoolManager.getInstance().execute(TaskLane.BACKGROUND, () -> {
+            //目录不存在时 FileObserver 无法监听, 先创建目录; 先开始监听再扫描, 扫描期间的变化不会丢失
+            DataHelper.makeDirs(directory.mRoot);
+            directory.observe(directory.mRoot);
+            scan(directory);
+            scheduleEnforce();
+        });
+    }
+
+    /**
+     * 所有注册目录的总大小, 不需要遍历目录
+     */
+    public long getUsage() {
+        return mUsage.get();
+    }
+
+    /**
+     * 某个注册目录的大小, 不需要遍历目录
+     *
+     * @return 没有注册时返回 0
+     */
+    public long getUsage(@NonNull String name) {
+        Directory directory = find(name);
+        return directory == null ? 0 : directory.mUsage.get();
+    }
+
+    /**
+     * 总配额 (字节)
+     */
+    public long getBudget() {
+        return mGlobalBudget;
+    }
+
+    /**
+     * 通知文件被写入, 适用于没有被 {@link FileObserver} 覆盖的写入 (如其他进程)
+     */
+    public void onFileWritten(@NonNull File file) {
+        Directory directory = directoryOf(file);
+        if (directory != null) {
+            update(directory, file);
+        }
+    }
+
+    /**
+     * 通知文件被读取, 更新其最近访问时间
+     */
+    public void onFileAccessed(@NonNull File file) {
+        Directory directory = directoryOf(file);
+        if (directory != null) {
+            touch(directory, file);
+        }
+    }
+
+    /**
+     * 立即在后台按配额清理一次
+     */
+    public void trim() {
+        scheduleEnforce();
+    }
+
+    @NonNull
+    public String report() {
+        StringBuilder builder = new StringBuilder()
+                .append("disk usage: ").append(getUsage()).append("/").append(mGlobalBudget)
+                .append(", evicted files: ").append(mEvictedFiles.get())
+                .append(", evicted bytes: ").append(mEvictedBytes.get()).append("\n");
+        synchronized (this) {
+            for (Directory directory : mDirectories) {
+                builder.append("  ").append(directory.mName).append(": ").append(directory.mUsage.get())
+                        .append(directory.mBudget == UNLIMITED ? "" : "/" + directory.mBudget)
+                        .append(", files: ").append(directory.mFiles.size()).append("\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    @Nullable
+    private synchronized Directory find(String name) {
+        for (Directory directory : mDirectories) {
+            if (directory.mName.equals(name)) {
+                return directory;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private synchronized Directory directoryOf(File file) {
+        String path = file.getAbsolutePath();
+        for (Directory directory : mDirectories) {
+            if (path.startsWith(directory.mRootPath)) {
+                return directory;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 递归扫描目录, 已经通过事件记录的文件不覆盖; 以修改时间作为初始的访问时间
+     */
+    private void scan(Directory directory) {
+        List<File> files = new ArrayList<>();
+        collect(directory, directory.mRoot, files);
+        long[] modified = new long[files.size()];
+        List<Integer> order = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            modified[i] = files.get(i).lastModified();
+            order.add(i);
+        }
+        Collections.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+        synchronized (this) {
+            for (int i : order) {
+                File file = files.get(i);
+                String path = file.getAbsolutePath();
+                if (directory.mFiles.containsKey(path)) {
+                    continue;
+                }
+                long size = file.length();
+                directory.put(path, new Entry(file, size, modified[i], ++mSequence));
+                directory.mUsage.addAndGet(size);
+                mUsage.addAndGet(size);
+            }
+        }
+    }
+
+    private void collect(Directory directory, File dir, List<File> out) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                directory.observe(child);
+                collect(directory, child, out);
+            } else {
+                out.add(child);
+            }
+        }
+    }
+
+    private void update(Directory directory, File file) {
+        long size = file.length();
+        boolean overBudget;
+        synchronized (this) {
+            String path = file.getAbsolutePath();
+            Entry entry = directory.mFiles.get(path);
+            if (entry == null) {
+                entry = new Entry(file, 0, System.currentTimeMillis(), ++mSequence);
+                directory.put(path, entry);
+            } else {
+                directory.access(entry, System.currentTimeMillis(), ++mSequence);
+            }
+            long delta = size - entry.mSize;
+            entry.mSize = size;
+            directory.mUsage.addAndGet(delta);
+            mUsage.addAndGet(delta);
+            overBudget = directory.mUsage.get() > directory.mBudget || mUsage.get() > mGlobalBudget;
+        }
+        if (overBudget) {
+            scheduleEnforce();
+        }
+    }
+
+    private synchronized void touch(Directory directory, File file) {
+        Entry entry = directory.mFiles.get(file.getAbsolutePath());
+        if (entry != null) {
+            directory.access(entry, System.currentTimeMillis(), ++mSequence);
+        }
+    }
+
+    private synchronized void remove(Directory directory, String path) {
+        Entry entry = directory.remove(path);
+        if (entry != null) {
+            directory.mUsage.addAndGet(-entry.mSize);
+            mUsage.addAndGet(-entry.mSize);
+        }
+    }
+
+    private void scheduleEnforce() {
+        if (mEnforcePending.compareAndSet(false, true)) {
+            ThreadPoolManager.getInstance().execute(TaskLane.BACKGROUND, () -> {
+                mEnforcePending.set(false);
+                enforce();
+            });
+        }
+    }
+
+    /**
+     * 先让每个目录回到自己的配额内, 再在所有目录中删除全局最久没有访问的文件, 直到回到总配额内
+     */
+    private void enforce() {
+        while (true) {
+            Entry victim;
+            synchronized (this) {
+                victim = pickVictim();
+            }
+            if (victim == null) {
+                return;
+            }
+            if (victim.mFile.delete() || !victim.mFile.exists()) {
+                mEvictedFiles.incrementAndGet();
+                mEvictedBytes.addAndGet(victim.mSize);
+            } else {
+                LogUtils.warnInfo(TAG, "failed to delete " + victim.mFile);
+            }
+        }
+    }
+
+    /**
+     * 选出下一个要删除的文件并从索引中移除, 需要持有锁
+     */
+    @Nullable
+    private Entry pickVictim() {
+        for (Directory directory : mDirectories) {
+            if (directory.mUsage.get() > directory.mBudget) {
+                Entry entry = directory.oldestEvictable();
+                if (entry != null) {
+                    return take(directory, entry);
+                }
+            }
+        }
+        if (mUsage.get() <= mGlobalBudget) {
+            return null;
+        }
+        Directory oldestDirectory = null;
+        Entry oldest = null;
+        for (Directory directory : mDirectories) {
+            Entry entry = directory.oldestEvictable();
+            if (entry != null && (oldest == null || ACCESS_ORDER.compare(entry, oldest) < 0)) {
+                oldest = entry;
+                oldestDirectory = directory;
+            }
+        }
+        return oldest == null ? null : take(oldestDirectory, oldest);
+    }
+
+    private Entry take(Directory directory, Entry entry) {
+        remove(directory, entry.mFile.getAbsolutePath());
+        return entry;
+    }
+
+    /**
+     * 按最近访问时间从旧到新排序
+     */
+    private static final Comparator<Entry> ACCESS_ORDER = (a, b) -> a.mLastAccess != b.mLastAccess
+            ? Long.compare(a.mLastAccess, b.mLastAccess) : Long.compare(a.mSequence, b.mSequence);
+
+    private static final class Entry {
+        final File mFile;
+        long mSize;
+        long mLastAccess;
+        long mSequence;
+
+        Entry(File file, long size, long lastAccess, long sequence) {
+            this.mFile = file;
+            this.mSize = size;
+            this.mLastAccess = lastAccess;
+            this.mSequence = sequence;
+        }
+    }
+
+    private final class Directory {
+        final String mName;
+        final File mRoot;
+        final String mRootPath;
+        final long mBudget;
+        @Nullable
+        final FileFilter mEvictable;
+        final Map<String, Entry> mFiles = new HashMap<>();
+        /**
+         * 按最近访问时间排列的文件, 最久没有访问的在最前面; 修改访问时间前需要先移除, 以下方法都需要持有锁
+         */
+        final TreeSet<Entry> mAccessOrder = new TreeSet<>(ACCESS_ORDER);
+        final AtomicLong mUsage = new AtomicLong();
+        /**
+         * 需要持有 FileObserver, 否则被回收后不再收到事件
+         */
+        final Map<String, FileObserver> mObservers = new LinkedHashMap<>();
+
+        Directory(String name, File root, long budget, @Nullable FileFilter evictable) {
+            this.mName = name;
+            this.mRoot = root;
+            this.mRootPath = root.getPath() + File.separator;
+            this.mBudget = budget;
+            this.mEvictable = evictable;
+        }
+
+        void put(String path, Entry entry) {
+            mFiles.put(path, entry);
+            mAccessOrder.add(entry);
+        }
+
+        void access(Entry entry, long time, long sequence) {
+            mAccessOrder.remove(entry);
+            entry.mLastAccess = time;
+            entry.mSequence = sequence;
+            mAccessOrder.add(entry);
+        }
+
+        @Nullable
+        Entry remove(String path) {
+            Entry entry = mFiles.remove(path);
+            if (entry != null) {
+                mAccessOrder.remove(entry);
+            }
+            return entry;
+        }
+
+        @Nullable
+        Entry oldestEvictable() {
+            for (Entry entry : mAccessOrder) {
+                if (mEvictable == null || mEvictable.accept(entry.mFile)) {
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        void unobserve(File dir) {
+            FileObserver observer;
+            synchronized (DiskQuotaManager.this) {
+                observer = mObservers.remove(dir.getAbsolutePath());
+            }
+            if (observer != null) {
+                observer.stopWatching();
+            }
+        }
+
+        /**
+         * FileObserver 只监听一层目录, 每个子目录单独监听
+         */
+        @SuppressWarnings("deprecation")
+        void observe(File dir) {
+            String path = dir.getAbsolutePath();
+            FileObserver observer;
+            synchronized (DiskQuotaManager.this) {
+                if (mObservers.containsKey(path)) {
+                    return;
+                }
+                observer = new FileObserver(path, OBSERVED_EVENTS) {
+                    @Override
+                    public void onEvent(int event, @Nullable String name) {
+                        if (name != null) {
+                            onFileEvent(Directory.this, new File(dir, name), event & FileObserver.ALL_EVENTS);
+                        }
+                    }
+                };
+                mObservers.put(path, observer);
+            }
+            observer.startWatching();
+        }
+    }
+
+    private void onFileEvent(Directory directory, File file, int event) {
+        switch (event) {
+            case FileObserver.CREATE:
+                if (file.isDirectory()) {
+                    directory.observe(file);
+                }
+                break;
+            case FileObserver.CLOSE_WRITE:
+            case FileObserver.MOVED_TO:
+                if (file.isFile()) {
+                    update(directory, file);
+                }
+                break;
+            case FileObserver.OPEN:
+                touch(directory, file);
+                break;
+            case FileObserver.DELETE:
+            case FileObserver.MOVED_FROM:
+                remove(directory, file.getAbsolutePath());
+                //子目录被删除后停止监听, 重新创建时再监听
+                directory.unobserve(file);
+                break;
+            default:
+                break;
+        }
+    }
+}
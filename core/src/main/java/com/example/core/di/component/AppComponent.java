@@ -23,7 +23,12 @@ import com.example.core.di.module.ClientModule;
 import com.example.core.di.module.GlobalConfigModule;
 import com.example.core.base.delegate.AppDelegate;
 import com.example.core.cache.Cache;
+import com.example.core.cache.DiskQuotaManager;
+import com.example.core.image.ImageCompressor;
 import com.example.core.net.IRepositoryManager;
+import com.example.core.net.download.DownloadManager;
+import com.example.core.net.upload.UploadManager;
+import com.example.core.net.metrics.NetworkMetrics;
 import com.google.gson.Gson;
 
 import java.io.File;
@@ -57,11 +62,31 @@ public interface AppComponent {
      * Json 序列化库
      */
     Gson gson();
+    /**
+     * 网络请求各阶段 (DNS、连接、TLS、首字节等) 的耗时统计, 按接口汇总 p50/p95/p99
+     */
+    NetworkMetrics networkMetrics();
     /**
      * 缓存文件根目录 (RxCache 和 Glide 的缓存都已经作为子文件夹放在这个根目录下), 应该将所有缓存都统一放到这个根目录下
      * 便于管理和清理, 可在 {@link ConfigModule#applyOptions(Context, GlobalConfigModule.Builder)} 种配置
      */
     File cacheFile();
+    /**
+     * 缓存目录的磁盘配额管理, 可以把 Glide、下载等目录也注册进来, 统一按 LRU 清理
+     */
+    DiskQuotaManager diskQuotaManager();
+    /**
+     * 多连接分段下载, 支持断点续传与 MD5 校验
+     */
+    DownloadManager downloadManager();
+    /**
+     * 分块上传, 支持断点续传
+     */
+    UploadManager uploadManager();
+    /**
+     * 上传前缩小并重新编码图片
+     */
+    ImageCompressor imageCompressor();
     /**
      * 用来存取一些整个 App 公用的数据, 切勿大量存放大容量数据, 这里的存放的数据和 {@link Application} 的生命周期一致
      * @return {@link Cache}
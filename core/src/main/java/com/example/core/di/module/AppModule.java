@@ -23,6 +23,7 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.FragmentManager;
 import com.example.core.cache.Cache;
 import com.example.core.cache.CacheType;
+import com.example.core.gson.CoreGsonAdapterFactory;
 import com.example.core.lifecycle.ActivityLifecycle;
 import com.example.core.lifecycle.AppComponentCallbacks;
 import com.example.core.lifecycle.FragmentLifecycle;
@@ -47,7 +48,10 @@ public abstract class AppModule {
     @Singleton
     @Provides
     static Gson provideGson(Application application, @Nullable GsonConfiguration configuration) {
-        GsonBuilder builder = new GsonBuilder();
+        //框架中 CommonResult、CommonPage 使用编译期生成的 TypeAdapter
+        //GsonBuilder 中后注册的 TypeAdapterFactory 优先, 所以先于外部配置注册, 外部注册的 TypeAdapter 可以覆盖
+        GsonBuilder builder = new GsonBuilder()
+                .registerTypeAdapterFactory(new CoreGsonAdapterFactory());
         if (configuration != null) {
             configuration.configGson(application, builder);
         }
@@ -19,8 +19,20 @@ import android.app.Application;
 import android.content.Context;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.example.core.cache.BinarySpeaker;
+import com.example.core.net.ApiDns;
+import com.example.core.net.CallCanceller;
+import com.example.core.net.ConnectionRacer;
 import com.example.core.net.GlobalHttpHandler;
+import com.example.core.net.converter.JsonRequestBodyConverterFactory;
+import com.example.core.net.converter.PageStreamCallAdapterFactory;
+import com.example.core.net.converter.UnwrapResultConverterFactory;
+import com.example.core.net.interceptor.DispatchPolicy;
+import com.example.core.net.interceptor.PriorityDispatcher;
 import com.example.core.net.interceptor.RequestInterceptor;
+import com.example.core.net.interceptor.RetryInterceptor;
+import com.example.core.net.interceptor.RetryPolicy;
+import com.example.core.net.metrics.NetworkMetrics;
 import com.example.core.util.DataHelper;
 import com.google.gson.Gson;
 
@@ -29,7 +41,11 @@ import dagger.Module;
 import dagger.Provides;
 import io.rx_cache2.internal.RxCache;
 import io.victoralbertos.jolyglot.GsonSpeaker;
+import io.victoralbertos.jolyglot.JolyglotGenerics;
+import okhttp3.Authenticator;
+import okhttp3.ConnectionPool;
 import okhttp3.Dispatcher;
+import okhttp3.Dns;
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
@@ -74,20 +90,28 @@ public abstract class ClientModule {
      * @param client        {@link OkHttpClient}
      * @param httpUrl       {@link HttpUrl}
      * @param gson          {@link Gson}
+     * @param canceller     {@link CallCanceller}
      * @return {@link Retrofit}
      */
     @Singleton
     @Provides
     static Retrofit provideRetrofit(Application application, @Nullable RetrofitConfiguration configuration, Retrofit.Builder builder, OkHttpClient client
-            , HttpUrl httpUrl, Gson gson) {
+            , HttpUrl httpUrl, Gson gson, CallCanceller canceller) {
         builder
                 //设置网络请求的Url地址
                 .baseUrl(httpUrl)
+                //@Body 参数发送时才流式序列化, 需要放在 GsonConverterFactory 之前
+                .addConverterFactory(JsonRequestBodyConverterFactory.create(gson))
+                //带有 @UnwrapResult 注解的接口直接返回 data, 需要放在 GsonConverterFactory 之前
+                .addConverterFactory(UnwrapResultConverterFactory.create(gson))
                 //设置数据解析器
                 .addConverterFactory(GsonConverterFactory.create(gson))
+                //带有 @StreamPage 注解的接口边下载边解析, 需要放在 RxJava3CallAdapterFactory 之前
+                .addCallAdapterFactory(PageStreamCallAdapterFactory.create(gson))
                 //设置网络请求适配器，使其支持RxJava与RxAndroid
                 .addCallAdapterFactory(RxJava3CallAdapterFactory.create())
-                .client(client);
+                //给请求打上所属对象的标记, 所属对象销毁时取消其所有请求
+                .callFactory(canceller.callFactory(client));
         if (configuration != null) {
             configuration.configRetrofit(application, builder);
         }
@@ -104,20 +128,48 @@ public abstract class ClientModule {
      * @param interceptors    {@link List<Interceptor>}
      * @param handler         {@link GlobalHttpHandler}
      * @param executorService {@link ExecutorService}
+     * @param metrics         {@link NetworkMetrics}
+     * @param dns             {@link ApiDns}
+     * @param connectionPool  {@link ConnectionPool}
+     * @param retryPolicy     {@link RetryPolicy}
+     * @param dispatchPolicy  {@link DispatchPolicy}
      * @return {@link OkHttpClient}
      */
     @Singleton
     @Provides
     static OkHttpClient provideClient(Application application, @Nullable OkhttpConfiguration configuration, OkHttpClient.Builder builder,Interceptor intercept,
-                                      @Nullable List<Interceptor> interceptors, @Nullable GlobalHttpHandler handler, ExecutorService executorService) {
+                                      @Nullable List<Interceptor> interceptors, @Nullable GlobalHttpHandler handler, ExecutorService executorService,
+                                      NetworkMetrics metrics, ApiDns dns, ConnectionPool connectionPool,
+                                      @Nullable RetryPolicy retryPolicy, @Nullable DispatchPolicy dispatchPolicy) {
         builder
                 .connectTimeout(TIME_OUT, TimeUnit.SECONDS)
                 .readTimeout(TIME_OUT, TimeUnit.SECONDS)
                 //日志拦截，设置打印日志的级别
-                .addNetworkInterceptor(intercept);
+                .addNetworkInterceptor(intercept)
+                //统计每个请求各阶段的耗时
+                .eventListenerFactory(metrics.eventListenerFactory())
+                //带缓存的域名解析
+                .dns(dns)
+                //连接池, 启动时预热的连接也放在这里
+                .connectionPool(connectionPool);
+
+        //重试放在最外层, 每次重试都会重新经过下面的拦截器
+        if (retryPolicy != null) {
+            builder.addInterceptor(new RetryInterceptor(retryPolicy, metrics));
+        }
+
+        //按优先级排队, 放在重试之后, 每次重试重新排队; 重试前已经关闭了响应, 退避等待期间不占用 PriorityDispatcher 的名额,
+        //但仍然占着发起请求的线程, 异步请求也仍然占用 OkHttp Dispatcher 的名额 (上限与 maxRequests 相同)
+        if (dispatchPolicy != null) {
+            builder.addInterceptor(new PriorityDispatcher(dispatchPolicy, metrics));
+        }
 
         if (handler != null) {
             builder.addInterceptor(chain -> chain.proceed(handler.onHttpRequestBefore(chain, chain.request())));
+            //收到 401 时由 handler 刷新 token 并重新发送请求, 见 TokenRefreshHandler
+            if (handler instanceof Authenticator) {
+                builder.authenticator((Authenticator) handler);
+            }
         }
 
         //如果外部提供了 Interceptor 的集合则遍历添加
@@ -128,13 +180,38 @@ public abstract class ClientModule {
         }
 
         //为 OkHttp 设置默认的线程池
-        builder.dispatcher(new Dispatcher(executorService));
+        Dispatcher dispatcher = new Dispatcher(executorService);
+        if (dispatchPolicy != null) {
+            //异步请求在 Dispatcher 中就按同样的上限排队, 不会为排队的请求创建线程
+            dispatcher.setMaxRequests(dispatchPolicy.getMaxRequests());
+            dispatcher.setMaxRequestsPerHost(dispatchPolicy.getMaxRequestsPerHost());
+        }
+        builder.dispatcher(dispatcher);
 
         if (configuration != null) {
             configuration.configOkhttp(application, builder);
         }
         return builder.build();
     }
+    /**
+     * 提供带缓存的 {@link ApiDns}, 后台刷新、预解析以及连接竞速使用框架的线程池
+     * 解析结果按 {@link NetworkMetrics#getAddressStats()} 中实测的连接耗时排序
+     *
+     * @param executorService {@link ExecutorService}
+     * @param metrics         {@link NetworkMetrics}
+     * @param httpUrl         服务器地址, 只对其域名按其端口进行连接竞速
+     * @return {@link ApiDns}
+     */
+    @Singleton
+    @Provides
+    static ApiDns provideDns(ExecutorService executorService, NetworkMetrics metrics, HttpUrl httpUrl) {
+        ConnectionRacer racer = new ConnectionRacer(metrics.getAddressStats(), (int) TimeUnit.SECONDS.toMillis(TIME_OUT));
+        ApiDns dns = new ApiDns(Dns.SYSTEM, executorService, ApiDns.DEFAULT_POSITIVE_TTL, ApiDns.DEFAULT_NEGATIVE_TTL,
+                metrics.getAddressStats(), racer);
+        dns.setRacePort(httpUrl.host(), httpUrl.port());
+        return dns;
+    }
+
     /**
      * 提供 {@link RxCache}
      *
@@ -157,7 +234,7 @@ public abstract class ClientModule {
             return rxCache;
         }
         return builder
-                .persistence(cacheDirectory, new GsonSpeaker(gson));
+                .persistence(cacheDirectory, configuration != null ? configuration.speaker(application, gson) : new GsonSpeaker(gson));
     }
     /**
      * 需要单独给 {@link RxCache} 提供子缓存文件
@@ -199,5 +276,18 @@ public abstract class ClientModule {
          * @return {@link RxCache}
          */
         RxCache configRxCache(@NonNull Context context, @NonNull RxCache.Builder builder);
+
+        /**
+         * {@link #configRxCache(Context, RxCache.Builder)} 返回 {@code null} 时, RxCache 使用的序列化方式
+         * 默认为 {@link GsonSpeaker}, 返回 {@link BinarySpeaker} 可以使用更紧凑、读取更快的二进制格式, 并兼容已有的 JSON 缓存
+         *
+         * @param context {@link Context}
+         * @param gson    {@link Gson}
+         * @return {@link JolyglotGenerics}
+         */
+        @NonNull
+        default JolyglotGenerics speaker(@NonNull Context context, @NonNull Gson gson) {
+            return new GsonSpeaker(gson);
+        }
     }
 }
@@ -24,18 +24,22 @@ import com.example.core.cache.IntelligentCache;
 import com.example.core.cache.LruCache;
 import com.example.core.net.GlobalHttpHandler;
 import com.example.core.net.IRepositoryManager;
+import com.example.core.net.interceptor.DispatchPolicy;
 import com.example.core.net.interceptor.RequestInterceptor;
+import com.example.core.net.interceptor.RetryPolicy;
 import com.example.core.net.log.DefaultFormatPrinter;
 import com.example.core.net.log.FormatPrinter;
 import com.example.core.util.DataHelper;
 import com.example.core.util.Preconditions;
+import com.example.core.util.ThreadGovernor;
 
 import dagger.Module;
 import dagger.Provides;
+import okhttp3.ConnectionPool;
 import okhttp3.HttpUrl;
 import okhttp3.Interceptor;
-import okhttp3.internal.Util;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
 import java.io.File;
 import java.util.ArrayList;
@@ -60,6 +64,14 @@ public class GlobalConfigModule {
     private IRepositoryManager.ObtainServiceDelegate mObtainServiceDelegate;//
     private RequestInterceptor.Level mPrintHttpLogLevel;//日志打印级别
     private FormatPrinter mFormatPrinter;//日志输出格式
+    private List<String> mPrefetchHosts;//启动时预解析的域名
+    private int mMaxIdleConnections;//连接池最大空闲连接数
+    private long mKeepAliveDurationMs;//连接池空闲连接保活时间
+    private int mWarmUpConnections;//启动时预热的连接数
+    private RetryPolicy mRetryPolicy;//重试与熔断策略
+    private long mResponseSpillThreshold;//响应体超过多少字节时写入临时文件
+    private DispatchPolicy mDispatchPolicy;//按优先级调度请求
+    private long mDiskQuota;//所有缓存目录加起来的磁盘配额
 
     private GlobalConfigModule(Builder builder) {
         this.mApiUrl = builder.apiUrl;
@@ -75,6 +87,14 @@ public class GlobalConfigModule {
         this.mObtainServiceDelegate = builder.obtainServiceDelegate;
         this.mPrintHttpLogLevel = builder.printHttpLogLevel;
         this.mFormatPrinter = builder.formatPrinter;
+        this.mPrefetchHosts = builder.prefetchHosts;
+        this.mMaxIdleConnections = builder.maxIdleConnections;
+        this.mKeepAliveDurationMs = builder.keepAliveDurationMs;
+        this.mWarmUpConnections = builder.warmUpConnections;
+        this.mRetryPolicy = builder.retryPolicy;
+        this.mResponseSpillThreshold = builder.responseSpillThreshold;
+        this.mDispatchPolicy = builder.dispatchPolicy;
+        this.mDiskQuota = builder.diskQuota;
     }
 
     public static Builder builder() {
@@ -102,6 +122,100 @@ public class GlobalConfigModule {
     HttpUrl provideBaseUrl() {
         return mApiUrl == null ? HttpUrl.parse("https://api.github.com/") : mApiUrl;
     }
+    /**
+     * 提供启动时需要预解析的域名, 包含服务器地址的域名
+     *
+     * @param baseUrl 服务器地址
+     * @return 域名集合
+     */
+    @Singleton
+    @Provides
+    @Named("PrefetchHosts")
+    List<String> providePrefetchHosts(HttpUrl baseUrl) {
+        List<String> hosts = new ArrayList<>();
+        hosts.add(baseUrl.host());
+        if (mPrefetchHosts != null) {
+            for (String host : mPrefetchHosts) {
+                if (!hosts.contains(host)) {
+                    hosts.add(host);
+                }
+            }
+        }
+        return hosts;
+    }
+
+    /**
+     * 提供 OkHttp 的连接池, 默认最多保留 5 个空闲连接, 空闲 5 分钟后关闭
+     *
+     * @return {@link ConnectionPool}
+     */
+    @Singleton
+    @Provides
+    ConnectionPool provideConnectionPool() {
+        return new ConnectionPool(mMaxIdleConnections > 0 ? mMaxIdleConnections : 5,
+                mKeepAliveDurationMs > 0 ? mKeepAliveDurationMs : TimeUnit.MINUTES.toMillis(5), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 提供启动时对每个域名预热的连接数, 默认为 1, 为 0 时不预热
+     *
+     * @return 连接数
+     */
+    @Singleton
+    @Provides
+    @Named("WarmUpConnections")
+    int provideWarmUpConnections() {
+        return mWarmUpConnections < 0 ? 1 : mWarmUpConnections;
+    }
+
+    /**
+     * 提供响应体写入临时文件的阈值, 默认为 1MB
+     *
+     * @return 字节数
+     */
+    @Singleton
+    @Provides
+    @Named("ResponseSpillThreshold")
+    long provideResponseSpillThreshold() {
+        return mResponseSpillThreshold > 0 ? mResponseSpillThreshold : 1024 * 1024;
+    }
+
+    /**
+     * 提供所有缓存目录加起来的磁盘配额, 默认为 256MB
+     *
+     * @return 字节数
+     */
+    @Singleton
+    @Provides
+    @Named("DiskQuota")
+    long provideDiskQuota() {
+        return mDiskQuota > 0 ? mDiskQuota : 256 * 1024 * 1024;
+    }
+
+    /**
+     * 提供重试与熔断策略, 为 {@code null} 时不重试也不熔断
+     *
+     * @return {@link RetryPolicy}
+     */
+    @Singleton
+    @Provides
+    @Nullable
+    RetryPolicy provideRetryPolicy() {
+        return mRetryPolicy;
+    }
+
+    /**
+     * 提供按优先级调度请求的配置, 为 {@code null} 时不限制并发也不区分优先级
+     *
+     * @return {@link DispatchPolicy}
+     */
+    @Singleton
+    @Provides
+    @Nullable
+    DispatchPolicy provideDispatchPolicy() {
+        return mDispatchPolicy;
+    }
+
     /**
      * 提供缓存文件夹
      */
@@ -199,8 +313,8 @@ public class GlobalConfigModule {
     @Singleton
     @Provides
     ExecutorService provideExecutorService() {
-        return mExecutorService == null ? new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
-                new SynchronousQueue<>(), Util.threadFactory("Arms Executor", false)) : mExecutorService;
+        //默认使用与 RxJava、ThreadPoolManager 共用的 IO 线程池, 线程数有上限
+        return mExecutorService == null ? ThreadGovernor.io() : mExecutorService;
     }
 
     /**
@@ -251,6 +365,14 @@ public class GlobalConfigModule {
         private IRepositoryManager.ObtainServiceDelegate obtainServiceDelegate;
         private RequestInterceptor.Level printHttpLogLevel;
         private FormatPrinter formatPrinter;
+        private List<String> prefetchHosts;
+        private int maxIdleConnections;
+        private long keepAliveDurationMs;
+        private int warmUpConnections = -1;
+        private RetryPolicy retryPolicy;
+        private long responseSpillThreshold;
+        private DispatchPolicy dispatchPolicy;
+        private long diskQuota;
 
         private Builder() {
         }
@@ -325,6 +447,53 @@ public class GlobalConfigModule {
             return this;
         }
 
+        public Builder addPrefetchHost(String host) {//启动时预解析的域名, 服务器地址的域名默认会预解析
+            if (TextUtils.isEmpty(host)) {
+                throw new NullPointerException("host can not be empty");
+            }
+            if (prefetchHosts == null) {
+                prefetchHosts = new ArrayList<>();
+            }
+            this.prefetchHosts.add(host);
+            return this;
+        }
+
+        public Builder connectionPool(int maxIdleConnections, long keepAliveDuration, TimeUnit timeUnit) {//连接池大小与空闲连接保活时间
+            Preconditions.checkArgument(maxIdleConnections > 0, "maxIdleConnections must be > 0");
+            Preconditions.checkArgument(keepAliveDuration > 0, "keepAliveDuration must be > 0");
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveDurationMs = timeUnit.toMillis(keepAliveDuration);
+            return this;
+        }
+
+        public Builder warmUpConnections(int warmUpConnections) {//启动时对服务器地址以及预解析的域名预热的连接数, 为 0 时不预热, HTTP/2 下同一域名只会建立一个连接
+            Preconditions.checkArgument(warmUpConnections >= 0, "warmUpConnections must be >= 0");
+            this.warmUpConnections = warmUpConnections;
+            return this;
+        }
+
+        public Builder retryPolicy(RetryPolicy retryPolicy) {//幂等请求的重试策略以及按域名熔断
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        public Builder dispatchPolicy(DispatchPolicy dispatchPolicy) {//按 @Priority 调度请求, 限制全局以及每个域名的并发数
+            this.dispatchPolicy = dispatchPolicy;
+            return this;
+        }
+
+        public Builder responseSpillThreshold(long bytes) {//响应体超过这么多字节时写入缓存目录下的临时文件, 不再全部读入内存
+            Preconditions.checkArgument(bytes > 0, "responseSpillThreshold must be > 0");
+            this.responseSpillThreshold = bytes;
+            return this;
+        }
+
+        public Builder diskQuota(long bytes) {//所有注册到 DiskQuotaManager 的缓存目录加起来最多占用这么多字节, 超出后删除最久没有访问的文件
+            Preconditions.checkArgument(bytes > 0, "diskQuota must be > 0");
+            this.diskQuota = bytes;
+            return this;
+        }
+
         public GlobalConfigModule build() {
             return new GlobalConfigModule(this);
         }
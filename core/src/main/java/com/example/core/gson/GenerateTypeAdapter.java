@@ -0,0 +1,25 @@
+package com.example.core.gson;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ================================================
+ * 在编译期为实体类生成 {@link com.google.gson.TypeAdapter}, 代替 Gson 运行时反射解析
+ * <p>
+ * 由 processor 模块中的 TypeAdapterProcessor 处理, 每个模块生成一个 {@link com.google.gson.TypeAdapterFactory},
+ * 类名由注解处理器参数 {@code gsonAdapterFactory} 指定, 通过 {@link com.example.core.di.module.AppModule.GsonConfiguration} 注册,
+ * 框架中 {@code CommonResult}、{@code CommonPage} 生成的 {@link CoreGsonAdapterFactory} 已默认注册
+ * <p>
+ * 实体类需要有非 private 的无参构造方法, 字段需要非 private 或者有对应的 getter/setter,
+ * 字段名支持 {@link com.google.gson.annotations.SerializedName}, 不支持 {@link com.google.gson.FieldNamingPolicy}
+ * ================================================
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.CLASS)
+public @interface GenerateTypeAdapter {
+}
@@ -0,0 +1,78 @@
+package com.example.core.image;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import com.example.core.util.Preconditions;
+
+/**
+ * ================================================
+ * {@link ImageCompressor} 的压缩参数
+ * ================================================
+ */
+public final class CompressOptions {
+    final int maxLongEdge;
+    final int quality;
+    final Bitmap.CompressFormat format;
+
+    private CompressOptions(Builder builder) {
+        this.maxLongEdge = builder.maxLongEdge;
+        this.quality = builder.quality;
+        this.format = builder.format;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 长边 1920, JPEG, 质量 80
+     */
+    @NonNull
+    public static CompressOptions defaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * 用于区分不同参数压缩出的文件
+     */
+    @NonNull
+    String key() {
+        return maxLongEdge + "-" + quality + "-" + format.name();
+    }
+
+    String extension() {
+        return format == Bitmap.CompressFormat.JPEG ? ".jpg" : format == Bitmap.CompressFormat.PNG ? ".png" : ".webp";
+    }
+
+    public static final class Builder {
+        private int maxLongEdge = 1920;
+        private int quality = 80;
+        private Bitmap.CompressFormat format = Bitmap.CompressFormat.JPEG;
+
+        private Builder() {
+        }
+
+        public Builder maxLongEdge(int pixels) {//图片长边缩放到不超过这么多像素, 短边按比例缩放
+            Preconditions.checkArgument(pixels > 0, "maxLongEdge must be > 0");
+            this.maxLongEdge = pixels;
+            return this;
+        }
+
+        public Builder quality(int quality) {//编码质量 0 - 100
+            Preconditions.checkArgument(quality >= 0 && quality <= 100, "quality must be in [0, 100]");
+            this.quality = quality;
+            return this;
+        }
+
+        public Builder format(@NonNull Bitmap.CompressFormat format) {//编码格式, 如 JPEG、WEBP
+            this.format = Preconditions.checkNotNull(format, "format == null");
+            return this;
+        }
+
+        public CompressOptions build() {
+            return new CompressOptions(this);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.core.image;
+
+import android.app.Application;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.media.ExifInterface;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPool;
+import com.example.common.util.MD5Utils;
+import com.example.core.util.DataHelper;
+import com.example.core.util.Preconditions;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * ================================================
+ * 上传前压缩图片: 缩小到 {@link CompressOptions.Builder#maxLongEdge(int)} 以内, 按 EXIF 方向旋转, 重新编码为 JPEG/WebP
+ * <p>
+ * 1. 先只解码尺寸, 按 2 的幂计算 inSampleSize, 解码出的图片不小于目标尺寸, 再用 {@link Canvas} 缩放到目标尺寸
+ * 2. 解码与缩放使用的 {@link Bitmap} 从 Glide 的 {@link BitmapPool} 中复用, 用完放回, 与图片加载共用同一个池
+ * 3. 解码、编码会阻塞在文件读写上, 等待内存额度时也会阻塞线程, 所以在 {@link Schedulers#io()} 上执行,
+ * 不占用线程数与 CPU 核数相同的 {@link Schedulers#computation()};
+ * {@link #compressAll(List, CompressOptions)} 最多同时处理 {@link #MAX_PARALLELISM} 张, 与 CPU 核数无关,
+ * 同时解码的图片占用的内存不超过最大堆内存的 1/4, 超出时后面的图片等待
+ * <p>
+ * 压缩结果保存在缓存目录下, 同一张图片以相同参数再次压缩时直接返回; 压缩后反而更大时返回原图
+ * ================================================
+ */
+@Singleton
+public class ImageCompressor {
+    private static final String DIR_NAME = "Compressed";
+    /**
+     * {@link #compressAll(List, CompressOptions)} 同时压缩的图片数, 避免占用过多共用的 IO 线程
+     */
+    private static final int MAX_PARALLELISM = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    private static final Paint PAINT = new Paint(Paint.FILTER_BITMAP_FLAG | Paint.DITHER_FLAG);
+
+    private final Application mApplication;
+    private final File mDir;
+    private final MemoryBudget mBudget = new MemoryBudget(Runtime.getRuntime().maxMemory() / 4);
+
+    @Inject
+    public ImageCompressor(Application application, File cacheDir) {
+        this.mApplication = application;
+        this.mDir = new File(cacheDir, DIR_NAME);
+    }
+
+    /**
+     * 压缩结果所在的目录
+     */
+    @NonNull
+    public File getDirectory() {
+        return mDir;
+    }
+
+    /**
+     * 在 {@link Schedulers#io()} 上压缩一张图片
+     */
+    @NonNull
+    public Single<File> compress(@NonNull File source, @NonNull CompressOptions options) {
+        return Single.fromCallable(() -> compressBlocking(source, options))
+                .subscribeOn(Schedulers.io());
+    }
+
+    /**
+     * 并行压缩多张图片, 最多同时压缩 {@link #MAX_PARALLELISM} 张, 按 sources 的顺序发射结果
+     */
+    @NonNull
+    public Observable<File> compressAll(@NonNull List<File> sources, @NonNull CompressOptions options) {
+        return Observable.fromIterable(sources)
+                .concatMapEager(source -> compress(source, options).toObservable(), MAX_PARALLELISM, 1);
+    }
+
+    /**
+     * 在当前线程压缩一张图片
+     *
+     * @return 压缩后的文件, 压缩后反而更大时返回 source
+     */
+    @WorkerThread
+    @NonNull
+    public File compressBlocking(@NonNull File source, @NonNull CompressOptions options) throws IOException {
+        Preconditions.checkNotNull(source, "source == null");
+        Preconditions.checkNotNull(options, "options == null");
+        File output = outputOf(source, options);
+        if (output.isFile()) {
+            return output;
+        }
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getPath(), bounds);
+        int width = bounds.outWidth;
+        int height = bounds.outHeight;
+        if (width <= 0 || height <= 0) {
+            throw new IOException("cannot decode " + source);
+        }
+        int rotation = rotationOf(source);
+        int longEdge = Math.max(width, height);
+        float scale = Math.min(1f, options.maxLongEdge / (float) longEdge);
+        int targetWidth = Math.max(1, Math.round(width * scale));
+        int targetHeight = Math.max(1, Math.round(height * scale));
+        int sampleSize = 1;
+        while (longEdge / (sampleSize * 2) >= options.maxLongEdge) {
+            sampleSize *= 2;
+        }
+        //不同格式的解码器对 inSampleSize 后的尺寸取整方式不同, 按向上取整估算
+        int decodedWidth = (width + sampleSize - 1) / sampleSize;
+        int decodedHeight = (height + sampleSize - 1) / sampleSize;
+        long cost = 4L * decodedWidth * decodedHeight + 4L * targetWidth * targetHeight;
+
+        mBudget.acquire(cost);
+        BitmapPool pool = Glide.get(mApplication).getBitmapPool();
+        Bitmap decoded = null;
+        Bitmap scaled = null;
+        try {
+            decoded = decode(source, sampleSize, decodedWidth, decodedHeight, pool);
+            boolean opaque = options.format == Bitmap.CompressFormat.JPEG;
+            if (rotation == 0 && decoded.getWidth() == targetWidth && decoded.getHeight() == targetHeight
+                    && !(opaque && decoded.hasAlpha())) {
+                scaled = decoded;
+            } else {
+                boolean swap = rotation == 90 || rotation == 270;
+                scaled = pool.get(swap ? targetHeight : targetWidth, swap ? targetWidth : targetHeight, Bitmap.Config.ARGB_8888);
+                Canvas canvas = new Canvas(scaled);
+                if (opaque) {
+                    //JPEG 没有透明通道, 透明部分填充白色而不是黑色
+                    canvas.drawColor(Color.WHITE);
+                }
+                canvas.drawBitmap(decoded, matrixOf(decoded, targetWidth, targetHeight, rotation), PAINT);
+                canvas.setBitmap(null);
+            }
+            write(scaled, options, output);
+        } finally {
+            if (scaled != null && scaled != decoded) {
+                pool.put(scaled);
+            }
+            if (decoded != null) {
+                pool.put(decoded);
+            }
+            mBudget.release(cost);
+        }
+        if (sampleSize == 1 && scale == 1f && rotation == 0 && output.length() >= source.length()) {
+            output.delete();
+            return source;
+        }
+        return output;
+    }
+
+    /**
+     * 解码到从 pool 中取出的 Bitmap, 不能复用时 (如部分格式不支持 inBitmap) 再分配新的
+     */
+    private static Bitmap decode(File source, int sampleSize, int width, int height, BitmapPool pool) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        options.inBitmap = pool.getDirty(width, height, Bitmap.Config.ARGB_8888);
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeFile(source.getPath(), options);
+        } catch (IllegalArgumentException e) {
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeFile(source.getPath(), options);
+        }
+        if (bitmap == null) {
+            if (options.inBitmap != null) {
+                pool.put(options.inBitmap);
+            }
+            throw new IOException("cannot decode " + source);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 把 decoded 缩放到 targetWidth x targetHeight 再顺时针旋转 rotation 度, 结果位于 (0, 0)
+     */
+    private static Matrix matrixOf(Bitmap decoded, int targetWidth, int targetHeight, int rotation) {
+        Matrix matrix = new Matrix();
+        matrix.postScale(targetWidth / (float) decoded.getWidth(), targetHeight / (float) decoded.getHeight());
+        matrix.postRotate(rotation);
+        switch (rotation) {
+            case 90:
+                matrix.postTranslate(targetHeight, 0);
+                break;
+            case 180:
+                matrix.postTranslate(targetWidth, targetHeight);
+                break;
+            case 270:
+                matrix.postTranslate(0, targetWidth);
+                break;
+            default:
+                break;
+        }
+        return matrix;
+    }
+
+    /**
+     * 先写入临时文件再重命名, 中途失败不会留下不完整的压缩结果
+     */
+    private void write(Bitmap bitmap, CompressOptions options, File output) throws IOException {
+        DataHelper.makeDirs(mDir);
+        File temp = new File(output.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp), 64 * 1024)) {
+            if (!bitmap.compress(options.format, options.quality, out)) {
+                throw new IOException("failed to encode " + output);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(output)) {
+            temp.delete();
+            throw new IOException("failed to rename " + temp + " to " + output);
+        }
+    }
+
+    private File outputOf(File source, CompressOptions options) {
+        String key = source.getAbsolutePath() + "\n" + source.length() + "\n" + source.lastModified() + "\n" + options.key();
+        return new File(mDir, MD5Utils.md5(key) + options.extension());
+    }
+
+    /**
+     * EXIF 中的旋转角度, 重新编码后 EXIF 丢失, 需要把旋转应用到像素上
+     */
+    private static int rotationOf(File source) {
+        try {
+            int orientation = new ExifInterface(source.getPath())
+                    .getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 限制同时解码的图片占用的内存, 单张图片超过上限时独占全部额度
+     */
+    private static final class MemoryBudget {
+        private final long mCapacity;
+        private long mUsed;
+
+        MemoryBudget(long capacity) {
+            this.mCapacity = capacity;
+        }
+
+        synchronized void acquire(long cost) throws InterruptedIOException {
+            long bounded = Math.min(cost, mCapacity);
+            try {
+                while (mUsed + bounded > mCapacity) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for memory");
+            }
+            mUsed += bounded;
+        }
+
+        synchronized void release(long cost) {
+            mUsed -= Math.min(cost, mCapacity);
+            notifyAll();
+        }
+    }
+}
@@ -1,12 +1,27 @@
 package com.example.core.net;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.net.metrics.AddressStats;
+
 import org.jetbrains.annotations.NotNull;
 
 import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import okhttp3.Dns;
 
@@ -15,27 +30,288 @@ import okhttp3.Dns;
  * android 默认不支持Ipv6的地址访问
  * 当在不同的网络下解析出的地址可能存在IPv4和IPv6的集合，但IPv6默认为集合的第一个
  * 需要设置如果出现IPv4与IPv6同时存在时，把该集合中的第一个改为IPv4
+ * <p>
+ * 解析结果会缓存在进程内, 成功与失败分别有各自的有效期, 成功的结果在过期前会在后台提前刷新,
+ * 刷新失败时继续使用上一次成功的结果, 命中缓存且排序无需更新时不会产生任何对象分配
+ * <p>
+ * 同一个域名同一时间只有一个线程在解析: 成功的结果过期后 (最多再过一个有效期) 仍然直接返回, 由一个后台任务刷新;
+ * 没有可用结果需要同步解析时, 并发的请求等待同一次解析的结果
+ * <p>
+ * 返回的地址按 {@link AddressStats} 中实测的连接耗时排序, 失败过的地址排在后面, 失败的影响随时间衰减,
+ * 配置了 {@link ConnectionRacer} 时, 通过 {@link #setRacePort(String, int)} 登记了端口的域名解析到多个地址后,
+ * 会在后台对还没有测量数据的地址进行连接竞速
  */
 public class ApiDns implements Dns {
+    /**
+     * 解析成功的缓存有效期
+     */
+    public static final long DEFAULT_POSITIVE_TTL = TimeUnit.MINUTES.toMillis(5);
+    /**
+     * 解析失败的缓存有效期
+     */
+    public static final long DEFAULT_NEGATIVE_TTL = TimeUnit.SECONDS.toMillis(10);
+    /**
+     * 超过有效期的这个比例后开始后台刷新
+     */
+    private static final float REFRESH_FACTOR = 0.75f;
+    /**
+     * 失败惩罚随时间衰减, 排序结果最长复用这么久
+     */
+    private static final long REORDER_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    private final Dns mDelegate;
+    private final Executor mExecutor;
+    private final long mPositiveTtlNanos;
+    private final long mNegativeTtlNanos;
+    private final AddressStats mStats;
+    @Nullable
+    private final ConnectionRacer mRacer;
+    /**
+     * 需要连接竞速的域名与端口
+     */
+    private final Map<String, Integer> mRacePorts = new ConcurrentHashMap<>();
+    private final Map<String, Entry> mCache = new ConcurrentHashMap<>();
+    /**
+     * 正在同步解析的域名
+     */
+    private final Map<String, FutureTask<List<InetAddress>>> mResolving = new ConcurrentHashMap<>();
+
+    public ApiDns(@NonNull Executor executor) {
+        this(Dns.SYSTEM, executor, DEFAULT_POSITIVE_TTL, DEFAULT_NEGATIVE_TTL);
+    }
+
+    public ApiDns(@NonNull Dns delegate, @NonNull Executor executor, long positiveTtlMs, long negativeTtlMs) {
+        this(delegate, executor, positiveTtlMs, negativeTtlMs, new AddressStats(), null);
+    }
+
+    /**
+     * @param delegate       实际执行解析的 {@link Dns}
+     * @param executor       用于后台刷新和预解析
+     * @param positiveTtlMs  解析成功的缓存有效期 (单位毫秒)
+     * @param negativeTtlMs  解析失败的缓存有效期 (单位毫秒)
+     * @param stats          地址的连接耗时统计, 用于对解析结果排序
+     * @param racer          连接竞速, 为 {@code null} 时不竞速
+     */
+    public ApiDns(@NonNull Dns delegate, @NonNull Executor executor, long positiveTtlMs, long negativeTtlMs,
+                  @NonNull AddressStats stats, @Nullable ConnectionRacer racer) {
+        this.mDelegate = delegate;
+        this.mExecutor = executor;
+        this.mPositiveTtlNanos = TimeUnit.MILLISECONDS.toNanos(positiveTtlMs);
+        this.mNegativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMs);
+        this.mStats = stats;
+        this.mRacer = racer;
+    }
+
+    /**
+     * 登记域名实际使用的端口, 只有登记过的域名才会进行连接竞速
+     *
+     * @param host 域名
+     * @param port 端口, 如 https 为 443
+     */
+    public void setRacePort(@NonNull String host, int port) {
+        mRacePorts.put(host, port);
+    }
+
     @NotNull
     @Override
     public List<InetAddress> lookup(@NotNull String s) throws UnknownHostException {
-        try {
-            List<InetAddress> mInetAddressesList = new ArrayList<>();
-            InetAddress[] mInetAddresses = InetAddress.getAllByName(s);
-            //遍历获取的地址集合，把IPv4放在集合的第一个
-            for (InetAddress address : mInetAddresses) {
-                if (address instanceof Inet4Address) {
-                    mInetAddressesList.add(0, address);
-                } else {
-                    mInetAddressesList.add(address);
+        Entry entry = mCache.get(s);
+        long now = System.nanoTime();
+        if (entry != null) {
+            if (entry.error != null) {
+                if (now - entry.expiresAt < 0) {
+                    throw newUnknownHostException(s, entry.error);
+                }
+            } else if (now - entry.staleUntil < 0) {
+                //快过期或者已经过期时只由一个后台任务刷新, 当前请求直接使用缓存
+                if (now - entry.refreshAt >= 0 && entry.refreshing.compareAndSet(false, true)
+                        && !executeQuietly(() -> refresh(s))) {
+                    entry.refreshing.set(false);
                 }
+                return entry.ordered(mStats, now);
+            }
+        }
+        return resolveShared(s);
+    }
+
+    /**
+     * 预解析域名, 应用启动时调用, 使首次请求直接命中缓存
+     *
+     * @param hosts 域名集合
+     */
+    public void prefetch(@NonNull Collection<String> hosts) {
+        for (String host : hosts) {
+            if (!mCache.containsKey(host)) {
+                executeQuietly(() -> refresh(host));
+            }
+        }
+    }
+
+    /**
+     * 清除所有缓存, 如网络切换时
+     */
+    public void clear() {
+        mCache.clear();
+        mStats.clear();
+    }
+
+    /**
+     * 后台任务只是优化, 线程池队列满时放弃, 不影响当前的解析
+     *
+     * @return 是否提交成功
+     */
+    private boolean executeQuietly(Runnable task) {
+        try {
+            mExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private void refresh(String host) {
+        try {
+            resolve(host);
+        } catch (UnknownHostException ignored) {
+            //失败时已经缓存了失败结果或保留了上一次成功的结果
+        }
+    }
+
+    /**
+     * 同步解析, 并发的请求共用同一次解析
+     */
+    private List<InetAddress> resolveShared(String host) throws UnknownHostException {
+        FutureTask<List<InetAddress>> task = new FutureTask<>(() -> resolve(host));
+        FutureTask<List<InetAddress>> running = mResolving.putIfAbsent(host, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                mResolving.remove(host, task);
+            }
+        }
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw newUnknownHostException(host, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UnknownHostException) {
+                throw (UnknownHostException) cause;
+            }
+            throw newUnknownHostException("Broken system behaviour", cause);
+        }
+    }
+
+    private List<InetAddress> resolve(String host) throws UnknownHostException {
+        Entry previous = mCache.get(host);
+        long now = System.nanoTime();
+        try {
+            List<InetAddress> addresses = order(mDelegate.lookup(host));
+            long expiresAt = now + mPositiveTtlNanos;
+            //过期后最多再使用一个有效期, 期间由后台刷新
+            Entry entry = new Entry(addresses, null, expiresAt, now + (long) (mPositiveTtlNanos * REFRESH_FACTOR),
+                    expiresAt + mPositiveTtlNanos);
+            mCache.put(host, entry);
+            //解析结果有变化时重新竞速
+            Integer port = mRacePorts.get(host);
+            if (mRacer != null && port != null && addresses.size() > 1
+                    && (previous == null || previous.addresses == null || !previous.addresses.equals(addresses))) {
+                executeQuietly(() -> mRacer.race(addresses, port));
+            }
+            return entry.ordered(mStats, now);
+        } catch (UnknownHostException | RuntimeException e) {
+            if (previous != null && previous.error == null && now - previous.staleUntil < 0) {
+                //刷新失败, 继续使用上一次成功的结果, 失败有效期后再由后台刷新, 不会回到请求线程同步解析
+                Entry entry = new Entry(previous.addresses, null, now + mNegativeTtlNanos, now + mNegativeTtlNanos,
+                        previous.staleUntil);
+                mCache.put(host, entry);
+                return entry.ordered(mStats, now);
+            }
+            UnknownHostException exception = e instanceof UnknownHostException
+                    ? (UnknownHostException) e : newUnknownHostException("Broken system behaviour", e);
+            mCache.put(host, new Entry(null, exception, now + mNegativeTtlNanos, now + mNegativeTtlNanos,
+                    now + mNegativeTtlNanos));
+            throw exception;
+        }
+    }
+
+    /**
+     * 把IPv4放在集合的前面, 其余顺序不变
+     */
+    private static List<InetAddress> order(List<InetAddress> addresses) {
+        List<InetAddress> result = new ArrayList<>(addresses.size());
+        for (InetAddress address : addresses) {
+            if (address instanceof Inet4Address) {
+                result.add(address);
             }
-            return mInetAddressesList;
-        } catch (NullPointerException var4) {
-            UnknownHostException unknownHostException = new UnknownHostException("Broken system behaviour");
-            unknownHostException.initCause(var4);
-            throw unknownHostException;
+        }
+        for (InetAddress address : addresses) {
+            if (!(address instanceof Inet4Address)) {
+                result.add(address);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static UnknownHostException newUnknownHostException(String message, Throwable cause) {
+        UnknownHostException unknownHostException = new UnknownHostException(message);
+        unknownHostException.initCause(cause);
+        return unknownHostException;
+    }
+
+    /**
+     * 一个域名的解析结果, {@code error} 不为空时表示解析失败
+     */
+    private static final class Entry {
+        final List<InetAddress> addresses;
+        final UnknownHostException error;
+        final long expiresAt;
+        final long refreshAt;
+        /**
+         * 超过这个时间后不再使用过期的结果, 需要同步解析
+         */
+        final long staleUntil;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile Ordering ordering;
+
+        Entry(List<InetAddress> addresses, UnknownHostException error, long expiresAt, long refreshAt, long staleUntil) {
+            this.addresses = addresses;
+            this.error = error;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+            this.staleUntil = staleUntil;
+        }
+
+        /**
+         * 按连接耗时排序后的地址
+         * <p>
+         * 统计数据没有明显变化 ({@link AddressStats#version()} 不变) 且距离上次排序不超过 {@link #REORDER_INTERVAL} 时
+         * 直接返回上一次的排序结果, 不会产生任何对象分配; 超过间隔后重新排序一次, 使失败惩罚的衰减生效
+         */
+        List<InetAddress> ordered(AddressStats stats, long now) {
+            long version = stats.version();
+            Ordering current = ordering;
+            if (current != null && current.version == version && now - current.sortedAt < REORDER_INTERVAL) {
+                return current.addresses;
+            }
+            current = new Ordering(stats.sort(addresses), version, now);
+            ordering = current;
+            return current.addresses;
+        }
+    }
+
+    private static final class Ordering {
+        final List<InetAddress> addresses;
+        final long version;
+        final long sortedAt;
+
+        Ordering(List<InetAddress> addresses, long version, long sortedAt) {
+            this.addresses = addresses;
+            this.version = version;
+            this.sortedAt = sortedAt;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.example.core.net;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * 服务器返回的 code 非 0 时抛出的异常, 携带服务器返回的 code 与 message
+ */
+public class ApiException extends IOException {
+    private final long mCode;
+
+    public ApiException(long code, @Nullable String message) {
+        super(message);
+        this.mCode = code;
+    }
+
+    public long getCode() {
+        return mCode;
+    }
+}
@@ -36,21 +36,28 @@ public abstract class BaseObserver<T> implements Observer<CommonResult<T>> {
     }
     @Override
     public void onError(@NonNull Throwable e) {
+        onError(errorMessage(e));
+    }
+
+    /**
+     * 把请求异常转换为提示信息, {@link DataObserver} 共用
+     */
+    static String errorMessage(Throwable e) {
         if(e instanceof SocketTimeoutException) {
-            onError("请求超时");
+            return "请求超时";
         }else if(e instanceof HttpException) {
             HttpException exception = (HttpException) e;
             if(exception.code() >= 400 && exception.code() < 500) {
-                onError("服务器错误");
+                return "服务器错误";
             }else if(exception.code() >= 500 && exception.code() < 600) {
-                onError("服务器找不到数据");
+                return "服务器找不到数据";
             }else {
-                onError(e.getMessage());
+                return e.getMessage();
             }
         }else if(e instanceof ConnectException){
-            onError("请连接网络后重试");
+            return "请连接网络后重试";
         }else{
-            onError(e.getMessage());
+            return e.getMessage();
         }
     }
 
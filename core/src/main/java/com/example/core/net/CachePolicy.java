@@ -0,0 +1,26 @@
+package com.example.core.net;
+
+/**
+ * ================================================
+ * {@link IRepositoryManager#fetch(String, java.lang.reflect.Type, CachePolicy, io.reactivex.rxjava3.core.Observable)}
+ * 读取缓存与请求网络的方式
+ * ================================================
+ */
+public enum CachePolicy {
+    /**
+     * 只读取缓存, 没有缓存时直接结束
+     */
+    CACHE_ONLY,
+    /**
+     * 只请求网络, 结果写入缓存
+     */
+    NETWORK_ONLY,
+    /**
+     * 先发射缓存 (网络结果先返回时不再发射缓存), 再发射网络结果, 适合再次进入页面时立即显示上次的数据
+     */
+    CACHE_THEN_NETWORK,
+    /**
+     * 请求网络, 失败时使用缓存, 没有缓存时抛出网络请求的异常
+     */
+    NETWORK_ELSE_CACHE
+}
@@ -0,0 +1,246 @@
+package com.example.core.net;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.net.metrics.EndpointMetrics;
+import com.example.core.net.metrics.NetworkMetrics;
+import com.example.core.util.LogUtils;
+
+import org.reactivestreams.Subscriber;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.Lazy;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.CompletableObserver;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.MaybeObserver;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.core.SingleObserver;
+import okhttp3.Call;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+/**
+ * ================================================
+ * 按所属对象 (如 {@link com.example.core.base.mvp.BaseModel}) 标记请求, 所属对象销毁时通过 {@link Dispatcher} 取消其所有请求
+ * <p>
+ * RxJava 解除订阅只会取消订阅链上的请求, 没有绑定生命周期的订阅、对冲请求等在页面关闭后仍会继续下载和解析,
+ * 这里直接从 {@link Dispatcher} 中找出所属对象还在排队或者进行中的请求全部取消
+ * <p>
+ * 订阅 {@link #bind(Object, Object)} 返回的 Observable 等时, 在订阅线程上记录所属对象,
+ * Retrofit 在同一线程中通过 {@link #callFactory(OkHttpClient)} 创建请求时把所属对象放入 {@link Request#tag(Class)}
+ * ================================================
+ */
+@Singleton
+public class CallCanceller {
+    private static final String TAG = "CallCanceller";
+    private static final ThreadLocal<Object> CURRENT_OWNER = new ThreadLocal<>();
+
+    private final Lazy<OkHttpClient> mClient;
+    private final NetworkMetrics mMetrics;
+    private final AtomicLong mCancelledCalls = new AtomicLong();
+    private final AtomicLong mSavedBytes = new AtomicLong();
+    private final AtomicLong mSavedNanos = new AtomicLong();
+
+    @Inject
+    public CallCanceller(Lazy<OkHttpClient> client, NetworkMetrics metrics) {
+        this.mClient = client;
+        this.mMetrics = metrics;
+    }
+
+    /**
+     * 请求的所属对象以及创建时间
+     */
+    static final class CallTag {
+        final Object mOwner;
+        final long mCreatedAt = System.nanoTime();
+
+        CallTag(Object owner) {
+            this.mOwner = owner;
+        }
+    }
+
+    /**
+     * 提供给 Retrofit 的 {@link Call.Factory}, 创建请求时带上当前线程记录的所属对象
+     */
+    @NonNull
+    public Call.Factory callFactory(@NonNull OkHttpClient client) {
+        return request -> {
+            Object owner = CURRENT_OWNER.get();
+            if (owner != null) {
+                request = request.newBuilder()
+                        .tag(CallTag.class, new CallTag(owner))
+                        .build();
+            }
+            return client.newCall(request);
+        };
+    }
+
+    /**
+     * 让 Retrofit 接口返回的 Observable、Single、Flowable、Maybe、Completable 在订阅时创建的请求属于 owner,
+     * 其他类型原样返回
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public Object bind(@Nullable Object result, @NonNull Object owner) {
+        if (result instanceof Observable) {
+            Observable<Object> source = (Observable<Object>) result;
+            return new Observable<Object>() {
+                @Override
+                protected void subscribeActual(@NonNull Observer<? super Object> observer) {
+                    Object previous = enter(owner);
+                    try {
+                        source.subscribe(observer);
+                    } finally {
+                        exit(previous);
+                    }
+                }
+            };
+        } else if (result instanceof Single) {
+            Single<Object> source = (Single<Object>) result;
+            return new Single<Object>() {
+                @Override
+                protected void subscribeActual(@NonNull SingleObserver<? super Object> observer) {
+                    Object previous = enter(owner);
+                    try {
+                        source.subscribe(observer);
+                    } finally {
+                        exit(previous);
+                    }
+                }
+            };
+        } else if (result instanceof Flowable) {
+            Flowable<Object> source = (Flowable<Object>) result;
+            return new Flowable<Object>() {
+                @Override
+                protected void subscribeActual(@NonNull Subscriber<? super Object> subscriber) {
+                    Object previous = enter(owner);
+                    try {
+                        source.subscribe(subscriber);
+                    } finally {
+                        exit(previous);
+                    }
+                }
+            };
+        } else if (result instanceof Maybe) {
+            Maybe<Object> source = (Maybe<Object>) result;
+            return new Maybe<Object>() {
+                @Override
+                protected void subscribeActual(@NonNull MaybeObserver<? super Object> observer) {
+                    Object previous = enter(owner);
+                    try {
+                        source.subscribe(observer);
+                    } finally {
+                        exit(previous);
+                    }
+                }
+            };
+        } else if (result instanceof Completable) {
+            Completable source = (Completable) result;
+            return new Completable() {
+                @Override
+                protected void subscribeActual(@NonNull CompletableObserver observer) {
+                    Object previous = enter(owner);
+                    try {
+                        source.subscribe(observer);
+                    } finally {
+                        exit(previous);
+                    }
+                }
+            };
+        }
+        return result;
+    }
+
+    private static Object enter(Object owner) {
+        Object previous = CURRENT_OWNER.get();
+        CURRENT_OWNER.set(owner);
+        return previous;
+    }
+
+    private static void exit(@Nullable Object previous) {
+        if (previous == null) {
+            CURRENT_OWNER.remove();
+        } else {
+            CURRENT_OWNER.set(previous);
+        }
+    }
+
+    /**
+     * 取消 owner 所有还在排队或者进行中的请求
+     *
+     * @return 取消的请求数
+     */
+    public int cancel(@NonNull Object owner) {
+        Dispatcher dispatcher = mClient.get().dispatcher();
+        List<Call> calls = new ArrayList<>(dispatcher.queuedCalls());
+        calls.addAll(dispatcher.runningCalls());
+        int cancelled = 0;
+        long savedBytes = 0;
+        long savedNanos = 0;
+        long now = System.nanoTime();
+        for (Call call : calls) {
+            CallTag tag = call.request().tag(CallTag.class);
+            if (tag == null || tag.mOwner != owner || call.isCanceled()) {
+                continue;
+            }
+            call.cancel();
+            cancelled++;
+            //按该接口的历史平均值估算还没有下载的字节数以及还需要占用线程的时间
+            EndpointMetrics metrics = mMetrics.getEndpoint(NetworkMetrics.endpointOf(call.request()));
+            if (metrics != null) {
+                savedBytes += metrics.getMeanResponseBytes();
+                long meanNanos = TimeUnit.MICROSECONDS.toNanos(metrics.histogram(EndpointMetrics.Phase.TOTAL).getMeanMicros());
+                savedNanos += Math.max(0, meanNanos - (now - tag.mCreatedAt));
+            }
+        }
+        if (cancelled > 0) {
+            mCancelledCalls.addAndGet(cancelled);
+            mSavedBytes.addAndGet(savedBytes);
+            mSavedNanos.addAndGet(savedNanos);
+            LogUtils.debugInfo(TAG, "cancelled " + cancelled + " calls of " + owner.getClass().getSimpleName()
+                    + ", saved ~" + savedBytes + " bytes, ~" + TimeUnit.NANOSECONDS.toMillis(savedNanos) + " ms");
+        }
+        return cancelled;
+    }
+
+    /**
+     * 累计取消的请求数
+     */
+    public long getCancelledCalls() {
+        return mCancelledCalls.get();
+    }
+
+    /**
+     * 累计节省的下载字节数 (按接口平均响应大小估算)
+     */
+    public long getSavedBytes() {
+        return mSavedBytes.get();
+    }
+
+    /**
+     * 累计节省的请求线程占用时间 (按接口平均耗时估算, 单位毫秒)
+     */
+    public long getSavedTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(mSavedNanos.get());
+    }
+
+    @NonNull
+    public String report() {
+        return "cancelled calls: " + getCancelledCalls()
+                + ", saved bytes: ~" + getSavedBytes()
+                + ", saved time: ~" + getSavedTimeMs() + " ms";
+    }
+}
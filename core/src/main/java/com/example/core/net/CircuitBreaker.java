@@ -0,0 +1,207 @@
+package com.example.core.net;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * ================================================
+ * 单个域名的熔断器
+ * <p>
+ * CLOSED: 正常放行, 连续失败达到阈值后进入 OPEN
+ * OPEN: 直接拒绝请求 (快速失败), 经过熔断时长后进入 HALF_OPEN
+ * HALF_OPEN: 只放行一个探测请求, 成功则回到 CLOSED, 失败则重新进入 OPEN
+ * ================================================
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 熔断器状态变化的回调
+     */
+    public interface Listener {
+        void onStateChanged(@NonNull String host, @NonNull State from, @NonNull State to);
+    }
+
+    private final String mHost;
+    private final int mFailureThreshold;
+    private final long mOpenDurationNanos;
+    @Nullable
+    private final Listener mListener;
+
+    private State mState = State.CLOSED;
+    private int mConsecutiveFailures;
+    private long mOpenedAt;
+    private boolean mProbing;
+    /**
+     * 每次状态变化以及每次发放探测名额时加一, 用来识别过期的结果
+     */
+    private long mGeneration;
+    /**
+     * CLOSED 期间发放的许可都相同, 不必每个请求创建一个
+     */
+    private Permit mClosedPermit = new Permit(false, 0);
+
+    /**
+     * {@link #tryAcquire()} 发放的许可, 请求结束后原样交给 {@link #onSuccess(Permit)}、{@link #onFailure(Permit)}
+     * 或 {@link #release(Permit)}
+     * <p>
+     * 许可记录了发放时的代数以及是否为 HALF_OPEN 的探测请求, 熔断器据此忽略过期的结果:
+     * 例如熔断之前发出的慢请求在 OPEN 期间才成功, 不能把熔断器直接关闭;
+     * 只有当前的探测请求可以改变 HALF_OPEN 状态
+     */
+    public static final class Permit {
+        private final boolean mProbe;
+        private final long mGeneration;
+
+        private Permit(boolean probe, long generation) {
+            this.mProbe = probe;
+            this.mGeneration = generation;
+        }
+
+        public boolean isProbe() {
+            return mProbe;
+        }
+    }
+
+    /**
+     * @param host             域名
+     * @param failureThreshold 连续失败多少次后熔断
+     * @param openDurationMs   熔断时长 (单位毫秒)
+     * @param listener         状态变化回调
+     */
+    public CircuitBreaker(@NonNull String host, int failureThreshold, long openDurationMs, @Nullable Listener listener) {
+        this.mHost = host;
+        this.mFailureThreshold = failureThreshold;
+        this.mOpenDurationNanos = openDurationMs * 1000000L;
+        this.mListener = listener;
+    }
+
+    /**
+     * 请求前调用, 判断是否放行
+     *
+     * @return {@code null} 表示熔断中, 应该快速失败
+     */
+    @Nullable
+    public Permit tryAcquire() {
+        State from;
+        Permit permit;
+        synchronized (this) {
+            if (mState == State.CLOSED) {
+                return mClosedPermit;
+            }
+            if (mState == State.OPEN) {
+                if (System.nanoTime() - mOpenedAt < mOpenDurationNanos) {
+                    return null;
+                }
+                from = mState;
+                mState = State.HALF_OPEN;
+            } else {
+                //HALF_OPEN 时同一时间只允许一个探测请求
+                if (mProbing) {
+                    return null;
+                }
+                from = null;
+            }
+            mProbing = true;
+            permit = new Permit(true, ++mGeneration);
+        }
+        if (from != null) {
+            notifyChanged(from, State.HALF_OPEN);
+        }
+        return permit;
+    }
+
+    /**
+     * 请求成功后调用
+     */
+    public void onSuccess(@NonNull Permit permit) {
+        State from;
+        synchronized (this) {
+            if (!isCurrent(permit)) {
+                return;
+            }
+            mConsecutiveFailures = 0;
+            if (mState == State.CLOSED) {
+                return;
+            }
+            from = mState;
+            transitionLocked(State.CLOSED);
+        }
+        notifyChanged(from, State.CLOSED);
+    }
+
+    /**
+     * 请求失败后调用
+     */
+    public void onFailure(@NonNull Permit permit) {
+        State from;
+        synchronized (this) {
+            if (!isCurrent(permit)) {
+                return;
+            }
+            if (mState == State.CLOSED && ++mConsecutiveFailures < mFailureThreshold) {
+                return;
+            }
+            from = mState;
+            transitionLocked(State.OPEN);
+            mOpenedAt = System.nanoTime();
+        }
+        notifyChanged(from, State.OPEN);
+    }
+
+    /**
+     * 请求既不算成功也不算失败时调用 (如被取消或者抛出了非 IO 异常), 只释放 HALF_OPEN 时的探测名额,
+     * 否则探测请求不返回结果, 熔断器会一直停留在 HALF_OPEN 拒绝所有请求
+     */
+    public synchronized void release(@NonNull Permit permit) {
+        if (isCurrent(permit)) {
+            mProbing = false;
+        }
+    }
+
+    /**
+     * 许可是否属于当前状态: CLOSED 时要求是本轮 CLOSED 发放的普通许可, HALF_OPEN 时要求是当前的探测许可,
+     * OPEN 时所有结果都已过期
+     */
+    private boolean isCurrent(Permit permit) {
+        if (permit.mGeneration != mGeneration) {
+            return false;
+        }
+        switch (mState) {
+            case CLOSED:
+                return !permit.mProbe;
+            case HALF_OPEN:
+                return permit.mProbe && mProbing;
+            default:
+                return false;
+        }
+    }
+
+    private void transitionLocked(State to) {
+        mState = to;
+        mProbing = false;
+        mGeneration++;
+        if (to == State.CLOSED) {
+            mClosedPermit = new Permit(false, mGeneration);
+        }
+    }
+
+    @NonNull
+    public synchronized State getState() {
+        return mState;
+    }
+
+    @NonNull
+    public String getHost() {
+        return mHost;
+    }
+
+    private void notifyChanged(State from, State to) {
+        if (mListener != null) {
+            mListener.onStateChanged(mHost, from, to);
+        }
+    }
+}
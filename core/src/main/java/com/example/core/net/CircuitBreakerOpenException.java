@@ -0,0 +1,15 @@
+package com.example.core.net;
+
+import java.io.IOException;
+
+/**
+ * 域名处于熔断状态时快速失败抛出的异常
+ *
+ * @see CircuitBreaker
+ */
+public class CircuitBreakerOpenException extends IOException {
+
+    public CircuitBreakerOpenException(String host) {
+        super("Circuit breaker is open for " + host);
+    }
+}
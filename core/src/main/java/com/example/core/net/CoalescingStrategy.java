@@ -0,0 +1,48 @@
+package com.example.core.net;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ================================================
+ * 同一帧内多次发射的数据如何合并, 配合 {@link RxScheduler#Obs_io_main_coalesced(CoalescingStrategy)} 使用
+ *
+ * @param <T> 上游数据类型
+ * @param <R> 合并后交给主线程的数据类型
+ * ================================================
+ */
+public interface CoalescingStrategy<T, R> {
+
+    /**
+     * 把新的数据合并到这一帧还没有交给主线程的数据中, 在上游线程调用
+     *
+     * @param pending 这一帧已经合并的数据, 这一帧的第一个数据时为 {@code null}
+     * @param item    新的数据
+     * @return 合并后的数据
+     */
+    @NonNull
+    R coalesce(@Nullable R pending, @NonNull T item);
+
+    /**
+     * 只保留每一帧最后一个数据, 适用于进度、搜索结果等只关心最新值的场景
+     */
+    @NonNull
+    static <T> CoalescingStrategy<T, T> latest() {
+        return (pending, item) -> item;
+    }
+
+    /**
+     * 把每一帧的所有数据按顺序放到一个 {@link List} 中, 适用于分页数据等不能丢弃的场景
+     */
+    @NonNull
+    static <T> CoalescingStrategy<T, List<T>> batch() {
+        return (pending, item) -> {
+            List<T> list = pending == null ? new ArrayList<>() : pending;
+            list.add(item);
+            return list;
+        };
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.core.net;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.net.metrics.AddressStats;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ================================================
+ * 参考 Happy Eyeballs (RFC 8305) 对同一域名的多个地址进行连接竞速:
+ * IPv6 与 IPv4 交替排列, 每隔 {@link #DEFAULT_STAGGER_MS} 启动下一个地址的连接, 前一个失败时立即启动下一个
+ * <p>
+ * 竞速只用于测量, 第一个连接建立后立即关闭所有连接, 每个地址的连接耗时和失败都记录到 {@link AddressStats},
+ * 之后 {@link ApiDns#lookup(String)} 按实测速度返回地址, 由 OkHttp 的路由选择按顺序使用
+ * <p>
+ * 1. 所有连接使用非阻塞的 {@link SocketChannel} 在调用线程中通过一个 {@link Selector} 等待,
+ * 一次竞速只占用一个线程, 不会向线程池提交其他任务
+ * 2. 已经有测量数据的地址 (真实请求建立过连接) 不再参与, 每次最多连接 {@link #MAX_ADDRESSES} 个地址,
+ * 多出的 TCP 连接数有上限
+ * ================================================
+ */
+public class ConnectionRacer {
+    public static final long DEFAULT_STAGGER_MS = 250;
+    /**
+     * 一次竞速最多连接的地址数
+     */
+    public static final int MAX_ADDRESSES = 4;
+
+    private final AddressStats mStats;
+    private final long mStaggerNanos;
+    private final long mTimeoutNanos;
+
+    public ConnectionRacer(@NonNull AddressStats stats, int timeoutMs) {
+        this(stats, DEFAULT_STAGGER_MS, timeoutMs);
+    }
+
+    public ConnectionRacer(@NonNull AddressStats stats, long staggerMs, int timeoutMs) {
+        this.mStats = stats;
+        this.mStaggerNanos = TimeUnit.MILLISECONDS.toNanos(staggerMs);
+        this.mTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    /**
+     * 对还没有测量数据的地址进行连接竞速, 会阻塞到有地址连接成功或全部失败
+     *
+     * @param addresses 地址集合
+     * @param port      端口
+     * @return 最先连接成功的地址, 全部失败或者没有需要测量的地址时返回 {@code null}
+     */
+    @Nullable
+    public InetAddress race(@NonNull List<InetAddress> addresses, int port) {
+        List<InetAddress> ordered = new ArrayList<>(MAX_ADDRESSES);
+        for (InetAddress address : interleave(addresses)) {
+            if (ordered.size() < MAX_ADDRESSES && !mStats.isMeasured(address)) {
+                ordered.add(address);
+            }
+        }
+        if (ordered.isEmpty()) {
+            return null;
+        }
+        List<SocketChannel> channels = new ArrayList<>(ordered.size());
+        Selector selector = null;
+        try {
+            selector = Selector.open();
+            return race(selector, channels, ordered, port);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            for (SocketChannel channel : channels) {
+                closeQuietly(channel);
+            }
+            if (selector != null) {
+                try {
+                    selector.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private InetAddress race(Selector selector, List<SocketChannel> channels, List<InetAddress> ordered, int port)
+            throws IOException {
+        int next = 0;
+        int pending = 0;
+        long nextStartAt = System.nanoTime();
+        while (true) {
+            long now = System.nanoTime();
+            //没有进行中的连接或者等待超过 stagger 时启动下一个地址
+            if (next < ordered.size() && (pending == 0 || now - nextStartAt >= 0)) {
+                InetAddress address = ordered.get(next++);
+                nextStartAt = now + mStaggerNanos;
+                Probe probe = new Probe(address, now);
+                SocketChannel channel;
+                try {
+                    channel = SocketChannel.open();
+                    channels.add(channel);
+                    channel.configureBlocking(false);
+                    if (channel.connect(new InetSocketAddress(address, port))) {
+                        mStats.recordSuccess(address, System.nanoTime() - now);
+                        return address;
+                    }
+                    channel.register(selector, SelectionKey.OP_CONNECT, probe);
+                    pending++;
+                } catch (IOException e) {
+                    mStats.recordFailure(address);
+                    nextStartAt = now;
+                }
+                continue;
+            }
+            if (pending == 0) {
+                return null;
+            }
+            //等到下一个地址的启动时间或者最早的连接超时
+            long wakeAt = next < ordered.size() ? nextStartAt : Long.MAX_VALUE;
+            for (SelectionKey key : selector.keys()) {
+                if (!key.isValid()) {
+                    continue;
+                }
+                long deadline = ((Probe) key.attachment()).startedAt + mTimeoutNanos;
+                if (wakeAt == Long.MAX_VALUE || deadline - wakeAt < 0) {
+                    wakeAt = deadline;
+                }
+            }
+            long waitMs = TimeUnit.NANOSECONDS.toMillis(wakeAt - now);
+            if (waitMs > 0) {
+                selector.select(waitMs);
+            } else {
+                selector.selectNow();
+            }
+            now = System.nanoTime();
+            Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+            while (selected.hasNext()) {
+                SelectionKey key = selected.next();
+                selected.remove();
+                Probe probe = (Probe) key.attachment();
+                try {
+                    if (((SocketChannel) key.channel()).finishConnect()) {
+                        mStats.recordSuccess(probe.address, now - probe.startedAt);
+                        return probe.address;
+                    }
+                } catch (IOException e) {
+                    //连接失败, 立即启动下一个地址
+                    mStats.recordFailure(probe.address);
+                    key.cancel();
+                    pending--;
+                    nextStartAt = now;
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                Probe probe = (Probe) key.attachment();
+                if (key.isValid() && now - (probe.startedAt + mTimeoutNanos) >= 0) {
+                    mStats.recordFailure(probe.address);
+                    key.cancel();
+                    pending--;
+                    nextStartAt = now;
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * IPv6 与 IPv4 交替排列, 以原集合第一个地址的类型开头
+     */
+    static List<InetAddress> interleave(List<InetAddress> addresses) {
+        List<InetAddress> v4 = new ArrayList<>();
+        List<InetAddress> v6 = new ArrayList<>();
+        for (InetAddress address : addresses) {
+            if (address instanceof Inet4Address) {
+                v4.add(address);
+            } else {
+                v6.add(address);
+            }
+        }
+        boolean v4First = !addresses.isEmpty() && addresses.get(0) instanceof Inet4Address;
+        List<InetAddress> first = v4First ? v4 : v6;
+        List<InetAddress> second = v4First ? v6 : v4;
+        List<InetAddress> result = new ArrayList<>(addresses.size());
+        for (int i = 0; i < Math.max(first.size(), second.size()); i++) {
+            if (i < first.size()) {
+                result.add(first.get(i));
+            }
+            if (i < second.size()) {
+                result.add(second.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static final class Probe {
+        final InetAddress address;
+        final long startedAt;
+
+        Probe(InetAddress address, long startedAt) {
+            this.address = address;
+            this.startedAt = startedAt;
+        }
+    }
+}
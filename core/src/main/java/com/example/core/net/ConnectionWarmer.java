@@ -0,0 +1,114 @@
+package com.example.core.net;
+
+import com.example.core.util.LogUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import dagger.Lazy;
+import okhttp3.Authenticator;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * ================================================
+ * 启动时在后台线程预热网络连接, 使第一个真正的接口请求直接复用连接池中已建立好的连接,
+ * 不必在关键路径上等待 DNS 解析、TCP 连接以及 TLS 握手
+ * <p>
+ * OkHttp 没有提供单独建立连接的 Api, 这里对服务器地址以及预解析的域名各发起 HEAD 请求,
+ * 请求完成后连接会保留在连接池中, 保留时间参考 {@link com.example.core.di.module.GlobalConfigModule.Builder#connectionPool}
+ * <p>
+ * 1. 预热请求使用 {@link OkHttpClient#newBuilder()} 派生的客户端, 共享连接池、Dispatcher 与 Dns,
+ * 但去掉了所有应用层和网络层拦截器 (不会经过 Token、重试熔断、优先级调度、日志以及全局错误处理), 也不会触发 Token 刷新
+ * 2. 请求带有 {@link ConnectionWarmer} 标记, {@link com.example.core.net.metrics.NetworkMetrics} 不把它计入接口统计
+ * 3. 预解析的其他域名使用 https 默认端口, 不沿用服务器地址的协议和端口
+ * 4. 服务器支持 HTTP/2 时 OkHttp 会把同一域名的并发请求合并到一个连接上,
+ * 此时 {@link com.example.core.di.module.GlobalConfigModule.Builder#warmUpConnections(int)} 大于 1 也只会建立一个连接,
+ * 只有 HTTP/1.1 的服务器才会真正建立多个连接
+ * ================================================
+ */
+@Singleton
+public class ConnectionWarmer {
+    private static final String TAG = "ConnectionWarmer";
+
+    @Inject
+    Lazy<OkHttpClient> mClient;
+    @Inject
+    HttpUrl mBaseUrl;
+    @Inject
+    @Named("PrefetchHosts")
+    List<String> mHosts;
+    @Inject
+    @Named("WarmUpConnections")
+    int mConnections;
+    @Inject
+    ExecutorService mExecutorService;
+
+    private OkHttpClient mWarmUpClient;
+
+    @Inject
+    public ConnectionWarmer() {
+    }
+
+    /**
+     * 在后台线程预热连接, {@link OkHttpClient} 也会在后台线程完成创建
+     */
+    public void warmUp() {
+        if (mConnections <= 0) {
+            return;
+        }
+        for (HttpUrl url : warmUpUrls()) {
+            for (int i = 0; i < mConnections; i++) {
+                mExecutorService.execute(() -> warmUp(url));
+            }
+        }
+    }
+
+    private List<HttpUrl> warmUpUrls() {
+        List<HttpUrl> urls = new ArrayList<>();
+        urls.add(mBaseUrl.newBuilder().encodedPath("/").query(null).build());
+        for (String host : mHosts) {
+            if (!host.equals(mBaseUrl.host())) {
+                urls.add(new HttpUrl.Builder().scheme("https").host(host).build());
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 与应用共享连接池的客户端, 去掉了所有拦截器, 在后台线程中创建
+     */
+    private synchronized OkHttpClient warmUpClient() {
+        if (mWarmUpClient == null) {
+            OkHttpClient.Builder builder = mClient.get().newBuilder()
+                    .authenticator(Authenticator.NONE);
+            builder.interceptors().clear();
+            builder.networkInterceptors().clear();
+            mWarmUpClient = builder.build();
+        }
+        return mWarmUpClient;
+    }
+
+    private void warmUp(HttpUrl url) {
+        Request request = new Request.Builder()
+                .url(url)
+                .head()
+                .tag(ConnectionWarmer.class, this)
+                .build();
+        long start = System.nanoTime();
+        try (Response response = warmUpClient().newCall(request).execute()) {
+            LogUtils.debugInfo(TAG, "warm up " + url.host() + " in "
+                    + (System.nanoTime() - start) / 1000000 + "ms, code " + response.code());
+        } catch (IOException e) {
+            LogUtils.warnInfo(TAG, "warm up " + url.host() + " failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.core.net;
+
+import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * 处理带有 {@link com.example.core.net.converter.UnwrapResult} 注解的接口返回的结果
+ * code 非 0 时已经由 {@link ApiException} 走到 onError, 这里只需要处理数据本身
+ */
+public abstract class DataObserver<T> implements Observer<T> {
+    @Override
+    public void onSubscribe(@NonNull Disposable d) {
+        onStart(d);
+    }
+
+    @Override
+    public void onNext(@NonNull T data) {
+        onSuccess(data);
+    }
+
+    @Override
+    public void onError(@NonNull Throwable e) {
+        onError(BaseObserver.errorMessage(e));
+    }
+
+    @Override
+    public void onComplete() {
+        onNormalEnd();
+    }
+
+    public abstract void onStart(Disposable d);
+    public abstract void onSuccess(T response);
+    public abstract void onError(String message);
+    public abstract void onNormalEnd();
+}
@@ -0,0 +1,147 @@
+package com.example.core.net;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.ObservableOperator;
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+
+/**
+ * ================================================
+ * 把上游在同一帧内发射的数据按 {@link CoalescingStrategy} 合并, 在下一帧 ({@link Choreographer} 回调) 时
+ * 一次性交给主线程, 每帧最多向主线程发送一个消息, 结束事件在最后一次数据之后发送
+ * ================================================
+ */
+final class FrameCoalescingOperator<T, R> implements ObservableOperator<R, T> {
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    /**
+     * 主线程的 {@link Choreographer}, postFrameCallback 可以在任意线程调用, 但只能在主线程获取
+     */
+    private static volatile Choreographer sChoreographer;
+
+    private final CoalescingStrategy<T, R> mStrategy;
+
+    FrameCoalescingOperator(CoalescingStrategy<T, R> strategy) {
+        this.mStrategy = strategy;
+    }
+
+    @Override
+    public @NonNull Observer<? super T> apply(@NonNull Observer<? super R> observer) {
+        return new CoalescingObserver<>(observer, mStrategy);
+    }
+
+    static void postFrameCallback(Choreographer.FrameCallback callback) {
+        Choreographer choreographer = sChoreographer;
+        if (choreographer != null) {
+            choreographer.postFrameCallback(callback);
+        } else if (Looper.myLooper() == Looper.getMainLooper()) {
+            sChoreographer = choreographer = Choreographer.getInstance();
+            choreographer.postFrameCallback(callback);
+        } else {
+            MAIN_HANDLER.post(() -> postFrameCallback(callback));
+        }
+    }
+
+    static final class CoalescingObserver<T, R> implements Observer<T>, Disposable, Choreographer.FrameCallback {
+        private final Observer<? super R> mDownstream;
+        private final CoalescingStrategy<T, R> mStrategy;
+        private Disposable mUpstream;
+        private R mPending;
+        private boolean mDone;
+        private Throwable mError;
+        private boolean mScheduled;
+        private volatile boolean mDisposed;
+
+        CoalescingObserver(Observer<? super R> downstream, CoalescingStrategy<T, R> strategy) {
+            this.mDownstream = downstream;
+            this.mStrategy = strategy;
+        }
+
+        @Override
+        public void onSubscribe(@NonNull Disposable d) {
+            mUpstream = d;
+            mDownstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(@NonNull T t) {
+            boolean schedule;
+            synchronized (this) {
+                mPending = mStrategy.coalesce(mPending, t);
+                schedule = !mScheduled;
+                mScheduled = true;
+            }
+            if (schedule) {
+                postFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void onError(@NonNull Throwable e) {
+            terminate(e);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+        }
+
+        private void terminate(Throwable error) {
+            boolean schedule;
+            synchronized (this) {
+                mDone = true;
+                mError = error;
+                schedule = !mScheduled;
+                mScheduled = true;
+            }
+            if (schedule) {
+                postFrameCallback(this);
+            }
+        }
+
+        /**
+         * 主线程, 每帧调用一次: 先发送这一帧合并的数据, 再发送结束事件
+         */
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            R pending;
+            boolean done;
+            Throwable error;
+            synchronized (this) {
+                pending = mPending;
+                done = mDone;
+                error = mError;
+                mPending = null;
+                mScheduled = false;
+            }
+            if (mDisposed) {
+                return;
+            }
+            if (pending != null) {
+                mDownstream.onNext(pending);
+            }
+            if (done && !mDisposed) {
+                mDisposed = true;
+                if (error != null) {
+                    mDownstream.onError(error);
+                } else {
+                    mDownstream.onComplete();
+                }
+            }
+        }
+
+        @Override
+        public void dispose() {
+            mDisposed = true;
+            mUpstream.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return mDisposed;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.core.net;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ================================================
+ * 对 Retrofit 接口方法开启对冲请求 (仅对 GET 请求生效), 由 {@link RetrofitServiceProxyHandler} 读取
+ * <p>
+ * 第一次请求在该接口耗时的 {@link #percentile()} 分位数内没有返回结果时, 再发送一个相同的请求,
+ * 使用先返回的结果并取消另一个请求, 用于降低偶尔遇到慢服务器实例时的长尾耗时
+ *
+ * @see RequestHedger
+ * ================================================
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Hedge {
+    /**
+     * 对冲的时机, 默认为该接口历史耗时的 p95
+     */
+    double percentile() default 0.95;
+
+    /**
+     * 历史耗时样本不足这么多时不对冲
+     */
+    int minSamples() default 20;
+
+    /**
+     * 对冲的最短等待时间 (单位毫秒), 避免接口很快时也频繁对冲
+     */
+    long minDelayMs() default 50;
+}
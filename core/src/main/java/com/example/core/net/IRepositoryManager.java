@@ -4,6 +4,11 @@ import android.content.Context;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.example.core.base.mvp.BaseModel;
+
+import java.lang.reflect.Type;
+
+import io.reactivex.rxjava3.core.Observable;
+import okhttp3.RequestBody;
 import retrofit2.Retrofit;
 
 /**
@@ -41,6 +46,47 @@ public interface IRepositoryManager {
      */
     void clearAllCache();
 
+    /**
+     * 按 {@link CachePolicy} 组合缓存与网络请求, 网络结果异步写入缓存, 参考 {@link RepositoryCache}
+     *
+     * @param key     缓存的 key, 需要包含请求参数
+     * @param type    数据类型, 用于从文件中读取缓存
+     * @param policy  {@link CachePolicy}
+     * @param network 网络请求
+     * @param <T>     数据类型
+     * @return 按 policy 发射缓存以及网络结果的 {@link Observable}
+     */
+    @NonNull
+    <T> Observable<T> fetch(@NonNull String key, @NonNull Type type, @NonNull CachePolicy policy,
+                            @NonNull Observable<T> network);
+
+    /**
+     * 创建发送时才流式序列化的 JSON 请求体, 代替 {@code RequestBody.create(gson.toJson(value), ...)}
+     *
+     * @param value 要序列化的对象, 按运行时类型序列化
+     * @return {@link RequestBody}
+     */
+    @NonNull
+    RequestBody createJsonBody(@Nullable Object value);
+
+    /**
+     * 返回属于 owner 的 {@link IRepositoryManager}, 通过它获取的 Retrofit service 发出的请求
+     * 都可以在 owner 销毁时通过 {@link #cancelCalls(Object)} 取消
+     *
+     * @param owner 请求的所属对象, 一般为 {@link BaseModel}
+     * @return {@link IRepositoryManager}
+     */
+    @NonNull
+    IRepositoryManager withOwner(@NonNull Object owner);
+
+    /**
+     * 取消 owner 所有还在排队或者进行中的请求
+     *
+     * @param owner 请求的所属对象
+     * @return 取消的请求数
+     */
+    int cancelCalls(@NonNull Object owner);
+
     /**
      * 获取 {@link Context}
      * @return {@link Context}
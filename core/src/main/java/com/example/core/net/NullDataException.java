@@ -0,0 +1,14 @@
+package com.example.core.net;
+
+import androidx.annotation.Nullable;
+
+/**
+ * 服务器返回成功但 data 为 null 或者缺少 data 时抛出的异常, 用于 {@link com.example.core.net.converter.UnwrapResult},
+ * 因为 RxJava 不允许发射 null
+ */
+public class NullDataException extends ApiException {
+
+    public NullDataException(long code, @Nullable String message) {
+        super(code, message);
+    }
+}
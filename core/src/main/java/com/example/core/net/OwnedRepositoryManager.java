@@ -0,0 +1,94 @@
+package com.example.core.net;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.reactivex.rxjava3.core.Observable;
+import okhttp3.RequestBody;
+
+/**
+ * ================================================
+ * 属于某个对象的 {@link IRepositoryManager}, 由 {@link IRepositoryManager#withOwner(Object)} 创建
+ * 通过它获取的 Retrofit service 发出的请求都属于 owner, 可以通过 {@link #cancelCalls(Object)} 一起取消
+ * ================================================
+ */
+final class OwnedRepositoryManager implements IRepositoryManager {
+    private final IRepositoryManager mDelegate;
+    private final CallCanceller mCanceller;
+    private final Object mOwner;
+    private final Map<Class<?>, Object> mServices = new HashMap<>();
+
+    OwnedRepositoryManager(IRepositoryManager delegate, CallCanceller canceller, Object owner) {
+        this.mDelegate = delegate;
+        this.mCanceller = canceller;
+        this.mOwner = owner;
+    }
+
+    @SuppressWarnings("unchecked")
+    @NonNull
+    @Override
+    public synchronized <T> T obtainRetrofitService(@NonNull Class<T> service) {
+        T owned = (T) mServices.get(service);
+        if (owned == null) {
+            T shared = mDelegate.obtainRetrofitService(service);
+            owned = (T) Proxy.newProxyInstance(service.getClassLoader(), new Class[]{service}, (proxy, method, args) -> {
+                try {
+                    return mCanceller.bind(method.invoke(shared, args), mOwner);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+            mServices.put(service, owned);
+        }
+        return owned;
+    }
+
+    @NonNull
+    @Override
+    public <T> T obtainCacheService(@NonNull Class<T> cache) {
+        return mDelegate.obtainCacheService(cache);
+    }
+
+    @Override
+    public void clearAllCache() {
+        mDelegate.clearAllCache();
+    }
+
+    @NonNull
+    @Override
+    public <T> Observable<T> fetch(@NonNull String key, @NonNull Type type, @NonNull CachePolicy policy,
+                                   @NonNull Observable<T> network) {
+        return mDelegate.fetch(key, type, policy, network);
+    }
+
+    @NonNull
+    @Override
+    public RequestBody createJsonBody(@Nullable Object value) {
+        return mDelegate.createJsonBody(value);
+    }
+
+    @NonNull
+    @Override
+    public IRepositoryManager withOwner(@NonNull Object owner) {
+        return mDelegate.withOwner(owner);
+    }
+
+    @Override
+    public int cancelCalls(@NonNull Object owner) {
+        return mDelegate.cancelCalls(owner);
+    }
+
+    @NonNull
+    @Override
+    public Context getContext() {
+        return mDelegate.getContext();
+    }
+}
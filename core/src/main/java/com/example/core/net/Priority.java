@@ -0,0 +1,21 @@
+package com.example.core.net;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ================================================
+ * 指定 Retrofit 接口方法的请求优先级, 由 {@link com.example.core.net.interceptor.PriorityDispatcher} 读取
+ *
+ * @see RequestPriority
+ * ================================================
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Priority {
+    RequestPriority value();
+}
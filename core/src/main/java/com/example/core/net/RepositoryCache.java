@@ -0,0 +1,251 @@
+package com.example.core.net;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.cache.Cache;
+import com.example.core.cache.CacheType;
+import com.example.core.util.DataHelper;
+import com.example.core.util.LogUtils;
+import com.example.core.util.Preconditions;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.Lazy;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * ================================================
+ * 按 {@link CachePolicy} 组合缓存与网络请求, 由 {@link IRepositoryManager#fetch} 使用
+ * <p>
+ * 缓存分两级: 内存 ({@link CacheType#REPOSITORY_CACHE}, 可通过 {@link Cache.Factory} 自定义) 和
+ * 缓存目录下的 JSON 文件; 网络结果立即写入内存, 在 IO 线程中异步写入文件,
+ * 同一个 key 连续写入时只写最后一次的结果, 同一个 key 的文件同一时间只有一个线程在写
+ * ================================================
+ */
+@Singleton
+public class RepositoryCache {
+    private static final String TAG = "RepositoryCache";
+    private static final String DIR_NAME = "RepositoryCache";
+    private static final int FILE_LOCK_STRIPES = 16;
+
+    private final Cache<String, Object> mMemory;
+    private final File mDir;
+    private final Lazy<Gson> mGson;
+    /**
+     * 等待写入文件的数据, 同一个 key 只保留最新的
+     */
+    private final Map<String, Object> mPendingWrites = new ConcurrentHashMap<>();
+    /**
+     * 按 key 的 hash 分段的文件锁, 同一个 key 的写入与删除串行执行
+     */
+    private final Object[] mFileLocks = new Object[FILE_LOCK_STRIPES];
+
+    @SuppressWarnings("unchecked")
+    @Inject
+    public RepositoryCache(Cache.Factory cacheFactory, File cacheDir, Lazy<Gson> gson) {
+        this.mMemory = cacheFactory.build(CacheType.REPOSITORY_CACHE);
+        Preconditions.checkNotNull(mMemory, "Cannot return null from a Cache.Factory#build(int) method");
+        this.mDir = new File(cacheDir, DIR_NAME);
+        this.mGson = gson;
+        for (int i = 0; i < mFileLocks.length; i++) {
+            mFileLocks[i] = new Object();
+        }
+    }
+
+    /**
+     * 缓存文件所在的目录
+     */
+    @NonNull
+    public File getDirectory() {
+        return mDir;
+    }
+
+    /**
+     * 按 policy 组合缓存与网络请求, 网络结果会写入缓存
+     *
+     * @param key     缓存的 key, 需要包含请求参数, 如 "user:" + id
+     * @param type    数据类型, 用于从文件中读取缓存
+     * @param policy  {@link CachePolicy}
+     * @param network 网络请求
+     * @param <T>     数据类型
+     * @return 按 policy 发射缓存以及网络结果的 {@link Observable}
+     */
+    @NonNull
+    public <T> Observable<T> fetch(@NonNull String key, @NonNull Type type, @NonNull CachePolicy policy,
+                                   @NonNull Observable<T> network) {
+        Preconditions.checkNotNull(key, "key == null");
+        Preconditions.checkNotNull(type, "type == null");
+        Preconditions.checkNotNull(policy, "policy == null");
+        Preconditions.checkNotNull(network, "network == null");
+        Maybe<T> cache = read(key, type);
+        Observable<T> fresh = network.doOnNext(value -> write(key, value));
+        switch (policy) {
+            case CACHE_ONLY:
+                return cache.toObservable();
+            case NETWORK_ONLY:
+                return fresh;
+            case CACHE_THEN_NETWORK:
+                //网络结果先到时不再发射缓存, 避免旧数据覆盖新数据; 网络出错时先发射缓存再发射错误
+                return fresh.publish(shared -> Observable.mergeDelayError(shared,
+                        cache.toObservable().takeUntil(firstValueOf(shared))));
+            case NETWORK_ELSE_CACHE:
+                return fresh.onErrorResumeNext(error -> cache.toObservable()
+                        .switchIfEmpty(Observable.error(error)));
+            default:
+                throw new IllegalArgumentException("unknown policy: " + policy);
+        }
+    }
+
+    /**
+     * 读取缓存, 内存命中时同步发射, 否则在 IO 线程读取文件
+     */
+    @SuppressWarnings("unchecked")
+    @NonNull
+    public <T> Maybe<T> read(@NonNull String key, @NonNull Type type) {
+        return Maybe.defer(() -> {
+            Object value = mMemory.get(key);
+            if (value == null) {
+                value = mPendingWrites.get(key);
+            }
+            if (value != null && (!(type instanceof Class) || ((Class<?>) type).isInstance(value))) {
+                return Maybe.just((T) value);
+            }
+            return Maybe.<T>fromCallable(() -> readFile(key, type))
+                    .doOnSuccess(disk -> mMemory.put(key, disk))
+                    .subscribeOn(Schedulers.io());
+        });
+    }
+
+    /**
+     * 写入缓存, 内存立即生效, 文件在 IO 线程中异步写入
+     */
+    public void write(@NonNull String key, @NonNull Object value) {
+        mMemory.put(key, value);
+        if (mPendingWrites.put(key, value) != null) {
+            //已经有等待中的写入, 它会写入最新的数据
+            return;
+        }
+        Completable.fromAction(() -> {
+            //在锁内取出最新的数据, 前一次写入还没完成时等它结束, 后写入的一定是更新的数据
+            synchronized (lockOf(key)) {
+                Object latest = mPendingWrites.remove(key);
+                if (latest != null) {
+                    writeFile(key, latest);
+                }
+            }
+        })
+                .subscribeOn(Schedulers.io())
+                .subscribe(() -> {
+                }, error -> LogUtils.warnInfo(TAG, "failed to write " + key + ": " + error));
+    }
+
+    /**
+     * 删除某个 key 的缓存
+     */
+    public void remove(@NonNull String key) {
+        mMemory.remove(key);
+        mPendingWrites.remove(key);
+        File file = fileOf(key);
+        synchronized (lockOf(key)) {
+            if (file.exists() && !file.delete()) {
+                LogUtils.warnInfo(TAG, "failed to delete " + file);
+            }
+        }
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public void clear() {
+        mMemory.clear();
+        mPendingWrites.clear();
+        DataHelper.deleteDir(mDir);
+    }
+
+    @Nullable
+    private <T> T readFile(String key, Type type) throws IOException {
+        File file = fileOf(key);
+        if (!file.exists()) {
+            return null;
+        }
+        try (BufferedSource source = Okio.buffer(Okio.source(file));
+             Reader reader = new InputStreamReader(source.inputStream(), StandardCharsets.UTF_8)) {
+            return mGson.get().fromJson(reader, type);
+        } catch (RuntimeException e) {
+            //数据结构变化等原因导致无法解析, 当作没有缓存
+            LogUtils.warnInfo(TAG, "discard unreadable cache " + key + ": " + e);
+            remove(key);
+            return null;
+        }
+    }
+
+    private void writeFile(String key, Object value) throws IOException {
+        File dir = DataHelper.makeDirs(mDir);
+        File file = fileOf(key);
+        //先写入临时文件再重命名, 写入过程中进程被杀死也不会留下不完整的缓存
+        File temp = File.createTempFile(file.getName() + ".", ".tmp", dir);
+        try (BufferedSink sink = Okio.buffer(Okio.sink(temp));
+             Writer writer = new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8)) {
+            mGson.get().toJson(value, writer);
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("failed to rename " + temp + " to " + file);
+        }
+    }
+
+    private Object lockOf(String key) {
+        return mFileLocks[(key.hashCode() & Integer.MAX_VALUE) % mFileLocks.length];
+    }
+
+    /**
+     * 在 source 发射第一个数据时发射, source 结束或者出错时不结束, 用于 takeUntil 只在网络结果到达时截断缓存
+     */
+    private static <T> Observable<T> firstValueOf(Observable<T> source) {
+        return source.take(1)
+                .onErrorResumeNext(error -> Observable.never())
+                .concatWith(Observable.never());
+    }
+
+    private File fileOf(String key) {
+        return new File(mDir, sha1(key));
+    }
+
+    private static String sha1(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
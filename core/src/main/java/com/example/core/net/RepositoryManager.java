@@ -7,14 +7,19 @@ import androidx.annotation.Nullable;
 import com.example.core.base.mvp.BaseModel;
 import com.example.core.cache.Cache;
 import com.example.core.cache.CacheType;
+import com.example.core.net.converter.JsonRequestBody;
 import com.example.core.util.Preconditions;
+import com.google.gson.Gson;
 import dagger.Lazy;
+import io.reactivex.rxjava3.core.Observable;
 import io.rx_cache2.internal.RxCache;
+import okhttp3.RequestBody;
 import retrofit2.Retrofit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
 
 /**
  * ================================================
@@ -37,6 +42,14 @@ public class RepositoryManager implements IRepositoryManager {
     @Inject
     @Nullable
     ObtainServiceDelegate mObtainServiceDelegate;
+    @Inject
+    RequestHedger mRequestHedger;
+    @Inject
+    Lazy<Gson> mGson;
+    @Inject
+    CallCanceller mCallCanceller;
+    @Inject
+    RepositoryCache mRepositoryCache;
     private Cache<String, Object> mRetrofitServiceCache;
     private Cache<String, Object> mCacheServiceCache;
 
@@ -69,7 +82,7 @@ public class RepositoryManager implements IRepositoryManager {
                 retrofitService = (T) Proxy.newProxyInstance(
                         serviceClass.getClassLoader(),
                         new Class[]{serviceClass},
-                        new RetrofitServiceProxyHandler(mRetrofit.get(), serviceClass));
+                        new RetrofitServiceProxyHandler(mRetrofit.get(), serviceClass, mRequestHedger));
             }
             mRetrofitServiceCache.put(serviceClass.getCanonicalName(), retrofitService);
         }
@@ -106,6 +119,33 @@ public class RepositoryManager implements IRepositoryManager {
     @Override
     public void clearAllCache() {
         mRxCache.get().evictAll().subscribe();
+        mRepositoryCache.clear();
+    }
+
+    @NonNull
+    @Override
+    public <T> Observable<T> fetch(@NonNull String key, @NonNull Type type, @NonNull CachePolicy policy,
+                                   @NonNull Observable<T> network) {
+        return mRepositoryCache.fetch(key, type, policy, network);
+    }
+
+    @NonNull
+    @Override
+    public RequestBody createJsonBody(@Nullable Object value) {
+        return JsonRequestBody.create(mGson.get(), value);
+    }
+
+    @NonNull
+    @Override
+    public IRepositoryManager withOwner(@NonNull Object owner) {
+        Preconditions.checkNotNull(owner, "owner == null");
+        return new OwnedRepositoryManager(this, mCallCanceller, owner);
+    }
+
+    @Override
+    public int cancelCalls(@NonNull Object owner) {
+        Preconditions.checkNotNull(owner, "owner == null");
+        return mCallCanceller.cancel(owner);
     }
 
     @NonNull
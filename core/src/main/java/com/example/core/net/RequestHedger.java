@@ -0,0 +1,141 @@
+package com.example.core.net;
+
+import androidx.annotation.NonNull;
+
+import com.example.core.net.metrics.EndpointMetrics;
+import com.example.core.net.metrics.NetworkMetrics;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * ================================================
+ * 对冲请求的实现, 参考 {@link Hedge}
+ * <p>
+ * 对冲受预算限制: 每次请求存入 {@link #DEFAULT_BUDGET_RATIO} 个令牌, 每次对冲消耗一个令牌,
+ * 因此对冲最多只会让总请求量增加这个比例
+ * <p>
+ * 对冲的两个请求通过 amb 竞争, 先返回的一方胜出, 另一方被 dispose, Retrofit 随之取消对应的 OkHttp 请求
+ * <p>
+ * Retrofit 使用同步的 CallAdapter, 请求在订阅线程上阻塞执行, 所以对冲请求的计时器运行在 {@link Schedulers#io()} 上,
+ * 不能使用默认的 computation 线程
+ * ================================================
+ */
+@Singleton
+public class RequestHedger {
+    /**
+     * 对冲预算: 对冲请求数不超过总请求数的 5%
+     */
+    public static final double DEFAULT_BUDGET_RATIO = 0.05;
+    private static final long TOKEN_SCALE = 1000;
+    private static final long MAX_TOKENS = 10 * TOKEN_SCALE;
+
+    private final NetworkMetrics mMetrics;
+    private final AtomicLong mTokens = new AtomicLong();
+    private final AtomicLong mHedges = new AtomicLong();
+
+    @Inject
+    public RequestHedger(NetworkMetrics metrics) {
+        this.mMetrics = metrics;
+    }
+
+    /**
+     * 对 {@link Observable} 进行对冲
+     *
+     * @param endpoint 接口, 参考 {@link NetworkMetrics#endpointOf(java.lang.reflect.Method)}
+     * @param hedge    {@link Hedge}
+     * @param source   每次调用都发起一次新的请求
+     */
+    @NonNull
+    public <T> Observable<T> hedgeObservable(@NonNull String endpoint, @NonNull Hedge hedge, @NonNull Callable<Observable<T>> source) {
+        return Observable.defer(() -> {
+            deposit();
+            Observable<T> primary = Observable.defer(source::call);
+            long delay = delayMs(endpoint, hedge);
+            if (delay < 0) {
+                return primary;
+            }
+            Observable<T> backup = Observable.timer(delay, TimeUnit.MILLISECONDS, Schedulers.io())
+                    .flatMap(ignored -> withdraw() ? Observable.defer(source::call) : Observable.<T>never());
+            return Observable.ambArray(primary, backup);
+        });
+    }
+
+    /**
+     * 对 {@link Single} 进行对冲
+     *
+     * @param endpoint 接口, 参考 {@link NetworkMetrics#endpointOf(java.lang.reflect.Method)}
+     * @param hedge    {@link Hedge}
+     * @param source   每次调用都发起一次新的请求
+     */
+    @NonNull
+    public <T> Single<T> hedgeSingle(@NonNull String endpoint, @NonNull Hedge hedge, @NonNull Callable<Single<T>> source) {
+        return Single.defer(() -> {
+            deposit();
+            Single<T> primary = Single.defer(source::call);
+            long delay = delayMs(endpoint, hedge);
+            if (delay < 0) {
+                return primary;
+            }
+            Single<T> backup = Single.timer(delay, TimeUnit.MILLISECONDS, Schedulers.io())
+                    .flatMap(ignored -> withdraw() ? Single.defer(source::call) : Single.<T>never());
+            return Single.ambArray(primary, backup);
+        });
+    }
+
+    /**
+     * 已发送的对冲请求数
+     */
+    public long getHedgeCount() {
+        return mHedges.get();
+    }
+
+    /**
+     * 对冲的等待时间, 样本不足时返回 -1 表示不对冲
+     */
+    private long delayMs(String endpoint, Hedge hedge) {
+        EndpointMetrics metrics = mMetrics.getEndpoint(endpoint);
+        if (metrics == null) {
+            return -1;
+        }
+        //以收到响应头的耗时估算, 即除读取响应体外的全部耗时
+        long count = metrics.histogram(EndpointMetrics.Phase.TOTAL).getCount();
+        if (count < hedge.minSamples()) {
+            return -1;
+        }
+        long micros = metrics.histogram(EndpointMetrics.Phase.TOTAL).percentileMicros(hedge.percentile())
+                - metrics.histogram(EndpointMetrics.Phase.BODY_READ).getMeanMicros();
+        return Math.max(hedge.minDelayMs(), TimeUnit.MICROSECONDS.toMillis(micros));
+    }
+
+    private void deposit() {
+        long deposit = (long) (DEFAULT_BUDGET_RATIO * TOKEN_SCALE);
+        long current;
+        do {
+            current = mTokens.get();
+            if (current >= MAX_TOKENS) {
+                return;
+            }
+        } while (!mTokens.compareAndSet(current, Math.min(MAX_TOKENS, current + deposit)));
+    }
+
+    private boolean withdraw() {
+        long current;
+        do {
+            current = mTokens.get();
+            if (current < TOKEN_SCALE) {
+                return false;
+            }
+        } while (!mTokens.compareAndSet(current, current - TOKEN_SCALE));
+        mHedges.incrementAndGet();
+        return true;
+    }
+}
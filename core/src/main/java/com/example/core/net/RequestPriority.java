@@ -0,0 +1,25 @@
+package com.example.core.net;
+
+/**
+ * ================================================
+ * 请求的优先级, 开启 {@link com.example.core.net.interceptor.PriorityDispatcher} 后,
+ * 并发数达到上限时优先级高的请求先发送
+ * <p>
+ * 在 Retrofit 接口方法上使用 {@link Priority} 注解指定,
+ * 或者通过 {@code Request.Builder#tag(RequestPriority.class, priority)} 指定
+ * ================================================
+ */
+public enum RequestPriority {
+    /**
+     * 用户正在等待结果, 如点击按钮后的请求
+     */
+    USER_BLOCKING,
+    /**
+     * 页面上可见内容的请求, 默认优先级
+     */
+    VISIBLE,
+    /**
+     * 预加载等用户暂时看不到结果的请求
+     */
+    PREFETCH
+}
@@ -1,6 +1,9 @@
 package com.example.core.net;
 
 import androidx.annotation.Nullable;
+
+import com.example.core.net.metrics.NetworkMetrics;
+
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Single;
 import retrofit2.Retrofit;
@@ -16,10 +19,17 @@ public class RetrofitServiceProxyHandler implements InvocationHandler {
     private Retrofit mRetrofit;
     private Class<?> mServiceClass;
     private Object mRetrofitService;
+    @Nullable
+    private RequestHedger mHedger;
 
     public RetrofitServiceProxyHandler(Retrofit retrofit, Class<?> serviceClass) {
+        this(retrofit, serviceClass, null);
+    }
+
+    public RetrofitServiceProxyHandler(Retrofit retrofit, Class<?> serviceClass, @Nullable RequestHedger hedger) {
         mRetrofit = retrofit;
         mServiceClass = serviceClass;
+        mHedger = hedger;
     }
 
     @Override
@@ -27,6 +37,17 @@ public class RetrofitServiceProxyHandler implements InvocationHandler {
 
         // 根据 https://zhuanlan.zhihu.com/p/40097338 对 Retrofit 进行的优化
 
+        // 带有 @Hedge 注解的 GET 请求, 超过该接口的历史耗时分位数仍未返回时发送对冲请求
+        Hedge hedge = mHedger == null ? null : method.getAnnotation(Hedge.class);
+        String endpoint = hedge == null ? null : NetworkMetrics.endpointOf(method);
+        if (endpoint != null && endpoint.startsWith("GET ")) {
+            if (method.getReturnType() == Observable.class) {
+                return mHedger.hedgeObservable(endpoint, hedge, () -> (Observable) method.invoke(getRetrofitService(), args));
+            } else if (method.getReturnType() == Single.class) {
+                return mHedger.hedgeSingle(endpoint, hedge, () -> (Single) method.invoke(getRetrofitService(), args));
+            }
+        }
+
         if (method.getReturnType() == Observable.class) {
             // 如果方法返回值是 Observable 的话，则包一层再返回，
             // 只包一层 defer 由外部去控制耗时方法以及网络请求所处线程，
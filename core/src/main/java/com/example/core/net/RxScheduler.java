@@ -2,6 +2,8 @@ package com.example.core.net;
 
 import org.reactivestreams.Publisher;
 
+import java.util.List;
+
 import io.reactivex.rxjava3.android.schedulers.AndroidSchedulers;
 import io.reactivex.rxjava3.annotations.NonNull;
 import io.reactivex.rxjava3.core.Flowable;
@@ -85,4 +87,43 @@ public class RxScheduler {
         };
     }
 
+    /**
+     * 主线程按帧接收数据: 同一帧内发射的数据按 strategy 合并后, 在下一帧一次性交给主线程
+     * 适用于进度、分页、搜索结果等发射频繁的数据, 避免每个数据都向主线程发送一个消息
+     *
+     * @param strategy 合并方式, 如 {@link CoalescingStrategy#latest()}、{@link CoalescingStrategy#batch()}
+     * @param <T>      上游数据类型
+     * @param <R>      合并后的数据类型
+     * @return ObservableTransformer
+     */
+    public static <T, R> ObservableTransformer<T, R> Obs_io_main_coalesced(@NonNull CoalescingStrategy<T, R> strategy) {
+        return new ObservableTransformer<T, R>() {
+            @Override
+            public @NonNull ObservableSource<R> apply(@NonNull Observable<T> upstream) {
+                return upstream.subscribeOn(Schedulers.io())
+                        .lift(new FrameCoalescingOperator<>(strategy));
+            }
+        };
+    }
+
+    /**
+     * 主线程每帧只接收最新的数据, 参考 {@link #Obs_io_main_coalesced(CoalescingStrategy)}
+     *
+     * @param <T> 指定的泛型类型
+     * @return ObservableTransformer
+     */
+    public static <T> ObservableTransformer<T, T> Obs_io_main_latest() {
+        return Obs_io_main_coalesced(CoalescingStrategy.latest());
+    }
+
+    /**
+     * 主线程每帧接收这一帧内的所有数据, 参考 {@link #Obs_io_main_coalesced(CoalescingStrategy)}
+     *
+     * @param <T> 指定的泛型类型
+     * @return ObservableTransformer
+     */
+    public static <T> ObservableTransformer<T, List<T>> Obs_io_main_batched() {
+        return Obs_io_main_coalesced(CoalescingStrategy.batch());
+    }
+
 }
@@ -0,0 +1,210 @@
+package com.example.core.net;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.util.LogUtils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Authenticator;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * ================================================
+ * 框架内置的 token 处理类, 使用 {@link com.example.core.di.module.GlobalConfigModule.Builder#globalHttpHandler(GlobalHttpHandler)} 配置
+ * <p>
+ * 请求前统一添加 token, 收到 401 时由 OkHttp 的 {@link Authenticator} 机制刷新 token 并重新发送请求:
+ * 多个请求同时收到 401 时只有第一个请求真正去刷新, 其余请求等待同一次刷新的结果 (等待时间有上限) 后使用新 token 重试;
+ * 每次成功刷新或调用 {@link #setToken(String)} 都会使代数加一, 刷新开始后 token 又被更新过时, 这次刷新的结果会被丢弃
+ * <p>
+ * 子类实现 {@link #refreshToken(String)}, 注意刷新 token 的请求不要使用框架的 {@link okhttp3.OkHttpClient}, 避免再次进入这里
+ * ================================================
+ */
+public abstract class TokenRefreshHandler implements GlobalHttpHandler, Authenticator {
+    private static final String TAG = "TokenRefreshHandler";
+    /**
+     * 同一个请求最多因 401 重试的次数
+     */
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final Object mLock = new Object();
+    private final long mMaxWaitMs;
+    private String mToken;
+    private long mGeneration;
+    private boolean mRefreshing;
+    /**
+     * 最近一次刷新失败时的代数, 与当前代数相同时等待中的请求直接失败, 而不是依次再去刷新;
+     * 没有 token (如未登录) 时同样生效
+     */
+    private long mFailedGeneration = -1;
+
+    public TokenRefreshHandler() {
+        this(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * @param maxWaitMs 等待刷新 token 的最长时间 (单位毫秒)
+     */
+    public TokenRefreshHandler(long maxWaitMs) {
+        this.mMaxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * 同步刷新 token, 在 OkHttp 的线程中调用
+     *
+     * @param expiredToken 过期的 token
+     * @return 新的 token, 刷新失败时返回 {@code null}
+     * @throws IOException 刷新失败
+     */
+    @Nullable
+    protected abstract String refreshToken(@Nullable String expiredToken) throws IOException;
+
+    /**
+     * token 放在哪个请求头中
+     */
+    @NonNull
+    protected String headerName() {
+        return "Authorization";
+    }
+
+    /**
+     * 请求头中 token 的格式, 如需要加上 "Bearer " 前缀可重写此方法
+     */
+    @NonNull
+    protected String formatToken(@NonNull String token) {
+        return token;
+    }
+
+    /**
+     * 登录、退出登录时设置 token, 正在进行的刷新结果会被丢弃
+     *
+     * @param token 新的 token, 为 {@code null} 时请求不再添加 token
+     */
+    public void setToken(@Nullable String token) {
+        synchronized (mLock) {
+            mToken = token;
+            mGeneration++;
+            mLock.notifyAll();
+        }
+    }
+
+    @Nullable
+    public String getToken() {
+        synchronized (mLock) {
+            return mToken;
+        }
+    }
+
+    @NonNull
+    @Override
+    public Request onHttpRequestBefore(@NonNull Interceptor.Chain chain, @NonNull Request request) {
+        String token = getToken();
+        if (token == null || request.header(headerName()) != null) {
+            return request;
+        }
+        return request.newBuilder()
+                .header(headerName(), formatToken(token))
+                .build();
+    }
+
+    @NonNull
+    @Override
+    public Response onHttpResultResponse(@Nullable String httpResult, @NonNull Interceptor.Chain chain, @NonNull Response response) {
+        return response;
+    }
+
+    @Nullable
+    @Override
+    public Request authenticate(@Nullable Route route, @NonNull Response response) throws IOException {
+        if (response.code() != 401 || attempts(response) > MAX_ATTEMPTS) {
+            return null;
+        }
+        String usedHeader = response.request().header(headerName());
+        String token = awaitFreshToken(usedHeader);
+        if (token == null) {
+            return null;
+        }
+        return response.request().newBuilder()
+                .header(headerName(), formatToken(token))
+                .build();
+    }
+
+    /**
+     * 获取比 {@code usedHeader} 更新的 token, 必要时刷新
+     *
+     * @param usedHeader 收到 401 的请求使用的 token 请求头
+     * @return 新的 token, 刷新失败或等待超时返回 {@code null}
+     */
+    @Nullable
+    private String awaitFreshToken(@Nullable String usedHeader) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mMaxWaitMs);
+        String expiredToken;
+        long generation;
+        synchronized (mLock) {
+            while (true) {
+                if (mToken != null && !formatToken(mToken).equals(usedHeader)) {
+                    //已经被其他请求刷新过了, 直接使用新 token
+                    return mToken;
+                }
+                if (mFailedGeneration == mGeneration) {
+                    return null;
+                }
+                if (!mRefreshing) {
+                    mRefreshing = true;
+                    expiredToken = mToken;
+                    generation = mGeneration;
+                    break;
+                }
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    LogUtils.warnInfo(TAG, "wait for token refresh timeout");
+                    return null;
+                }
+                try {
+                    mLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        }
+
+        String fresh = null;
+        String result = null;
+        try {
+            fresh = refreshToken(expiredToken);
+        } catch (IOException e) {
+            LogUtils.warnInfo(TAG, "refresh token failed: " + e.getMessage());
+        } finally {
+            //refreshToken 抛出 RuntimeException 时同样要结束刷新, 否则之后的请求都会等到超时
+            synchronized (mLock) {
+                mRefreshing = false;
+                if (generation != mGeneration) {
+                    //刷新期间 token 已被更新, 丢弃这次的结果
+                    result = mToken;
+                } else if (fresh == null) {
+                    mFailedGeneration = generation;
+                } else {
+                    mToken = fresh;
+                    mGeneration++;
+                    result = fresh;
+                }
+                mLock.notifyAll();
+            }
+        }
+        return result;
+    }
+
+    private static int attempts(Response response) {
+        int count = 1;
+        while ((response = response.priorResponse()) != null) {
+            count++;
+        }
+        return count;
+    }
+}
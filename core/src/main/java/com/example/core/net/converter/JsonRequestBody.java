@@ -0,0 +1,142 @@
+package com.example.core.net.converter;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.util.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.JsonNull;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+
+/**
+ * ================================================
+ * 发送请求时才用 {@link JsonWriter} 把对象直接序列化到 {@link BufferedSink} 的 {@link RequestBody}
+ * <p>
+ * 不会像 {@code RequestBody.create(gson.toJson(map), ...)} 那样先生成整个 JSON 字符串再转成 UTF-8 字节数组,
+ * 大请求体的内存占用只有 Okio 的分段缓冲
+ * <p>
+ * 序列化结果不超过 {@link #KNOWN_LENGTH_LIMIT} 时在 {@link #contentLength()} 中缓存下来, 带上 Content-Length 发送;
+ * 超过时放弃缓存, 以 chunked 方式边序列化边发送
+ * ================================================
+ */
+public final class JsonRequestBody<T> extends RequestBody {
+    public static final MediaType MEDIA_TYPE = MediaType.get("application/json; charset=UTF-8");
+    /**
+     * 计算 Content-Length 时最多缓存的字节数
+     */
+    public static final long KNOWN_LENGTH_LIMIT = 16 * 1024;
+
+    private final Gson mGson;
+    private final TypeAdapter<T> mAdapter;
+    @Nullable
+    private final T mValue;
+    private Buffer mBuffered;
+    private long mContentLength = -2;
+
+    public JsonRequestBody(@NonNull Gson gson, @NonNull TypeAdapter<T> adapter, @Nullable T value) {
+        this.mGson = Preconditions.checkNotNull(gson, "gson == null");
+        this.mAdapter = Preconditions.checkNotNull(adapter, "adapter == null");
+        this.mValue = value;
+    }
+
+    /**
+     * 按 value 的运行时类型序列化
+     */
+    @SuppressWarnings("unchecked")
+    public static RequestBody create(@NonNull Gson gson, @Nullable Object value) {
+        if (value == null) {
+            return new JsonRequestBody<>(gson, gson.getAdapter(JsonNull.class), JsonNull.INSTANCE);
+        }
+        return new JsonRequestBody<>(gson, (TypeAdapter<Object>) gson.getAdapter(value.getClass()), value);
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public synchronized long contentLength() throws IOException {
+        if (mContentLength != -2) {
+            return mContentLength;
+        }
+        Buffer buffer = new Buffer();
+        try {
+            serialize(new LimitedOutputStream(buffer, KNOWN_LENGTH_LIMIT));
+            mBuffered = buffer;
+            mContentLength = buffer.size();
+        } catch (LimitExceededException e) {
+            buffer.clear();
+            mContentLength = -1;
+        }
+        return mContentLength;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        Buffer buffered;
+        synchronized (this) {
+            buffered = mBuffered;
+        }
+        if (buffered != null) {
+            //写入副本 (共享分段, 不复制数据), 重试或者日志拦截器再次写入时仍然可用
+            Buffer copy = buffered.clone();
+            sink.write(copy, copy.size());
+            return;
+        }
+        serialize(sink.outputStream());
+    }
+
+    private void serialize(OutputStream out) throws IOException {
+        JsonWriter writer = mGson.newJsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        mAdapter.write(writer, mValue);
+        //只 flush 不 close, sink 由 OkHttp 管理
+        writer.flush();
+    }
+
+    private static final class LimitExceededException extends IOException {
+    }
+
+    /**
+     * 写入超过 limit 个字节时抛出 {@link LimitExceededException}
+     */
+    private static final class LimitedOutputStream extends OutputStream {
+        private final Buffer mBuffer;
+        private final long mLimit;
+
+        LimitedOutputStream(Buffer buffer, long limit) {
+            this.mBuffer = buffer;
+            this.mLimit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            check(1);
+            mBuffer.writeByte(b);
+        }
+
+        @Override
+        public void write(@NonNull byte[] b, int off, int len) throws IOException {
+            check(len);
+            mBuffer.write(b, off, len);
+        }
+
+        private void check(int len) throws LimitExceededException {
+            if (mBuffer.size() + len > mLimit) {
+                throw new LimitExceededException();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.core.net.converter;
+
+import androidx.annotation.Nullable;
+
+import com.example.core.util.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.RequestBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * ================================================
+ * 把 {@link retrofit2.http.Body} 参数转换为 {@link JsonRequestBody}, 发送时才流式序列化
+ * 只处理请求体, 需要在 {@link retrofit2.converter.gson.GsonConverterFactory} 之前添加
+ * ================================================
+ */
+public final class JsonRequestBodyConverterFactory extends Converter.Factory {
+    private final Gson mGson;
+
+    private JsonRequestBodyConverterFactory(Gson gson) {
+        this.mGson = gson;
+    }
+
+    public static JsonRequestBodyConverterFactory create(Gson gson) {
+        return new JsonRequestBodyConverterFactory(Preconditions.checkNotNull(gson, "gson == null"));
+    }
+
+    @Nullable
+    @Override
+    public Converter<?, RequestBody> requestBodyConverter(Type type, Annotation[] parameterAnnotations,
+                                                          Annotation[] methodAnnotations, Retrofit retrofit) {
+        return newConverter(mGson.getAdapter(TypeToken.get(type)));
+    }
+
+    private <T> Converter<T, RequestBody> newConverter(TypeAdapter<T> adapter) {
+        return value -> new JsonRequestBody<>(mGson, adapter, value);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.core.net.converter;
+
+import androidx.annotation.Nullable;
+
+import com.example.core.util.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.rxjava3.core.Flowable;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.HttpException;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.Streaming;
+
+/**
+ * ================================================
+ * 处理带有 {@link StreamPage} 注解、返回值为 {@link Flowable} 的接口方法, 其他方法交给后面的 CallAdapter.Factory
+ * <p>
+ * 每次下游请求数据时才从网络流中解析下一项 (或下一组), 支持背压; 取消订阅时取消请求并关闭连接
+ * 需要在 {@link retrofit2.adapter.rxjava3.RxJava3CallAdapterFactory} 之前添加
+ * ================================================
+ */
+public final class PageStreamCallAdapterFactory extends CallAdapter.Factory {
+    private final Gson mGson;
+
+    private PageStreamCallAdapterFactory(Gson gson) {
+        this.mGson = gson;
+    }
+
+    public static PageStreamCallAdapterFactory create(Gson gson) {
+        return new PageStreamCallAdapterFactory(Preconditions.checkNotNull(gson, "gson == null"));
+    }
+
+    @Nullable
+    @Override
+    public CallAdapter<?, ?> get(Type returnType, Annotation[] annotations, Retrofit retrofit) {
+        if (getRawType(returnType) != Flowable.class) {
+            return null;
+        }
+        StreamPage streamPage = null;
+        boolean streaming = false;
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof StreamPage) {
+                streamPage = (StreamPage) annotation;
+            } else if (annotation instanceof Streaming) {
+                streaming = true;
+            }
+        }
+        if (streamPage == null) {
+            return null;
+        }
+        Preconditions.checkArgument(streaming, "@StreamPage method must also be annotated with @Streaming");
+        Preconditions.checkArgument(returnType instanceof ParameterizedType, "Flowable return type must be parameterized");
+
+        Type itemType = getParameterUpperBound(0, (ParameterizedType) returnType);
+        int chunkSize = streamPage.chunkSize();
+        if (chunkSize > 1) {
+            Preconditions.checkArgument(getRawType(itemType) == List.class && itemType instanceof ParameterizedType,
+                    "@StreamPage(chunkSize > 1) method must return Flowable<List<T>>");
+            itemType = getParameterUpperBound(0, (ParameterizedType) itemType);
+        }
+        return new PageStreamCallAdapter<>(mGson, mGson.getAdapter(TypeToken.get(itemType)), chunkSize);
+    }
+
+    private static final class PageStreamCallAdapter<T> implements CallAdapter<ResponseBody, Object> {
+        private final Gson mGson;
+        private final TypeAdapter<T> mAdapter;
+        private final int mChunkSize;
+
+        PageStreamCallAdapter(Gson gson, TypeAdapter<T> adapter, int chunkSize) {
+            this.mGson = gson;
+            this.mAdapter = adapter;
+            this.mChunkSize = chunkSize;
+        }
+
+        @Override
+        public Type responseType() {
+            return ResponseBody.class;
+        }
+
+        @Override
+        public Object adapt(Call<ResponseBody> call) {
+            if (mChunkSize <= 1) {
+                return Flowable.<Cursor<T>, T>generate(
+                        () -> new Cursor<>(call.clone(), mGson, mAdapter),
+                        (cursor, emitter) -> {
+                            T item = cursor.next();
+                            if (item == null) {
+                                emitter.onComplete();
+                            } else {
+                                emitter.onNext(item);
+                            }
+                        },
+                        Cursor::close);
+            }
+            return Flowable.<Cursor<T>, List<T>>generate(
+                    () -> new Cursor<>(call.clone(), mGson, mAdapter),
+                    (cursor, emitter) -> {
+                        List<T> chunk = new ArrayList<>(mChunkSize);
+                        T item;
+                        while (chunk.size() < mChunkSize && (item = cursor.next()) != null) {
+                            chunk.add(item);
+                        }
+                        if (!chunk.isEmpty()) {
+                            emitter.onNext(chunk);
+                        }
+                        if (chunk.size() < mChunkSize) {
+                            emitter.onComplete();
+                        }
+                    },
+                    Cursor::close);
+        }
+    }
+
+    /**
+     * 一次订阅对应的请求与解析状态, 第一次读取时才执行请求
+     */
+    private static final class Cursor<T> {
+        private final Call<ResponseBody> mCall;
+        private final Gson mGson;
+        private final TypeAdapter<T> mAdapter;
+        private PageStreamReader<T> mReader;
+
+        Cursor(Call<ResponseBody> call, Gson gson, TypeAdapter<T> adapter) {
+            this.mCall = call;
+            this.mGson = gson;
+            this.mAdapter = adapter;
+        }
+
+        @Nullable
+        T next() throws Exception {
+            if (mReader == null) {
+                Response<ResponseBody> response = mCall.execute();
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    throw new HttpException(response);
+                }
+                try {
+                    mReader = new PageStreamReader<>(mGson, mAdapter, body);
+                } catch (Exception e) {
+                    body.close();
+                    throw e;
+                }
+            }
+            return mReader.next();
+        }
+
+        void close() {
+            mCall.cancel();
+            if (mReader != null) {
+                mReader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.core.net.converter;
+
+import androidx.annotation.Nullable;
+
+import com.example.core.net.ApiException;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import okhttp3.ResponseBody;
+
+/**
+ * ================================================
+ * 从 {@link ResponseBody} 中逐项读取 {@code CommonResult} 里的 {@code data} 数组
+ * <p>
+ * 支持 {@code {"code":0,"message":"","data":[...]}} 与分页的 {@code {"code":0,"data":{"pageNum":1,"data":[...]}}} 两种结构,
+ * code 出现在 data 之前且非 0 时直接跳过 data 抛出 {@link ApiException}, 出现在 data 之后时在数组读完后检查
+ * ================================================
+ */
+final class PageStreamReader<T> implements Closeable {
+    private static final long SUCCESS_CODE = 0;
+
+    private final ResponseBody mBody;
+    private final JsonReader mReader;
+    private final TypeAdapter<T> mAdapter;
+    private long mCode = SUCCESS_CODE;
+    private String mMessage;
+    private boolean mInPage;
+    private boolean mInArray;
+
+    PageStreamReader(Gson gson, TypeAdapter<T> adapter, ResponseBody body) throws IOException {
+        this.mBody = body;
+        this.mAdapter = adapter;
+        this.mReader = gson.newJsonReader(body.charStream());
+        open();
+    }
+
+    /**
+     * 读取下一项
+     *
+     * @return 数组读完时返回 {@code null}
+     */
+    @Nullable
+    T next() throws IOException {
+        while (mInArray) {
+            if (!mReader.hasNext()) {
+                mReader.endArray();
+                mInArray = false;
+                finish();
+                return null;
+            }
+            T item = mAdapter.read(mReader);
+            //数组中的 null 直接跳过, RxJava 不允许发射 null
+            if (item != null) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 定位到 data 数组的开头, 没有数组时直接读完整个结果
+     */
+    private void open() throws IOException {
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            String name = mReader.nextName();
+            if ("code".equals(name)) {
+                mCode = mReader.nextLong();
+            } else if ("message".equals(name)) {
+                readMessage();
+            } else if ("data".equals(name) && mCode == SUCCESS_CODE) {
+                if (seekArray()) {
+                    return;
+                }
+            } else {
+                mReader.skipValue();
+            }
+        }
+        mReader.endObject();
+        checkCode();
+    }
+
+    /**
+     * 当前位于 data 的值上, data 为数组或包含 data 数组的分页对象时返回 {@code true}
+     */
+    private boolean seekArray() throws IOException {
+        JsonToken token = mReader.peek();
+        if (token == JsonToken.BEGIN_ARRAY) {
+            mReader.beginArray();
+            mInArray = true;
+            return true;
+        }
+        if (token != JsonToken.BEGIN_OBJECT) {
+            mReader.skipValue();
+            return false;
+        }
+        mReader.beginObject();
+        while (mReader.hasNext()) {
+            if ("data".equals(mReader.nextName()) && mReader.peek() == JsonToken.BEGIN_ARRAY) {
+                mReader.beginArray();
+                mInPage = true;
+                mInArray = true;
+                return true;
+            }
+            mReader.skipValue();
+        }
+        mReader.endObject();
+        return false;
+    }
+
+    /**
+     * 数组读完后读取剩下的字段, 检查 code
+     */
+    private void finish() throws IOException {
+        if (mInPage) {
+            while (mReader.hasNext()) {
+                mReader.nextName();
+                mReader.skipValue();
+            }
+            mReader.endObject();
+            mInPage = false;
+        }
+        while (mReader.hasNext()) {
+            String name = mReader.nextName();
+            if ("code".equals(name)) {
+                mCode = mReader.nextLong();
+            } else if ("message".equals(name)) {
+                readMessage();
+            } else {
+                mReader.skipValue();
+            }
+        }
+        mReader.endObject();
+        checkCode();
+    }
+
+    private void readMessage() throws IOException {
+        if (mReader.peek() == JsonToken.NULL) {
+            mReader.nextNull();
+            mMessage = null;
+        } else {
+            mMessage = mReader.nextString();
+        }
+    }
+
+    private void checkCode() throws ApiException {
+        if (mCode != SUCCESS_CODE) {
+            throw new ApiException(mCode, mMessage);
+        }
+    }
+
+    @Override
+    public void close() {
+        mBody.close();
+    }
+}
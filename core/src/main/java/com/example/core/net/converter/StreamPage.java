@@ -0,0 +1,39 @@
+package com.example.core.net.converter;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ================================================
+ * 流式解析分页接口, 由 {@link PageStreamCallAdapterFactory} 读取
+ * <p>
+ * 边下载边解析返回结果中 {@code data} 数组 (或 {@code data.data} 分页数组) 的每一项, 以 {@code Flowable} 发射,
+ * 不再等整个结果下载完并解析成完整的 {@code List}, 前几项可以先显示出来, 大分页也不会占用大量内存
+ * <p>
+ * 必须同时加上 {@link retrofit2.http.Streaming}, 否则 Retrofit 仍会先把整个结果读入内存
+ * <pre>
+ * &#64;Streaming
+ * &#64;StreamPage
+ * &#64;GET("/product/list")
+ * Flowable&lt;Product&gt; products(@Query("pageNum") int pageNum);
+ *
+ * &#64;Streaming
+ * &#64;StreamPage(chunkSize = 20)
+ * &#64;GET("/product/list")
+ * Flowable&lt;List&lt;Product&gt;&gt; productChunks(@Query("pageNum") int pageNum);
+ * </pre>
+ * 网络请求在订阅的线程中同步执行, 请配合 {@link com.example.core.net.RxScheduler#Flo_io_main()} 使用
+ * ================================================
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StreamPage {
+    /**
+     * 大于 1 时每次发射 chunkSize 项组成的 {@code List}, 此时返回值必须为 {@code Flowable<List<T>>}
+     */
+    int chunkSize() default 1;
+}
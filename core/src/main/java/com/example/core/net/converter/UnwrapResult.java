@@ -0,0 +1,26 @@
+package com.example.core.net.converter;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ================================================
+ * 由 {@link UnwrapResultConverterFactory} 去掉 {@code CommonResult} 外壳, 接口方法直接声明 {@code data} 的类型
+ * <pre>
+ * &#64;UnwrapResult
+ * &#64;POST("/sso/login")
+ * Observable&lt;TokenVo&gt; login(@Query("username") String username, @Query("password") String password);
+ * </pre>
+ * code 非 0 时以 {@link com.example.core.net.ApiException} 结束, 不再解析 data;
+ * 成功但 data 为 null 时以 {@link com.example.core.net.NullDataException} 结束 (RxJava 不允许发射 null),
+ * 没有 data 的接口请声明为 {@code Completable} 或者继续使用 {@code CommonResult<T>}
+ * ================================================
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UnwrapResult {
+}
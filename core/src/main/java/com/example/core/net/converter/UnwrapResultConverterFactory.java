@@ -0,0 +1,123 @@
+package com.example.core.net.converter;
+
+import androidx.annotation.Nullable;
+
+import com.example.core.net.ApiException;
+import com.example.core.net.NullDataException;
+import com.example.core.util.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * ================================================
+ * 处理带有 {@link UnwrapResult} 注解的接口方法, 其他方法交给后面的 Converter.Factory
+ * <p>
+ * 按顺序读取返回结果的字段: code 非 0 且 message 已读到时立即抛出 {@link ApiException}, 不再读取剩下的内容;
+ * code 在 data 之前且非 0 时直接跳过 data, 不会再为错误结果解析整个 data; 成功时返回 data 本身, 不再创建 {@code CommonResult}
+ * <p>
+ * 缺少 code 时抛出 {@link JsonParseException}; 成功但 data 为 null 时抛出 {@link NullDataException}, 不会返回 null
+ * <p>
+ * 需要在 {@link retrofit2.converter.gson.GsonConverterFactory} 之前添加
+ * ================================================
+ */
+public final class UnwrapResultConverterFactory extends Converter.Factory {
+    private final Gson mGson;
+
+    private UnwrapResultConverterFactory(Gson gson) {
+        this.mGson = gson;
+    }
+
+    public static UnwrapResultConverterFactory create(Gson gson) {
+        return new UnwrapResultConverterFactory(Preconditions.checkNotNull(gson, "gson == null"));
+    }
+
+    @Nullable
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof UnwrapResult) {
+                return new UnwrapResultConverter<>(mGson, mGson.getAdapter(TypeToken.get(type)));
+            }
+        }
+        return null;
+    }
+
+    private static final class UnwrapResultConverter<T> implements Converter<ResponseBody, T> {
+        private static final long SUCCESS_CODE = 0;
+
+        private final Gson mGson;
+        private final TypeAdapter<T> mAdapter;
+
+        UnwrapResultConverter(Gson gson, TypeAdapter<T> adapter) {
+            this.mGson = gson;
+            this.mAdapter = adapter;
+        }
+
+        @Override
+        public T convert(ResponseBody value) throws IOException {
+            JsonReader reader = mGson.newJsonReader(value.charStream());
+            try {
+                Long code = null;
+                String message = null;
+                boolean hasMessage = false;
+                T data = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if ("code".equals(name)) {
+                        code = reader.nextLong();
+                    } else if ("message".equals(name)) {
+                        message = readString(reader);
+                        hasMessage = true;
+                    } else if ("data".equals(name) && (code == null || code == SUCCESS_CODE)) {
+                        data = mAdapter.read(reader);
+                    } else {
+                        reader.skipValue();
+                    }
+                    if (code != null && code != SUCCESS_CODE && hasMessage) {
+                        //错误结果已经拿到了需要的全部信息, 剩下的内容不再读取
+                        throw new ApiException(code, message);
+                    }
+                }
+                reader.endObject();
+                if (reader.peek() != JsonToken.END_DOCUMENT) {
+                    throw new JsonIOException("JSON document was not fully consumed.");
+                }
+                if (code == null) {
+                    throw new JsonParseException("Expected \"code\" in result but was missing");
+                }
+                if (code != SUCCESS_CODE) {
+                    throw new ApiException(code, message);
+                }
+                if (data == null) {
+                    throw new NullDataException(code, message);
+                }
+                return data;
+            } finally {
+                value.close();
+            }
+        }
+
+        @Nullable
+        private static String readString(JsonReader reader) throws IOException {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            return reader.nextString();
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.example.core.net.download;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.common.util.MD5Utils;
+import com.example.core.net.RequestPriority;
+import com.example.core.util.LogUtils;
+import com.example.core.util.Preconditions;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.Lazy;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.ObservableEmitter;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * ================================================
+ * 使用框架的 {@link OkHttpClient} 多连接分段下载大文件
+ * <p>
+ * 1. 服务器支持 Range 时把文件分成多段并行下载, 每段通过 {@link FileChannel#transferFrom} 直接写入预先分配好大小的
+ * {@code <文件名>.part} 中对应的位置, 不需要额外的缓冲区, 也不需要最后再合并
+ * 2. 各段的进度定期保存在 {@code <文件名>.download} 中, 取消订阅、出错或者进程被杀死后, 再次下载同一个文件时从保存的位置继续;
+ * 服务器上的文件改变 (ETag、Last-Modified、大小不同) 时重新下载
+ * 3. 下载完成后使用 {@link MD5Utils#md5(File)} 校验整个文件, 通过后重命名为目标文件
+ * <p>
+ * 进度在 IO 线程发射, 可以配合 {@link com.example.core.net.RxScheduler#Obs_io_main_latest()} 在主线程按帧刷新
+ * ================================================
+ */
+@Singleton
+public class DownloadManager {
+    private static final String TAG = "DownloadManager";
+    private static final String PART_SUFFIX = ".part";
+    private static final String STATE_SUFFIX = ".download";
+    /**
+     * 每次 transferFrom 的字节数, 也是检查取消与发射进度的间隔
+     */
+    private static final long TRANSFER_BYTES = 256 * 1024;
+    /**
+     * 保存进度的最小间隔
+     */
+    private static final long SAVE_INTERVAL_MS = 1000;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes\\s+\\d+-\\d+/(\\d+)");
+
+    private final Lazy<OkHttpClient> mClient;
+    private final Lazy<Gson> mGson;
+    /**
+     * 正在下载的文件, 同一个文件同时只能有一个下载
+     */
+    private final Set<String> mActive = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    @Inject
+    public DownloadManager(Lazy<OkHttpClient> client, Lazy<Gson> gson) {
+        this.mClient = client;
+        this.mGson = gson;
+    }
+
+    /**
+     * 下载文件, 取消订阅相当于暂停, 再次调用时继续下载
+     *
+     * @param request {@link DownloadRequest}
+     * @return 下载进度, 最后一个 {@link DownloadProgress#isCompleted()} 为 {@code true}
+     */
+    @NonNull
+    public Observable<DownloadProgress> download(@NonNull DownloadRequest request) {
+        Preconditions.checkNotNull(request, "request == null");
+        return Observable.defer(() -> {
+            Task task = new Task(request);
+            if (task.isAlreadyDownloaded()) {
+                return Observable.just(new DownloadProgress(request.file, request.file.length(), request.file.length(), true));
+            }
+            try {
+                task.prepare();
+            } catch (Throwable t) {
+                task.close();
+                throw t;
+            }
+            List<DownloadState.Segment> pending = new ArrayList<>();
+            for (DownloadState.Segment segment : task.mState.segments) {
+                if (!segment.isFinished()) {
+                    pending.add(segment);
+                }
+            }
+            return Observable.fromIterable(pending)
+                    .flatMap(segment -> Observable.<Long>create(emitter -> task.transfer(segment, emitter))
+                            .subscribeOn(Schedulers.io()))
+                    .map(written -> task.progress())
+                    .startWithItem(task.progress())
+                    .concatWith(Observable.fromCallable(task::finish))
+                    .doFinally(task::close);
+        }).subscribeOn(Schedulers.io());
+    }
+
+    /**
+     * 删除没有下载完的临时文件与进度, 下次从头下载
+     *
+     * @param file 下载的目标文件
+     * @return 文件正在下载时不删除, 返回 {@code false}
+     */
+    public boolean discard(@NonNull File file) {
+        if (mActive.contains(file.getAbsolutePath())) {
+            return false;
+        }
+        partOf(file).delete();
+        stateOf(file).delete();
+        return true;
+    }
+
+    private static File partOf(File file) {
+        return new File(file.getPath() + PART_SUFFIX);
+    }
+
+    private static File stateOf(File file) {
+        return new File(file.getPath() + STATE_SUFFIX);
+    }
+
+    /**
+     * 一次下载, 从 prepare 到 finish 或者 close
+     */
+    private final class Task {
+        final DownloadRequest mRequest;
+        final File mPart;
+        final File mStateFile;
+        final AtomicLong mDownloaded = new AtomicLong();
+        DownloadState mState;
+        RandomAccessFile mFile;
+        FileChannel mChannel;
+        boolean mActivated;
+        boolean mFinished;
+        long mLastSaved;
+
+        Task(DownloadRequest request) {
+            this.mRequest = request;
+            this.mPart = partOf(request.file);
+            this.mStateFile = stateOf(request.file);
+        }
+
+        /**
+         * 目标文件已经存在并且 MD5 一致时不再下载
+         */
+        boolean isAlreadyDownloaded() throws IOException {
+            return mRequest.md5 != null && mRequest.file.isFile() && !mPart.exists()
+                    && mRequest.md5.equalsIgnoreCase(MD5Utils.md5(mRequest.file));
+        }
+
+        /**
+         * 获取文件大小与是否支持 Range, 能继续上次的进度时使用保存的进度, 否则重新分段并预分配文件
+         */
+        void prepare() throws IOException {
+            Preconditions.checkState(mActive.add(mRequest.file.getAbsolutePath()), "%s is already downloading", mRequest.file);
+            mActivated = true;
+            DownloadState probed = probe();
+            DownloadState saved = load();
+            if (saved != null && probed.ranges && saved.ranges
+                    && mRequest.url.equals(saved.url) && probed.length == saved.length && probed.length >= 0
+                    && probed.validator != null && probed.validator.equals(saved.validator)
+                    && mPart.length() == saved.length) {
+                mState = saved;
+            } else {
+                mState = probed;
+                split(mState);
+                mPart.delete();
+                mStateFile.delete();
+            }
+            mDownloaded.set(mState.downloaded());
+            File parent = mPart.getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            mFile = new RandomAccessFile(mPart, "rw");
+            if (mState.length > 0 && mFile.length() != mState.length) {
+                mFile.setLength(mState.length);
+            }
+            mChannel = mFile.getChannel();
+        }
+
+        /**
+         * 请求第一个字节, 206 说明支持 Range, 从 Content-Range 中得到文件大小
+         */
+        private DownloadState probe() throws IOException {
+            Request request = newRequest().header("Range", "bytes=0-0").build();
+            try (Response response = mClient.get().newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException("HTTP " + response.code() + " " + mRequest.url);
+                }
+                DownloadState state = new DownloadState();
+                state.url = mRequest.url;
+                state.validator = response.header("ETag");
+                if (state.validator == null) {
+                    state.validator = response.header("Last-Modified");
+                }
+                Matcher matcher = response.code() == 206 ? CONTENT_RANGE.matcher(String.valueOf(response.header("Content-Range"))) : null;
+                if (matcher != null && matcher.matches()) {
+                    state.ranges = true;
+                    state.length = Long.parseLong(matcher.group(1));
+                } else {
+                    ResponseBody body = response.body();
+                    state.ranges = false;
+                    state.length = body == null ? -1 : body.contentLength();
+                }
+                return state;
+            }
+        }
+
+        private void split(DownloadState state) {
+            int count = 1;
+            if (state.ranges && state.length > 0) {
+                count = (int) Math.max(1, Math.min(mRequest.connections, state.length / mRequest.minSegmentSize));
+            }
+            if (state.length < 0) {
+                state.segments.add(new DownloadState.Segment(0, -1));
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                long start = state.length * i / count;
+                long end = state.length * (i + 1) / count - 1;
+                state.segments.add(new DownloadState.Segment(start, end));
+            }
+        }
+
+        private Request.Builder newRequest() {
+            //RequestInterceptor 根据 DownloadRequest tag 判断不读取响应体
+            return new Request.Builder()
+                    .url(mRequest.url)
+                    .tag(DownloadRequest.class, mRequest)
+                    .tag(RequestPriority.class, mRequest.priority);
+        }
+
+        /**
+         * 下载一个分段, 每写入 {@link #TRANSFER_BYTES} 发射一次写入的字节数
+         */
+        void transfer(DownloadState.Segment segment, ObservableEmitter<Long> emitter) {
+            long position = segment.start + segment.downloaded;
+            Request.Builder builder = newRequest();
+            if (mState.ranges) {
+                builder.header("Range", "bytes=" + position + "-" + segment.end);
+                if (mState.validator != null) {
+                    //文件在两次请求之间改变时服务器返回 200 和完整的新文件, 而不是 206
+                    builder.header("If-Range", mState.validator);
+                }
+            }
+            Call call = mClient.get().newCall(builder.build());
+            emitter.setCancellable(call::cancel);
+            try (Response response = call.execute()) {
+                if (!response.isSuccessful() || (mState.ranges && response.code() != 206)) {
+                    throw new IOException("HTTP " + response.code() + " " + mRequest.url);
+                }
+                ResponseBody body = response.body();
+                if (body == null) {
+                    throw new IOException("empty body " + mRequest.url);
+                }
+                BufferedSource source = body.source();
+                while (!emitter.isDisposed()) {
+                    long count = segment.end >= 0 ? Math.min(TRANSFER_BYTES, segment.end + 1 - position) : TRANSFER_BYTES;
+                    if (count <= 0) {
+                        break;
+                    }
+                    //写入指定位置, 不改变 channel 的 position, 多个分段可以同时写同一个 channel
+                    long written = mChannel.transferFrom(source, position, count);
+                    if (written <= 0) {
+                        if (segment.end >= 0) {
+                            throw new EOFException("segment ended at " + position + ", expected " + segment.end);
+                        }
+                        break;
+                    }
+                    position += written;
+                    segment.downloaded += written;
+                    mDownloaded.addAndGet(written);
+                    saveIfNeeded();
+                    emitter.onNext(written);
+                }
+                emitter.onComplete();
+            } catch (IOException e) {
+                emitter.tryOnError(e);
+            }
+        }
+
+        DownloadProgress progress() {
+            return new DownloadProgress(mRequest.file, mDownloaded.get(), mState.length, false);
+        }
+
+        /**
+         * 所有分段下载完成, 校验 MD5 后重命名为目标文件
+         */
+        DownloadProgress finish() throws IOException {
+            mChannel.force(false);
+            closeFile();
+            if (mRequest.md5 != null) {
+                String md5 = MD5Utils.md5(mPart);
+                if (!mRequest.md5.equalsIgnoreCase(md5)) {
+                    mPart.delete();
+                    mStateFile.delete();
+                    mFinished = true;
+                    throw new IOException("md5 mismatch, expected " + mRequest.md5 + " but was " + md5);
+                }
+            }
+            if (mRequest.file.exists() && !mRequest.file.delete()) {
+                throw new IOException("failed to delete " + mRequest.file);
+            }
+            if (!mPart.renameTo(mRequest.file)) {
+                throw new IOException("failed to rename " + mPart + " to " + mRequest.file);
+            }
+            mStateFile.delete();
+            mFinished = true;
+            long length = mRequest.file.length();
+            return new DownloadProgress(mRequest.file, length, length, true);
+        }
+
+        /**
+         * 下载结束、出错或者取消订阅时调用, 没有完成时保存进度
+         */
+        void close() {
+            if (!mActivated) {
+                return;
+            }
+            if (!mFinished && mState != null && mState.ranges) {
+                save();
+            }
+            closeFile();
+            mActive.remove(mRequest.file.getAbsolutePath());
+        }
+
+        private void closeFile() {
+            try {
+                if (mFile != null) {
+                    mFile.close();
+                }
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void saveIfNeeded() {
+            if (!mState.ranges) {
+                return;
+            }
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (now - mLastSaved < SAVE_INTERVAL_MS) {
+                    return;
+                }
+                mLastSaved = now;
+            }
+            save();
+        }
+
+        /**
+         * 先写临时文件再重命名, 进程在写入过程中被杀死也不会留下不完整的进度
+         */
+        private synchronized void save() {
+            File temp = new File(mStateFile.getPath() + ".tmp");
+            try (Writer writer = new FileWriter(temp)) {
+                mGson.get().toJson(mState, writer);
+            } catch (IOException e) {
+                LogUtils.warnInfo(TAG, "failed to save " + mStateFile + ": " + e);
+                return;
+            }
+            if (!temp.renameTo(mStateFile)) {
+                temp.delete();
+            }
+        }
+
+        @Nullable
+        private DownloadState load() {
+            if (!mStateFile.isFile()) {
+                return null;
+            }
+            try (Reader reader = new FileReader(mStateFile)) {
+                DownloadState state = mGson.get().fromJson(reader, DownloadState.class);
+                return state != null && state.segments != null ? state : null;
+            } catch (IOException | JsonParseException e) {
+                LogUtils.warnInfo(TAG, "ignore broken " + mStateFile + ": " + e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.core.net.download;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+
+/**
+ * ================================================
+ * {@link DownloadManager#download(DownloadRequest)} 发射的下载进度
+ * ================================================
+ */
+public final class DownloadProgress {
+    private final File mFile;
+    private final long mDownloadedBytes;
+    private final long mTotalBytes;
+    private final boolean mCompleted;
+
+    DownloadProgress(File file, long downloadedBytes, long totalBytes, boolean completed) {
+        this.mFile = file;
+        this.mDownloadedBytes = downloadedBytes;
+        this.mTotalBytes = totalBytes;
+        this.mCompleted = completed;
+    }
+
+    /**
+     * 下载的目标文件, {@link #isCompleted()} 之前文件还不存在
+     */
+    @NonNull
+    public File getFile() {
+        return mFile;
+    }
+
+    /**
+     * 已经下载的字节数, 包括上次下载中断前已经下载的部分
+     */
+    public long getDownloadedBytes() {
+        return mDownloadedBytes;
+    }
+
+    /**
+     * 文件总大小, 服务器没有返回时为 -1
+     */
+    public long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    /**
+     * 是否已经下载完成并通过校验
+     */
+    public boolean isCompleted() {
+        return mCompleted;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "DownloadProgress{" + mFile.getName() + " " + mDownloadedBytes + "/" + mTotalBytes
+                + (mCompleted ? " completed" : "") + "}";
+    }
+}
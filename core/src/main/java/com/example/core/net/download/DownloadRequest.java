@@ -0,0 +1,87 @@
+package com.example.core.net.download;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.net.RequestPriority;
+import com.example.core.util.Preconditions;
+
+import java.io.File;
+
+/**
+ * ================================================
+ * {@link DownloadManager} 的下载任务
+ * ================================================
+ */
+public final class DownloadRequest {
+    final String url;
+    final File file;
+    @Nullable
+    final String md5;
+    final int connections;
+    final long minSegmentSize;
+    final RequestPriority priority;
+
+    private DownloadRequest(Builder builder) {
+        this.url = builder.url;
+        this.file = builder.file;
+        this.md5 = builder.md5;
+        this.connections = builder.connections;
+        this.minSegmentSize = builder.minSegmentSize;
+        this.priority = builder.priority;
+    }
+
+    public static Builder builder(@NonNull String url, @NonNull File file) {
+        return new Builder(url, file);
+    }
+
+    @NonNull
+    public String getUrl() {
+        return url;
+    }
+
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    public static final class Builder {
+        private final String url;
+        private final File file;
+        private String md5;
+        private int connections = 3;
+        private long minSegmentSize = 1024 * 1024;
+        private RequestPriority priority = RequestPriority.VISIBLE;
+
+        private Builder(String url, File file) {
+            this.url = Preconditions.checkNotNull(url, "url == null");
+            this.file = Preconditions.checkNotNull(file, "file == null");
+        }
+
+        public Builder md5(@Nullable String md5) {//下载完成后校验整个文件的 MD5, 不一致时删除文件并重新下载
+            this.md5 = md5;
+            return this;
+        }
+
+        public Builder connections(int connections) {//同时下载的分段数, 服务器不支持 Range 时只使用一个连接
+            Preconditions.checkArgument(connections > 0, "connections must be > 0");
+            this.connections = connections;
+            return this;
+        }
+
+        public Builder minSegmentSize(long bytes) {//每个分段至少这么大, 小文件不再拆分
+            Preconditions.checkArgument(bytes > 0, "minSegmentSize must be > 0");
+            this.minSegmentSize = bytes;
+            return this;
+        }
+
+        public Builder priority(@NonNull RequestPriority priority) {//开启 PriorityDispatcher 时下载请求的优先级
+            this.priority = Preconditions.checkNotNull(priority, "priority == null");
+            return this;
+        }
+
+        public DownloadRequest build() {
+            return new DownloadRequest(this);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.core.net.download;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ================================================
+ * 保存在目标文件旁边的下载进度, 进程被杀死后重新下载时从这里继续
+ * 由 Gson 序列化, 不要混淆字段名
+ * ================================================
+ */
+final class DownloadState {
+    String url;
+    /**
+     * 服务器返回的 ETag 或者 Last-Modified, 与这次不同时说明文件已经改变, 需要重新下载
+     */
+    String validator;
+    /**
+     * 文件总大小, 未知时为 -1
+     */
+    long length;
+    /**
+     * 服务器是否支持 Range, 不支持时无法断点续传
+     */
+    boolean ranges;
+    List<Segment> segments = new ArrayList<>();
+
+    long downloaded() {
+        long downloaded = 0;
+        for (Segment segment : segments) {
+            downloaded += segment.downloaded;
+        }
+        return downloaded;
+    }
+
+    static final class Segment {
+        long start;
+        /**
+         * 最后一个字节的位置 (包括), 文件大小未知时为 -1
+         */
+        long end;
+        /**
+         * 只由下载这个分段的线程修改
+         */
+        volatile long downloaded;
+
+        Segment(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        boolean isFinished() {
+            return end >= 0 && start + downloaded > end;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.core.net.interceptor;
+
+import com.example.core.util.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ================================================
+ * {@link PriorityDispatcher} 的并发与排队配置
+ * 使用 {@link com.example.core.di.module.GlobalConfigModule.Builder#dispatchPolicy(DispatchPolicy)} 方法配置
+ * ================================================
+ */
+public final class DispatchPolicy {
+    final int maxRequests;
+    final int maxRequestsPerHost;
+    final long agingMs;
+    final long leaseTimeoutMs;
+
+    private DispatchPolicy(Builder builder) {
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.agingMs = builder.agingMs;
+        this.leaseTimeoutMs = builder.leaseTimeoutMs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public static final class Builder {
+        private int maxRequests = 16;
+        private int maxRequestsPerHost = 6;
+        private long agingMs = TimeUnit.SECONDS.toMillis(1);
+        private long leaseTimeoutMs = TimeUnit.SECONDS.toMillis(30);
+
+        private Builder() {
+        }
+
+        public Builder maxRequests(int maxRequests) {//同时进行的请求数上限
+            Preconditions.checkArgument(maxRequests > 0, "maxRequests must be > 0");
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        public Builder maxRequestsPerHost(int maxRequestsPerHost) {//同一域名同时进行的请求数上限
+            Preconditions.checkArgument(maxRequestsPerHost > 0, "maxRequestsPerHost must be > 0");
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        public Builder aging(long interval, TimeUnit unit) {//排队每超过这么久优先级提升一级, 避免低优先级的请求一直发不出去
+            Preconditions.checkArgument(interval > 0, "interval must be > 0");
+            this.agingMs = unit.toMillis(interval);
+            return this;
+        }
+
+        public Builder leaseTimeout(long timeout, TimeUnit unit) {//请求占用名额的最长时间, 超过后即使响应体没有关闭也让出名额, 避免没有 close 或者长时间流式读取的响应体一直占用
+            Preconditions.checkArgument(timeout > 0, "timeout must be > 0");
+            this.leaseTimeoutMs = unit.toMillis(timeout);
+            return this;
+        }
+
+        public DispatchPolicy build() {
+            Preconditions.checkArgument(maxRequestsPerHost <= maxRequests, "maxRequestsPerHost must be <= maxRequests");
+            return new DispatchPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.core.net.interceptor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.net.Priority;
+import com.example.core.net.RequestPriority;
+import com.example.core.net.metrics.NetworkMetrics;
+import com.example.core.util.LogUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import retrofit2.Invocation;
+
+/**
+ * ================================================
+ * 按 {@link RequestPriority} 调度请求, 限制全局以及每个域名同时进行的请求数
+ * <p>
+ * 并发数达到上限时请求在这里排队, 有请求结束时从队列中选出有效优先级最高的请求发送,
+ * 有效优先级 = 优先级 - 排队时长 / {@link DispatchPolicy#agingMs}, 排队越久优先级越高, 预加载请求不会一直发不出去
+ * <p>
+ * 同步 (Retrofit + RxJava) 与异步请求都经过这里, 请求在以下时机让出名额:
+ * 1. 响应体读完或者关闭
+ * 2. 响应体已经被 {@link ResponseSpiller} 完整写入临时文件, 之后的读取不再占用网络, 由 {@link ResponseSpiller.Listener} 回调让出
+ * 3. 占用名额超过 {@link DispatchPolicy.Builder#leaseTimeout(long, TimeUnit)}, 没有 close 的响应体不会使名额泄漏,
+ * {@link retrofit2.http.Streaming}、{@link com.example.core.net.converter.StreamPage} 以及下载这类按读取速度消费的响应体也不会长期占用
+ * <p>
+ * 各优先级的排队耗时记录在 {@link NetworkMetrics#queueWait(RequestPriority)}
+ * <p>
+ * 使用 {@link com.example.core.di.module.GlobalConfigModule.Builder#dispatchPolicy(DispatchPolicy)} 开启
+ * ================================================
+ */
+public class PriorityDispatcher implements Interceptor {
+    private static final String TAG = "PriorityDispatcher";
+    /**
+     * 排队时检查请求是否被取消的间隔
+     */
+    private static final long CANCEL_CHECK_MS = 100;
+
+    private final DispatchPolicy mPolicy;
+    private final NetworkMetrics mMetrics;
+    private final long mAgingNanos;
+    private final long mLeaseNanos;
+    private final List<Waiter> mWaiting = new ArrayList<>();
+    /**
+     * 已经放行还没有让出名额的请求
+     */
+    private final List<Waiter> mLeased = new ArrayList<>();
+    private final Map<String, Integer> mRunningPerHost = new HashMap<>();
+    private int mRunning;
+    private long mSequence;
+
+    public PriorityDispatcher(@NonNull DispatchPolicy policy, @NonNull NetworkMetrics metrics) {
+        this.mPolicy = policy;
+        this.mMetrics = metrics;
+        this.mAgingNanos = TimeUnit.MILLISECONDS.toNanos(policy.agingMs);
+        this.mLeaseNanos = TimeUnit.MILLISECONDS.toNanos(policy.leaseTimeoutMs);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Waiter waiter = acquire(chain, priorityOf(request), request.url().host());
+        Response response;
+        try {
+            //响应体可能被 BridgeInterceptor 等重新包装, 不能在这里判断类型, 由 ResponseSpiller 写完文件后回调
+            response = chain.proceed(request.newBuilder()
+                    .tag(ResponseSpiller.Listener.class, () -> release(waiter))
+                    .build());
+        } catch (IOException | RuntimeException e) {
+            release(waiter);
+            throw e;
+        }
+        ResponseBody body = response.body();
+        if (body == null) {
+            release(waiter);
+            return response;
+        }
+        return response.newBuilder()
+                .body(new ReleasingBody(body, waiter))
+                .build();
+    }
+
+    /**
+     * 请求的优先级, 依次取 {@link Request#tag(Class)}、接口方法上的 {@link Priority}, 默认为 {@link RequestPriority#VISIBLE}
+     */
+    @NonNull
+    static RequestPriority priorityOf(@NonNull Request request) {
+        RequestPriority priority = request.tag(RequestPriority.class);
+        if (priority != null) {
+            return priority;
+        }
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            Priority annotation = invocation.method().getAnnotation(Priority.class);
+            if (annotation != null) {
+                return annotation.value();
+            }
+        }
+        return RequestPriority.VISIBLE;
+    }
+
+    private Waiter acquire(Chain chain, RequestPriority priority, String host) throws IOException {
+        Waiter waiter;
+        synchronized (this) {
+            waiter = new Waiter(priority, host, System.nanoTime(), mSequence++);
+            mWaiting.add(waiter);
+            dispatch();
+            try {
+                while (!waiter.mGranted) {
+                    if (chain.call().isCanceled()) {
+                        mWaiting.remove(waiter);
+                        throw new IOException("Canceled");
+                    }
+                    wait(CANCEL_CHECK_MS);
+                    if (expireLeases(System.nanoTime())) {
+                        dispatch();
+                    }
+                }
+            } catch (InterruptedException e) {
+                mWaiting.remove(waiter);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting to dispatch");
+            }
+        }
+        mMetrics.queueWait(priority).recordNanos(waiter.mGrantedAt - waiter.mEnqueuedAt);
+        return waiter;
+    }
+
+    /**
+     * 让出名额, 重复调用时只有第一次生效
+     */
+    private void release(Waiter waiter) {
+        synchronized (this) {
+            if (releaseLocked(waiter)) {
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * 让出名额, 需要持有锁
+     *
+     * @return 已经让出过时返回 {@code false}
+     */
+    private boolean releaseLocked(Waiter waiter) {
+        if (waiter.mReleased) {
+            return false;
+        }
+        waiter.mReleased = true;
+        mLeased.remove(waiter);
+        mRunning--;
+        Integer count = mRunningPerHost.get(waiter.mHost);
+        if (count == null || count <= 1) {
+            mRunningPerHost.remove(waiter.mHost);
+        } else {
+            mRunningPerHost.put(waiter.mHost, count - 1);
+        }
+        return true;
+    }
+
+    /**
+     * 收回占用名额超时的请求, 需要持有锁
+     *
+     * @return 是否有名额被收回
+     */
+    private boolean expireLeases(long now) {
+        boolean expired = false;
+        for (int i = mLeased.size() - 1; i >= 0; i--) {
+            Waiter waiter = mLeased.get(i);
+            if (now - waiter.mGrantedAt >= mLeaseNanos) {
+                LogUtils.warnInfo(TAG, "lease of " + waiter.mHost + " expired, response body not closed in "
+                        + TimeUnit.NANOSECONDS.toMillis(mLeaseNanos) + "ms");
+                releaseLocked(waiter);
+                expired = true;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 在并发数允许的范围内, 按有效优先级依次放行排队的请求, 需要持有锁
+     */
+    private void dispatch() {
+        boolean granted = false;
+        long now = System.nanoTime();
+        expireLeases(now);
+        while (mRunning < mPolicy.maxRequests) {
+            Waiter next = null;
+            long nextRank = 0;
+            for (Waiter waiter : mWaiting) {
+                Integer count = mRunningPerHost.get(waiter.mHost);
+                if (count != null && count >= mPolicy.maxRequestsPerHost) {
+                    continue;
+                }
+                long rank = waiter.mPriority.ordinal() - (now - waiter.mEnqueuedAt) / mAgingNanos;
+                if (next == null || rank < nextRank || (rank == nextRank && waiter.mSequence < next.mSequence)) {
+                    next = waiter;
+                    nextRank = rank;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            mWaiting.remove(next);
+            mLeased.add(next);
+            next.mGranted = true;
+            next.mGrantedAt = now;
+            mRunning++;
+            Integer count = mRunningPerHost.get(next.mHost);
+            mRunningPerHost.put(next.mHost, count == null ? 1 : count + 1);
+            granted = true;
+        }
+        if (granted) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * 正在排队的请求数
+     */
+    public synchronized int getQueuedCount() {
+        return mWaiting.size();
+    }
+
+    /**
+     * 正在进行的请求数
+     */
+    public synchronized int getRunningCount() {
+        return mRunning;
+    }
+
+    private static final class Waiter {
+        final RequestPriority mPriority;
+        final String mHost;
+        final long mEnqueuedAt;
+        final long mSequence;
+        boolean mGranted;
+        long mGrantedAt;
+        boolean mReleased;
+
+        Waiter(RequestPriority priority, String host, long enqueuedAt, long sequence) {
+            this.mPriority = priority;
+            this.mHost = host;
+            this.mEnqueuedAt = enqueuedAt;
+            this.mSequence = sequence;
+        }
+    }
+
+    /**
+     * 响应体读完或者关闭时让出名额, 名额已经因超时被收回时不会重复让出
+     */
+    private final class ReleasingBody extends ResponseBody {
+        private final ResponseBody mDelegate;
+        private final Waiter mWaiter;
+        private final AtomicBoolean mReleased = new AtomicBoolean();
+        private BufferedSource mSource;
+
+        ReleasingBody(ResponseBody delegate, Waiter waiter) {
+            this.mDelegate = delegate;
+            this.mWaiter = waiter;
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return mDelegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return mDelegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public synchronized BufferedSource source() {
+            if (mSource == null) {
+                mSource = Okio.buffer(new ForwardingSource(mDelegate.source()) {
+                    @Override
+                    public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                        long read;
+                        try {
+                            read = super.read(sink, byteCount);
+                        } catch (IOException e) {
+                            releaseOnce();
+                            throw e;
+                        }
+                        if (read == -1) {
+                            releaseOnce();
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            releaseOnce();
+                        }
+                    }
+                });
+            }
+            return mSource;
+        }
+
+        @Override
+        public void close() {
+            try {
+                mDelegate.close();
+            } finally {
+                releaseOnce();
+            }
+        }
+
+        private void releaseOnce() {
+            if (mReleased.compareAndSet(false, true)) {
+                release(mWaiter);
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.example.core.net.interceptor;
 import androidx.annotation.Nullable;
 
 import com.example.core.net.GlobalHttpHandler;
+import com.example.core.net.download.DownloadRequest;
 import com.example.core.net.log.FormatPrinter;
 import com.example.core.util.CharacterHandler;
 import com.example.core.util.EncoderUtils;
@@ -40,6 +41,8 @@ import okhttp3.Response;
 import okhttp3.ResponseBody;
 import okio.Buffer;
 import okio.BufferedSource;
+import retrofit2.Invocation;
+import retrofit2.http.Streaming;
 
 
 /**
@@ -56,6 +59,13 @@ public class RequestInterceptor implements Interceptor {
     FormatPrinter mPrinter;
     @Inject
     Level printLevel;
+    @Inject
+    ResponseSpiller mSpiller;
+
+    /**
+     * 响应体写入临时文件后, 日志中最多打印的字节数
+     */
+    private static final long SPILLED_PREVIEW_BYTES = 64 * 1024;
 
     @Inject
     public RequestInterceptor() {
@@ -185,11 +195,24 @@ public class RequestInterceptor implements Interceptor {
         long t2 = logResponse ? System.nanoTime() : 0;
 
         ResponseBody responseBody = originalResponse.body();
+        //@Streaming 的接口由调用方边下载边解析, 这里不再读取整个响应体
+        boolean parseable = responseBody != null && isParseable(responseBody.contentType()) && !isStreaming(request);
 
         //打印响应结果
         String bodyString = null;
-        if (responseBody != null && isParseable(responseBody.contentType())) {
-            bodyString = printResult(request, originalResponse, logResponse);
+        String printString = null;
+        if (parseable) {
+            if (mSpiller.exceedsThreshold(responseBody)) {
+                //响应体过大, 写入临时文件, 之后的日志与解析都从文件读取, 此时 handler 拿到的结果为 null
+                originalResponse = mSpiller.spill(originalResponse);
+                responseBody = originalResponse.body();
+                if (logResponse) {
+                    printString = printSpilledResult(originalResponse);
+                }
+            } else {
+                bodyString = printResult(request, originalResponse, logResponse);
+                printString = bodyString;
+            }
         }
 
         if (logResponse) {
@@ -200,9 +223,9 @@ public class RequestInterceptor implements Interceptor {
             final String message = originalResponse.message();
             final String url = originalResponse.request().url().toString();
 
-            if (responseBody != null && isParseable(responseBody.contentType())) {
+            if (parseable) {
                 mPrinter.printJsonResponse(TimeUnit.NANOSECONDS.toMillis(t2 - t1), isSuccessful,
-                        code, header, responseBody.contentType(), bodyString, segmentList, message, url);
+                        code, header, responseBody.contentType(), printString, segmentList, message, url);
             } else {
                 mPrinter.printFileResponse(TimeUnit.NANOSECONDS.toMillis(t2 - t1),
                         isSuccessful, code, header, segmentList, message, url);
@@ -251,6 +274,41 @@ public class RequestInterceptor implements Interceptor {
         }
     }
 
+    /**
+     * 打印写入临时文件的响应结果, 只读取开头的一部分
+     *
+     * @param response 响应体为 {@link SpilledResponseBody} 的 {@link Response}
+     * @return 截断后的响应结果
+     */
+    private String printSpilledResult(Response response) {
+        SpilledResponseBody responseBody = (SpilledResponseBody) response.body();
+        String encoding = response.headers().get("Content-Encoding");
+        String suffix = "\n...(" + responseBody.contentLength() + " bytes)";
+        if (encoding != null && !"identity".equalsIgnoreCase(encoding)) {
+            return encoding + suffix;
+        }
+        Charset charset = Charset.forName("UTF-8");
+        MediaType contentType = responseBody.contentType();
+        if (contentType != null) {
+            charset = contentType.charset(charset);
+        }
+        try {
+            return responseBody.preview(charset, SPILLED_PREVIEW_BYTES) + suffix;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "{\"error\": \"" + e.getMessage() + "\"}";
+        }
+    }
+
+    private static boolean isStreaming(Request request) {
+        //DownloadManager 直接把响应体写入文件
+        if (request.tag(DownloadRequest.class) != null) {
+            return true;
+        }
+        Invocation invocation = request.tag(Invocation.class);
+        return invocation != null && invocation.method().isAnnotationPresent(Streaming.class);
+    }
+
     /**
      * 解析服务器响应的内容
      *
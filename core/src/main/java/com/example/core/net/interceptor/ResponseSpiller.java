@@ -0,0 +1,172 @@
+package com.example.core.net.interceptor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.util.DataHelper;
+import com.example.core.util.LogUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * ================================================
+ * 响应体超过阈值时写入缓存目录下的临时文件, 之后的日志与解析都从文件读取, 内存中最多只保留阈值大小的数据
+ * <p>
+ * 临时文件在以下时机删除:
+ * 1. 响应体或其 source 被 close
+ * 2. 响应体没有 close 就被回收, 在下一次写临时文件时删除
+ * 3. 进程被杀死后残留的文件, 在第一次写临时文件前加锁清空, 清空完成前其他线程的写入会等待, 不会删除本次进程写入的文件
+ * <p>
+ * 阈值使用 {@link com.example.core.di.module.GlobalConfigModule.Builder#responseSpillThreshold(long)} 配置
+ * <p>
+ * 请求带有 {@link Listener} 标记时, 写完临时文件后立即回调, 之后的读取不再占用网络
+ * ================================================
+ */
+@Singleton
+public class ResponseSpiller {
+    private static final String TAG = "ResponseSpiller";
+    private static final String DIR_NAME = "ResponseSpill";
+
+    private final File mDir;
+    private final long mThreshold;
+    private final ReferenceQueue<Object> mQueue = new ReferenceQueue<>();
+    /**
+     * 持有 PhantomReference 本身, 否则引用会先于响应体被回收
+     */
+    private final Set<FileReference> mReferences = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    /**
+     * 清空残留文件后的目录, 只清空一次
+     */
+    private volatile File mSweptDir;
+
+    /**
+     * 响应体已经完整写入临时文件时的回调, 通过 {@link okhttp3.Request.Builder#tag(Class, Object)} 设置在请求上
+     * <p>
+     * 请求的标记会一直传到网络拦截器, 不受 BridgeInterceptor 对 gzip 响应体重新包装的影响
+     */
+    interface Listener {
+        void onSpilled();
+    }
+
+    @Inject
+    public ResponseSpiller(File cacheDir, @Named("ResponseSpillThreshold") long threshold) {
+        this.mDir = new File(cacheDir, DIR_NAME);
+        this.mThreshold = threshold;
+    }
+
+    /**
+     * 判断响应体是否超过阈值, 最多读取阈值大小的数据到内存中, 不会消耗响应体
+     */
+    public boolean exceedsThreshold(@NonNull ResponseBody body) throws IOException {
+        long length = body.contentLength();
+        if (length >= 0) {
+            return length > mThreshold;
+        }
+        //chunked 等未知长度的响应, 读到阈值再多一个字节就说明超过了
+        return body.source().request(mThreshold + 1);
+    }
+
+    /**
+     * 把响应体 (包括已经读入内存的部分) 写入临时文件, 返回使用文件作为响应体的 {@link Response}
+     */
+    @NonNull
+    public Response spill(@NonNull Response response) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        reap();
+        File dir = sweptDir();
+        File file = File.createTempFile("spill-", ".tmp", dir);
+        try (BufferedSource source = body.source();
+             BufferedSink sink = Okio.buffer(Okio.sink(file))) {
+            sink.writeAll(source);
+        } catch (IOException | RuntimeException e) {
+            delete(file);
+            throw e;
+        }
+        SpilledResponseBody spilled = new SpilledResponseBody(body.contentType(), file);
+        mReferences.add(new FileReference(spilled, file, mQueue));
+        Listener listener = response.request().tag(Listener.class);
+        if (listener != null) {
+            listener.onSpilled();
+        }
+        return response.newBuilder()
+                .body(spilled)
+                .build();
+    }
+
+    /**
+     * 第一次调用时创建目录并清空上一个进程残留的文件, 完成后才返回, 保证不会删除本次进程写入的临时文件
+     */
+    private File sweptDir() {
+        File dir = mSweptDir;
+        if (dir == null) {
+            synchronized (this) {
+                dir = mSweptDir;
+                if (dir == null) {
+                    dir = DataHelper.makeDirs(mDir);
+                    deleteAll(dir);
+                    mSweptDir = dir;
+                }
+            }
+        }
+        return dir;
+    }
+
+    /**
+     * 删除已经被回收但没有 close 的响应体对应的临时文件
+     */
+    private void reap() {
+        Reference<?> reference;
+        while ((reference = mQueue.poll()) != null) {
+            FileReference fileReference = (FileReference) reference;
+            mReferences.remove(fileReference);
+            if (fileReference.mFile.exists()) {
+                LogUtils.warnInfo(TAG, "response body was not closed: " + fileReference.mFile.getName());
+                delete(fileReference.mFile);
+            }
+        }
+    }
+
+    private static void deleteAll(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                delete(file);
+            }
+        }
+    }
+
+    static void delete(@Nullable File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            LogUtils.warnInfo(TAG, "failed to delete " + file);
+        }
+    }
+
+    private static final class FileReference extends PhantomReference<Object> {
+        final File mFile;
+
+        FileReference(Object referent, File file, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.mFile = file;
+        }
+    }
+}
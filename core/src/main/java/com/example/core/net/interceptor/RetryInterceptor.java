@@ -0,0 +1,198 @@
+package com.example.core.net.interceptor;
+
+import androidx.annotation.NonNull;
+
+import com.example.core.net.CircuitBreaker;
+import com.example.core.net.CircuitBreakerOpenException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * ================================================
+ * 对幂等请求 (GET、HEAD、OPTIONS、PUT、DELETE) 进行指数退避 + 随机抖动的重试, 并按域名熔断
+ * <p>
+ * 重试受重试预算限制: 每次成功的请求存入 {@link RetryPolicy#retryBudgetRatio} 个令牌, 每次重试消耗一个令牌,
+ * 后端整体异常时令牌很快耗尽, 不会因为重试把后端压垮
+ * <p>
+ * 熔断对所有请求生效, 域名熔断时直接抛出 {@link CircuitBreakerOpenException}, 不再占用线程等待超时
+ * ================================================
+ */
+public class RetryInterceptor implements Interceptor {
+    private static final long TOKEN_SCALE = 1000;
+
+    private final RetryPolicy mPolicy;
+    private final CircuitBreaker.Listener mListener;
+    private final Map<String, CircuitBreaker> mBreakers = new ConcurrentHashMap<>();
+    /**
+     * 重试令牌, 放大 {@link #TOKEN_SCALE} 倍存储
+     */
+    private final AtomicLong mTokens;
+
+    public RetryInterceptor(@NonNull RetryPolicy policy, @NonNull CircuitBreaker.Listener listener) {
+        this.mPolicy = policy;
+        this.mListener = listener;
+        this.mTokens = new AtomicLong(policy.maxRetryTokens * TOKEN_SCALE);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        CircuitBreaker breaker = breaker(request.url().host());
+        boolean idempotent = isIdempotent(request.method());
+        int attempt = 0;
+        while (true) {
+            CircuitBreaker.Permit permit = breaker.tryAcquire();
+            if (permit == null) {
+                throw new CircuitBreakerOpenException(request.url().host());
+            }
+            Response response = null;
+            IOException failure = null;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                if (response == null && failure == null) {
+                    //抛出了 RuntimeException 等, 不计入成败, 但要释放探测名额
+                    breaker.release(permit);
+                }
+            }
+            if (failure != null) {
+                if (chain.call().isCanceled()) {
+                    //主动取消的请求与域名是否可用无关
+                    breaker.release(permit);
+                    throw failure;
+                }
+                breaker.onFailure(permit);
+                if (!idempotent || !shouldRetry(attempt)) {
+                    throw failure;
+                }
+                backoff(chain, attempt++, -1);
+                continue;
+            }
+            if (!isRetryable(response.code())) {
+                breaker.onSuccess(permit);
+                depositToken();
+                return response;
+            }
+            breaker.onFailure(permit);
+            if (!idempotent || !shouldRetry(attempt)) {
+                return response;
+            }
+            long retryAfterMs = retryAfter(response);
+            response.close();
+            backoff(chain, attempt++, retryAfterMs);
+        }
+    }
+
+    @NonNull
+    private CircuitBreaker breaker(String host) {
+        CircuitBreaker breaker = mBreakers.get(host);
+        if (breaker == null) {
+            CircuitBreaker created = new CircuitBreaker(host, mPolicy.failureThreshold, mPolicy.openDurationMs, mListener);
+            breaker = mBreakers.putIfAbsent(host, created);
+            if (breaker == null) {
+                breaker = created;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * 获取域名当前的熔断状态
+     */
+    @NonNull
+    public CircuitBreaker.State getState(@NonNull String host) {
+        CircuitBreaker breaker = mBreakers.get(host);
+        return breaker == null ? CircuitBreaker.State.CLOSED : breaker.getState();
+    }
+
+    private boolean shouldRetry(int attempt) {
+        return attempt < mPolicy.maxRetries && withdrawToken();
+    }
+
+    private void depositToken() {
+        long max = mPolicy.maxRetryTokens * TOKEN_SCALE;
+        long deposit = (long) (mPolicy.retryBudgetRatio * TOKEN_SCALE);
+        long current;
+        do {
+            current = mTokens.get();
+            if (current >= max) {
+                return;
+            }
+        } while (!mTokens.compareAndSet(current, Math.min(max, current + deposit)));
+    }
+
+    private boolean withdrawToken() {
+        long current;
+        do {
+            current = mTokens.get();
+            if (current < TOKEN_SCALE) {
+                return false;
+            }
+        } while (!mTokens.compareAndSet(current, current - TOKEN_SCALE));
+        return true;
+    }
+
+    /**
+     * 等待 full jitter 的退避时间: [0, min(maxDelay, baseDelay * 2^attempt)) 之间的随机值
+     * 服务器返回了 Retry-After 时以其为准 (不超过最大间隔)
+     */
+    private void backoff(Chain chain, int attempt, long retryAfterMs) throws IOException {
+        long delay;
+        if (retryAfterMs >= 0) {
+            delay = Math.min(retryAfterMs, mPolicy.maxDelayMs);
+        } else {
+            long cap = Math.min(mPolicy.maxDelayMs, mPolicy.baseDelayMs << Math.min(attempt, 20));
+            delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("retry interrupted");
+        }
+        if (chain.call().isCanceled()) {
+            throw new IOException("Canceled");
+        }
+    }
+
+    private static long retryAfter(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    private static boolean isIdempotent(String method) {
+        switch (method) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+            case "PUT":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+}
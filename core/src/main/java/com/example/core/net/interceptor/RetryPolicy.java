@@ -0,0 +1,81 @@
+package com.example.core.net.interceptor;
+
+import com.example.core.util.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ================================================
+ * {@link RetryInterceptor} 的重试与熔断配置
+ * 使用 {@link com.example.core.di.module.GlobalConfigModule.Builder#retryPolicy(RetryPolicy)} 方法配置
+ * ================================================
+ */
+public final class RetryPolicy {
+    final int maxRetries;
+    final long baseDelayMs;
+    final long maxDelayMs;
+    final double retryBudgetRatio;
+    final int maxRetryTokens;
+    final int failureThreshold;
+    final long openDurationMs;
+
+    private RetryPolicy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.baseDelayMs = builder.baseDelayMs;
+        this.maxDelayMs = builder.maxDelayMs;
+        this.retryBudgetRatio = builder.retryBudgetRatio;
+        this.maxRetryTokens = builder.maxRetryTokens;
+        this.failureThreshold = builder.failureThreshold;
+        this.openDurationMs = builder.openDurationMs;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private int maxRetries = 2;
+        private long baseDelayMs = 100;
+        private long maxDelayMs = TimeUnit.SECONDS.toMillis(2);
+        private double retryBudgetRatio = 0.1;
+        private int maxRetryTokens = 10;
+        private int failureThreshold = 5;
+        private long openDurationMs = TimeUnit.SECONDS.toMillis(10);
+
+        private Builder() {
+        }
+
+        public Builder maxRetries(int maxRetries) {//单个请求的最大重试次数
+            Preconditions.checkArgument(maxRetries >= 0, "maxRetries must be >= 0");
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Builder backoff(long baseDelay, long maxDelay, TimeUnit unit) {//指数退避的初始间隔与最大间隔, 实际间隔会加上随机抖动
+            Preconditions.checkArgument(baseDelay > 0 && maxDelay >= baseDelay, "invalid backoff");
+            this.baseDelayMs = unit.toMillis(baseDelay);
+            this.maxDelayMs = unit.toMillis(maxDelay);
+            return this;
+        }
+
+        public Builder retryBudget(double ratio, int maxRetryTokens) {//重试预算: 每次成功的请求可换取 ratio 次重试, 最多积攒 maxRetryTokens 次
+            Preconditions.checkArgument(ratio >= 0, "ratio must be >= 0");
+            Preconditions.checkArgument(maxRetryTokens >= 0, "maxRetryTokens must be >= 0");
+            this.retryBudgetRatio = ratio;
+            this.maxRetryTokens = maxRetryTokens;
+            return this;
+        }
+
+        public Builder circuitBreaker(int failureThreshold, long openDuration, TimeUnit unit) {//同一域名连续失败多少次后熔断, 以及熔断时长
+            Preconditions.checkArgument(failureThreshold > 0, "failureThreshold must be > 0");
+            Preconditions.checkArgument(openDuration > 0, "openDuration must be > 0");
+            this.failureThreshold = failureThreshold;
+            this.openDurationMs = unit.toMillis(openDuration);
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.core.net.interceptor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * 以临时文件作为内容的响应体, close 时删除文件, 由 {@link ResponseSpiller} 创建
+ */
+final class SpilledResponseBody extends ResponseBody {
+    private final MediaType mContentType;
+    private final File mFile;
+    private final long mLength;
+    private BufferedSource mSource;
+    private boolean mClosed;
+
+    SpilledResponseBody(@Nullable MediaType contentType, File file) {
+        this.mContentType = contentType;
+        this.mFile = file;
+        this.mLength = file.length();
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return mContentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return mLength;
+    }
+
+    @NonNull
+    @Override
+    public synchronized BufferedSource source() {
+        if (mSource == null) {
+            try {
+                mSource = Okio.buffer(new ForwardingSource(Okio.source(mFile)) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            ResponseSpiller.delete(mFile);
+                        }
+                    }
+                });
+            } catch (FileNotFoundException e) {
+                throw new IllegalStateException("spilled response body has been closed", e);
+            }
+        }
+        return mSource;
+    }
+
+    /**
+     * 读取开头的一部分用于打印日志, 不影响 {@link #source()}
+     *
+     * @param maxBytes 最多读取的字节数
+     */
+    @NonNull
+    String preview(Charset charset, long maxBytes) throws IOException {
+        try (BufferedSource source = Okio.buffer(Okio.source(mFile))) {
+            Buffer buffer = new Buffer();
+            long read;
+            do {
+                read = source.read(buffer, maxBytes - buffer.size());
+            } while (read != -1 && buffer.size() < maxBytes);
+            return buffer.readString(charset);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        if (mSource != null) {
+            try {
+                mSource.close();
+            } catch (IOException ignored) {
+            }
+        }
+        ResponseSpiller.delete(mFile);
+    }
+}
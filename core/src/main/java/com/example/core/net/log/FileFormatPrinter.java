@@ -0,0 +1,87 @@
+package com.example.core.net.log;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.util.DataHelper;
+
+import java.io.File;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+
+/**
+ * ================================================
+ * 将网络请求和响应信息以二进制记录持久化到 {@link HttpLogStore}, 解决 Logcat 输出丢失、截断以及打印慢的问题
+ * 默认保存在 {@link DataHelper#getCacheFile(Context)} 下的 HttpLog 文件夹中, 可通过 {@link #getStore()} 导出最近的记录
+ * <p>
+ * 使用 {@link com.example.core.di.module.GlobalConfigModule.Builder#formatPrinter(FormatPrinter)} 方法配置
+ * ================================================
+ */
+public class FileFormatPrinter implements FormatPrinter {
+    /**
+     * 默认保存的请求体或响应体的最大长度, 超出部分截断
+     */
+    public static final int DEFAULT_MAX_BODY_LENGTH = 4 * 1024;
+
+    private final HttpLogStore mStore;
+    private final boolean mLogBody;
+    private final int mMaxBodyLength;
+
+    public FileFormatPrinter(@NonNull Context context) {
+        this(new HttpLogStore(new File(DataHelper.getCacheFile(context), "HttpLog")), true, DEFAULT_MAX_BODY_LENGTH);
+    }
+
+    /**
+     * @param store         {@link HttpLogStore}
+     * @param logBody       是否保存请求体和响应体
+     * @param maxBodyLength 请求体和响应体保存的最大长度
+     */
+    public FileFormatPrinter(@NonNull HttpLogStore store, boolean logBody, int maxBodyLength) {
+        this.mStore = store;
+        this.mLogBody = logBody;
+        this.mMaxBodyLength = maxBodyLength;
+    }
+
+    @NonNull
+    public HttpLogStore getStore() {
+        return mStore;
+    }
+
+    @Override
+    public void printJsonRequest(@NonNull Request request, @NonNull String bodyString) {
+        mStore.append(new HttpLogRecord(HttpLogRecord.TYPE_REQUEST, System.currentTimeMillis(), request.url().toString(),
+                request.method(), 0, false, 0, null, request.headers().toString(), null, truncate(bodyString)));
+    }
+
+    @Override
+    public void printFileRequest(@NonNull Request request) {
+        mStore.append(new HttpLogRecord(HttpLogRecord.TYPE_REQUEST, System.currentTimeMillis(), request.url().toString(),
+                request.method(), 0, false, 0, null, request.headers().toString(), null, null));
+    }
+
+    @Override
+    public void printJsonResponse(long chainMs, boolean isSuccessful, int code, @NonNull String headers, @Nullable MediaType contentType,
+                                  @Nullable String bodyString, @NonNull List<String> segments, @NonNull String message, @NonNull String responseUrl) {
+        mStore.append(new HttpLogRecord(HttpLogRecord.TYPE_RESPONSE, System.currentTimeMillis(), responseUrl, null, code,
+                isSuccessful, chainMs, message, headers, contentType == null ? null : contentType.toString(), truncate(bodyString)));
+    }
+
+    @Override
+    public void printFileResponse(long chainMs, boolean isSuccessful, int code, @NonNull String headers,
+                                  @NonNull List<String> segments, @NonNull String message, @NonNull String responseUrl) {
+        mStore.append(new HttpLogRecord(HttpLogRecord.TYPE_RESPONSE, System.currentTimeMillis(), responseUrl, null, code,
+                isSuccessful, chainMs, message, headers, null, null));
+    }
+
+    @Nullable
+    private String truncate(@Nullable String body) {
+        if (!mLogBody || body == null) {
+            return null;
+        }
+        return body.length() > mMaxBodyLength ? body.substring(0, mMaxBodyLength) : body;
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.core.net.log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import okio.Buffer;
+import okio.ByteString;
+
+/**
+ * ================================================
+ * {@link HttpLogStore} 中的一条请求/响应记录
+ * <p>
+ * 记录在磁盘上的格式为:
+ * [int 类型][long 时间戳][String url][String method][int code][boolean success][long 耗时]
+ * [String message][String headers][String contentType][String body]
+ * 其中 String 以 [int 字节长度][UTF-8 字节] 存储, 长度为 -1 表示 null
+ * ================================================
+ */
+public final class HttpLogRecord {
+    public static final int TYPE_REQUEST = 1;
+    public static final int TYPE_RESPONSE = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int type;
+    private final long timestamp;
+    private final String url;
+    private final String method;
+    private final int code;
+    private final boolean success;
+    private final long tookMs;
+    private final String message;
+    private final String headers;
+    private final String contentType;
+    private final String body;
+
+    public HttpLogRecord(int type, long timestamp, @Nullable String url, @Nullable String method, int code, boolean success,
+                         long tookMs, @Nullable String message, @Nullable String headers, @Nullable String contentType,
+                         @Nullable String body) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.url = url;
+        this.method = method;
+        this.code = code;
+        this.success = success;
+        this.tookMs = tookMs;
+        this.message = message;
+        this.headers = headers;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    /**
+     * 序列化为紧凑的二进制格式
+     *
+     * @return 记录内容 (不含长度前缀)
+     */
+    @NonNull
+    byte[] encode() {
+        Buffer buffer = new Buffer();
+        buffer.writeInt(type);
+        buffer.writeLong(timestamp);
+        writeString(buffer, url);
+        writeString(buffer, method);
+        buffer.writeInt(code);
+        buffer.writeByte(success ? 1 : 0);
+        buffer.writeLong(tookMs);
+        writeString(buffer, message);
+        writeString(buffer, headers);
+        writeString(buffer, contentType);
+        writeString(buffer, body);
+        return buffer.readByteArray();
+    }
+
+    /**
+     * 从 {@code source} 的当前位置读取一条记录
+     *
+     * @param source 只读的记录内容, 读取完成后 position 指向记录末尾
+     * @return {@link HttpLogRecord}
+     * @throws EOFException 记录已损坏
+     */
+    @NonNull
+    static HttpLogRecord decode(@NonNull ByteBuffer source) throws EOFException {
+        try {
+            int type = source.getInt();
+            long timestamp = source.getLong();
+            String url = readString(source);
+            String method = readString(source);
+            int code = source.getInt();
+            boolean success = source.get() == 1;
+            long tookMs = source.getLong();
+            String message = readString(source);
+            String headers = readString(source);
+            String contentType = readString(source);
+            String body = readString(source);
+            return new HttpLogRecord(type, timestamp, url, method, code, success, tookMs, message, headers, contentType, body);
+        } catch (RuntimeException e) {
+            EOFException exception = new EOFException("Broken http log record");
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+
+    private static void writeString(Buffer buffer, @Nullable String value) {
+        if (value == null) {
+            buffer.writeInt(-1);
+            return;
+        }
+        ByteString bytes = ByteString.encodeUtf8(value);
+        buffer.writeInt(bytes.size());
+        buffer.write(bytes);
+    }
+
+    @Nullable
+    private static String readString(ByteBuffer source) {
+        int length = source.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * 转换为一行 Json, 用于导出 JSONL 格式的文件
+     *
+     * @return Json 字符串
+     */
+    @NonNull
+    public String toJson() {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("type", type == TYPE_REQUEST ? "request" : "response");
+            json.put("timestamp", timestamp);
+            json.put("url", url);
+            json.put("method", method);
+            if (type == TYPE_RESPONSE) {
+                json.put("code", code);
+                json.put("success", success);
+                json.put("tookMs", tookMs);
+                json.put("message", message);
+                json.put("contentType", contentType);
+            }
+            json.put("headers", headers);
+            json.put("body", body);
+        } catch (JSONException e) {
+            e.printStackTrace();
+        }
+        return json.toString();
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Nullable
+    public String getUrl() {
+        return url;
+    }
+
+    @Nullable
+    public String getMethod() {
+        return method;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public long getTookMs() {
+        return tookMs;
+    }
+
+    @Nullable
+    public String getMessage() {
+        return message;
+    }
+
+    @Nullable
+    public String getHeaders() {
+        return headers;
+    }
+
+    @Nullable
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Nullable
+    public String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpLogRecord{" +
+                "type=" + type +
+                ", timestamp=" + timestamp +
+                ", url='" + url + '\'' +
+                ", method='" + method + '\'' +
+                ", code=" + code +
+                ", tookMs=" + tookMs +
+                '}';
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.core.net.log;
+
+import androidx.annotation.NonNull;
+
+import com.example.core.util.DataHelper;
+import com.example.core.util.Preconditions;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ================================================
+ * 以内存映射 (mmap) 的分段文件持久化网络日志, 每个分段大小固定, 写满后滚动到下一个分段,
+ * 所有分段的总大小不超过磁盘预算, 超出时删除最旧的分段
+ * <p>
+ * 分段文件格式: [int MAGIC][int VERSION] 之后为若干条记录,
+ * 每条记录为 [int 长度][byte 提交标记][记录内容], 提交标记为 1 时表示该记录已完整写入;
+ * 长度在预留空间后立即写入, 读取时 (包括进程崩溃后) 通过长度跳过还没有提交的记录, 不影响后面已提交的记录
+ * <p>
+ * 写入时通过 CAS 在当前分段中预留空间, 多个 OkHttp 线程可以无锁并发写入, 只有滚动分段时才会加锁
+ * ================================================
+ */
+public final class HttpLogStore {
+    private static final int MAGIC = 0x48544c47;//"HTLG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 5;
+    private static final byte COMMITTED = 1;
+    private static final String SEGMENT_PREFIX = "http-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;//1MB
+    public static final long DEFAULT_MAX_DISK_SIZE = 8 * 1024 * 1024;//8MB
+
+    private final File mDirectory;
+    private final int mSegmentSize;
+    private final int mMaxSegments;
+    private volatile Segment mCurrent;
+
+    public HttpLogStore(@NonNull File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_DISK_SIZE);
+    }
+
+    /**
+     * @param directory   分段文件存放目录
+     * @param segmentSize 单个分段的大小
+     * @param maxDiskSize 所有分段的总磁盘预算
+     */
+    public HttpLogStore(@NonNull File directory, int segmentSize, long maxDiskSize) {
+        Preconditions.checkNotNull(directory, "directory == null");
+        Preconditions.checkArgument(segmentSize > HEADER_SIZE + RECORD_HEADER_SIZE, "segmentSize too small");
+        Preconditions.checkArgument(maxDiskSize >= segmentSize, "maxDiskSize must be >= segmentSize");
+        this.mDirectory = DataHelper.makeDirs(directory);
+        this.mSegmentSize = segmentSize;
+        this.mMaxSegments = (int) Math.max(1, maxDiskSize / segmentSize);
+    }
+
+    /**
+     * 追加一条记录, 记录过大 (超过单个分段容量) 时直接丢弃
+     *
+     * @param record {@link HttpLogRecord}
+     * @return 是否写入成功
+     */
+    public boolean append(@NonNull HttpLogRecord record) {
+        byte[] content = record.encode();
+        int size = RECORD_HEADER_SIZE + content.length;
+        if (size > mSegmentSize - HEADER_SIZE) {
+            return false;
+        }
+        try {
+            while (true) {
+                Segment segment = current();
+                int offset = segment.reserve(size);
+                if (offset >= 0) {
+                    segment.commit(offset, content);
+                    return true;
+                }
+                roll(segment);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private Segment current() throws IOException {
+        Segment segment = mCurrent;
+        if (segment == null) {
+            synchronized (this) {
+                segment = mCurrent;
+                if (segment == null) {
+                    segment = Segment.create(nextSegmentFile(), mSegmentSize);
+                    mCurrent = segment;
+                    trim();
+                }
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * 当前分段已写满, 滚动到新的分段, 只有第一个发现写满的线程会真正创建分段
+     */
+    private synchronized void roll(Segment full) throws IOException {
+        if (mCurrent != full) {
+            return;
+        }
+        full.buffer.force();
+        mCurrent = Segment.create(nextSegmentFile(), mSegmentSize);
+        trim();
+    }
+
+    /**
+     * 删除超出磁盘预算的最旧分段
+     */
+    private void trim() {
+        File[] segments = listSegments(mDirectory);
+        for (int i = 0; i < segments.length - mMaxSegments; i++) {
+            segments[i].delete();
+        }
+    }
+
+    private File nextSegmentFile() {
+        File[] segments = listSegments(mDirectory);
+        long sequence = 0;
+        if (segments.length > 0) {
+            sequence = parseSequence(segments[segments.length - 1]) + 1;
+        }
+        return new File(mDirectory, String.format(Locale.US, "%s%019d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 将当前分段已写入的内容刷到磁盘
+     */
+    public void flush() {
+        Segment segment = mCurrent;
+        if (segment != null) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * 读取所有分段中的记录, 按写入顺序返回
+     *
+     * @return 记录集合
+     */
+    @NonNull
+    public List<HttpLogRecord> readAll() {
+        return readRecent(Integer.MAX_VALUE);
+    }
+
+    /**
+     * 读取最近的 {@code limit} 条记录, 按写入顺序返回
+     *
+     * @param limit 最大条数
+     * @return 记录集合
+     */
+    @NonNull
+    public List<HttpLogRecord> readRecent(int limit) {
+        List<HttpLogRecord> result = new ArrayList<>();
+        File[] segments = listSegments(mDirectory);
+        //从最新的分段往前读, 直到满足条数
+        for (int i = segments.length - 1; i >= 0 && result.size() < limit; i--) {
+            List<HttpLogRecord> records = readSegment(segments[i]);
+            int from = Math.max(0, records.size() - (limit - result.size()));
+            result.addAll(0, records.subList(from, records.size()));
+        }
+        return result;
+    }
+
+    /**
+     * 以 JSONL 格式 (每行一条 Json) 导出最近的记录
+     *
+     * @param out   导出文件
+     * @param limit 最大条数
+     * @return 导出的条数
+     * @throws IOException
+     */
+    public int export(@NonNull File out, int limit) throws IOException {
+        flush();
+        List<HttpLogRecord> records = readRecent(limit);
+        Writer writer = new OutputStreamWriter(new FileOutputStream(out), "UTF-8");
+        try {
+            for (HttpLogRecord record : records) {
+                writer.write(record.toJson());
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+        return records.size();
+    }
+
+    /**
+     * 删除所有分段
+     */
+    public synchronized void clear() {
+        mCurrent = null;
+        for (File segment : listSegments(mDirectory)) {
+            segment.delete();
+        }
+    }
+
+    private static List<HttpLogRecord> readSegment(File file) {
+        List<HttpLogRecord> records = new ArrayList<>();
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "r");
+            ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                return records;
+            }
+            int position = HEADER_SIZE;
+            while (position + RECORD_HEADER_SIZE <= buffer.limit()) {
+                int size = buffer.getInt(position);
+                if (size < RECORD_HEADER_SIZE || position + size > buffer.limit()) {
+                    //未预留的区域
+                    break;
+                }
+                if (buffer.get(position + 4) == COMMITTED) {
+                    ByteBuffer slice = buffer.duplicate();
+                    slice.position(position + RECORD_HEADER_SIZE);
+                    slice.limit(position + size);
+                    try {
+                        records.add(HttpLogRecord.decode(slice));
+                    } catch (EOFException e) {
+                        e.printStackTrace();
+                    }
+                }
+                position += size;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+        return records;
+    }
+
+    private static File[] listSegments(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        //文件名中的序号定长, 按文件名排序即按写入顺序排序
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static long parseSequence(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 一个已映射到内存的分段
+     */
+    private static final class Segment {
+        final MappedByteBuffer buffer;
+        final AtomicInteger position = new AtomicInteger(HEADER_SIZE);
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        static Segment create(File file, int size) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(size);
+                MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                return new Segment(buffer);
+            } finally {
+                //映射建立后关闭文件不影响映射
+                raf.close();
+            }
+        }
+
+        /**
+         * 无锁预留 {@code size} 字节, 预留成功后立即写入长度, 读取时可以跳过这条还没有提交的记录
+         *
+         * @return 预留区域的起始位置, 空间不足时返回 -1
+         */
+        int reserve(int size) {
+            int capacity = buffer.capacity();
+            while (true) {
+                int start = position.get();
+                if (start + size > capacity) {
+                    return -1;
+                }
+                if (position.compareAndSet(start, start + size)) {
+                    buffer.putInt(start, size);
+                    return start;
+                }
+            }
+        }
+
+        void commit(int offset, byte[] content) {
+            ByteBuffer target = buffer.duplicate();
+            target.position(offset + RECORD_HEADER_SIZE);
+            target.put(content);
+            //内容写完后再写提交标记, 读取时跳过未提交的记录
+            buffer.put(offset + 4, COMMITTED);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.core.net.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ================================================
+ * 记录每个 IP 地址建立连接的耗时 (指数加权平均) 和失败情况, 失败的影响随时间按半衰期衰减
+ * {@link com.example.core.net.ApiDns} 根据这里的统计对解析结果排序, 使连接优先使用实测最快的地址
+ * ================================================
+ */
+public final class AddressStats {
+    /**
+     * 没有统计数据的地址按这个耗时估算
+     */
+    private static final double UNKNOWN_RTT_MS = 200;
+    /**
+     * 每次失败增加的耗时惩罚
+     */
+    private static final double FAILURE_PENALTY_MS = 3000;
+    /**
+     * 失败惩罚的半衰期
+     */
+    private static final long FAILURE_HALF_LIFE = TimeUnit.SECONDS.toNanos(60);
+    /**
+     * 新样本的权重
+     */
+    private static final double ALPHA = 0.3;
+    /**
+     * 平均耗时相对上次发布的值变化超过这个比例 (且不少于 {@link #MIN_SIGNIFICANT_MS}) 时才更新版本
+     */
+    private static final double SIGNIFICANT_RATIO = 0.2;
+    private static final double MIN_SIGNIFICANT_MS = 10;
+
+    private final Map<InetAddress, Stat> mStats = new ConcurrentHashMap<>();
+    private final AtomicLong mVersion = new AtomicLong();
+
+    /**
+     * 记录一次成功的连接
+     *
+     * @param address  地址
+     * @param rttNanos 建立连接的耗时 (单位纳秒)
+     */
+    public void recordSuccess(@NonNull InetAddress address, long rttNanos) {
+        if (stat(address).success(rttNanos / 1e6)) {
+            mVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * 记录一次失败的连接
+     *
+     * @param address 地址
+     */
+    public void recordFailure(@NonNull InetAddress address) {
+        stat(address).failure(System.nanoTime());
+        mVersion.incrementAndGet();
+    }
+
+    /**
+     * 统计数据的版本, 用于判断排序结果是否需要更新; 失败以及平均耗时的明显变化才会改变版本,
+     * 每次连接带来的微小波动不会使排序结果失效
+     */
+    public long version() {
+        return mVersion.get();
+    }
+
+    /**
+     * 地址是否已经有连接耗时的测量数据
+     */
+    public boolean isMeasured(@NonNull InetAddress address) {
+        Stat stat = mStats.get(address);
+        return stat != null && stat.isMeasured();
+    }
+
+    /**
+     * 获取地址的综合得分 (估算的连接耗时, 单位毫秒), 越小越好
+     *
+     * @param address 地址
+     * @return 得分
+     */
+    public double score(@NonNull InetAddress address) {
+        Stat stat = mStats.get(address);
+        return stat == null ? UNKNOWN_RTT_MS : stat.score(System.nanoTime());
+    }
+
+    /**
+     * 按得分从小到大排序, 得分相同的保持原有顺序
+     *
+     * @param addresses 地址集合
+     * @return 排序后的新集合
+     */
+    @NonNull
+    public List<InetAddress> sort(@NonNull List<InetAddress> addresses) {
+        List<InetAddress> result = new ArrayList<>(addresses);
+        if (result.size() > 1 && !mStats.isEmpty()) {
+            final Map<InetAddress, Double> scores = new HashMap<>();
+            for (InetAddress address : result) {
+                scores.put(address, score(address));
+            }
+            //Collections.sort 是稳定排序
+            Collections.sort(result, (o1, o2) -> Double.compare(scores.get(o1), scores.get(o2)));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * 清空所有统计, 如网络切换时
+     */
+    public void clear() {
+        mStats.clear();
+        mVersion.incrementAndGet();
+    }
+
+    private Stat stat(InetAddress address) {
+        Stat stat = mStats.get(address);
+        if (stat == null) {
+            Stat created = new Stat();
+            stat = mStats.putIfAbsent(address, created);
+            if (stat == null) {
+                stat = created;
+            }
+        }
+        return stat;
+    }
+
+    private static final class Stat {
+        private double rttMs = -1;
+        /**
+         * 上次更新版本时的平均耗时
+         */
+        private double publishedRttMs = -1;
+        private double failures;
+        private long lastFailureAt;
+
+        /**
+         * @return 平均耗时是否有明显变化
+         */
+        synchronized boolean success(double sampleMs) {
+            rttMs = rttMs < 0 ? sampleMs : rttMs + ALPHA * (sampleMs - rttMs);
+            if (publishedRttMs < 0
+                    || Math.abs(rttMs - publishedRttMs) > Math.max(MIN_SIGNIFICANT_MS, publishedRttMs * SIGNIFICANT_RATIO)) {
+                publishedRttMs = rttMs;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean isMeasured() {
+            return rttMs >= 0;
+        }
+
+        synchronized void failure(long now) {
+            failures = decayedFailures(now) + 1;
+            lastFailureAt = now;
+        }
+
+        synchronized double score(long now) {
+            return (rttMs < 0 ? UNKNOWN_RTT_MS : rttMs) + decayedFailures(now) * FAILURE_PENALTY_MS;
+        }
+
+        private double decayedFailures(long now) {
+            if (failures == 0) {
+                return 0;
+            }
+            return failures * Math.pow(0.5, (double) (now - lastFailureAt) / FAILURE_HALF_LIFE);
+        }
+    }
+}
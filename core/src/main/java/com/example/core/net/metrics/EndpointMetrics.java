@@ -0,0 +1,127 @@
+package com.example.core.net.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ================================================
+ * 单个接口 (路径模板) 的各阶段耗时统计
+ * ================================================
+ */
+public final class EndpointMetrics {
+
+    /**
+     * 网络请求的各个阶段
+     */
+    public enum Phase {
+        /**
+         * 域名解析
+         */
+        DNS,
+        /**
+         * 建立连接 (包含 TLS 握手)
+         */
+        CONNECT,
+        /**
+         * TLS 握手
+         */
+        TLS,
+        /**
+         * 写入请求头和请求体
+         */
+        REQUEST_WRITE,
+        /**
+         * 请求写完到收到响应头 (首字节耗时)
+         */
+        TTFB,
+        /**
+         * 读取响应体
+         */
+        BODY_READ,
+        /**
+         * 整个请求
+         */
+        TOTAL
+    }
+
+    private final String mEndpoint;
+    private final LatencyHistogram[] mHistograms = new LatencyHistogram[Phase.values().length];
+    private final AtomicLong mFailures = new AtomicLong();
+    private final AtomicLong mResponses = new AtomicLong();
+    private final AtomicLong mResponseBytes = new AtomicLong();
+
+    EndpointMetrics(@NonNull String endpoint) {
+        this.mEndpoint = endpoint;
+        for (int i = 0; i < mHistograms.length; i++) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    @NonNull
+    public String getEndpoint() {
+        return mEndpoint;
+    }
+
+    @NonNull
+    public LatencyHistogram histogram(@NonNull Phase phase) {
+        return mHistograms[phase.ordinal()];
+    }
+
+    void record(Phase phase, long nanos) {
+        mHistograms[phase.ordinal()].recordNanos(nanos);
+    }
+
+    void recordFailure() {
+        mFailures.incrementAndGet();
+    }
+
+    void recordResponseBytes(long byteCount) {
+        mResponses.incrementAndGet();
+        mResponseBytes.addAndGet(byteCount);
+    }
+
+    /**
+     * 平均响应体大小 (单位字节), 没有样本时返回 0
+     */
+    public long getMeanResponseBytes() {
+        long responses = mResponses.get();
+        return responses == 0 ? 0 : mResponseBytes.get() / responses;
+    }
+
+    /**
+     * 请求次数
+     */
+    public long getCalls() {
+        return histogram(Phase.TOTAL).getCount();
+    }
+
+    /**
+     * 失败次数
+     */
+    public long getFailures() {
+        return mFailures.get();
+    }
+
+    void reset() {
+        for (LatencyHistogram histogram : mHistograms) {
+            histogram.reset();
+        }
+        mFailures.set(0);
+        mResponses.set(0);
+        mResponseBytes.set(0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(mEndpoint)
+                .append(" (failures=").append(getFailures()).append(")\n");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histogram(phase);
+            if (histogram.getCount() > 0) {
+                builder.append("  ").append(phase).append(": ").append(histogram).append("\n");
+            }
+        }
+        return builder.toString();
+    }
+}
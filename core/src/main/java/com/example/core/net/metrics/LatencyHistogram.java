@@ -0,0 +1,151 @@
+package com.example.core.net.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ================================================
+ * 对数-线性分桶的耗时直方图 (单位微秒), 每个 2 的幂区间再线性划分为 {@link #SUB_BUCKETS} 个桶,
+ * 相对误差不超过 1 / {@link #SUB_BUCKETS}, 内存占用固定, 记录时无锁
+ * ================================================
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * 最大可记录 2^40 微秒 (约 12 天), 超出的值记录到最后一个桶
+     */
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong mTotalCount = new AtomicLong();
+    private final AtomicLong mTotalMicros = new AtomicLong();
+    private final AtomicLong mMaxMicros = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时 (单位纳秒)
+     */
+    public void recordNanos(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param micros 耗时 (单位微秒)
+     */
+    public void recordMicros(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        mCounts.incrementAndGet(indexOf(micros));
+        mTotalCount.incrementAndGet();
+        mTotalMicros.addAndGet(micros);
+        long max;
+        while (micros > (max = mMaxMicros.get())) {
+            if (mMaxMicros.compareAndSet(max, micros)) {
+                break;
+            }
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 桶的上界, 用于估算分位数
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((long) (SUB_BUCKETS + sub) << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * 获取分位数
+     *
+     * @param percentile 0 ~ 1, 如 0.99 表示 p99
+     * @return 分位数的耗时 (单位微秒), 没有记录时返回 0
+     */
+    public long percentileMicros(double percentile) {
+        long total = mTotalCount.get();
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(Math.min(1.0, Math.max(0.0, percentile)) * total);
+        if (target < 1) {
+            target = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mCounts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), mMaxMicros.get());
+            }
+        }
+        return mMaxMicros.get();
+    }
+
+    public long p50Micros() {
+        return percentileMicros(0.50);
+    }
+
+    public long p95Micros() {
+        return percentileMicros(0.95);
+    }
+
+    public long p99Micros() {
+        return percentileMicros(0.99);
+    }
+
+    public long getCount() {
+        return mTotalCount.get();
+    }
+
+    public long getMaxMicros() {
+        return mMaxMicros.get();
+    }
+
+    public long getMeanMicros() {
+        long count = mTotalCount.get();
+        return count == 0 ? 0 : mTotalMicros.get() / count;
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mTotalCount.set(0);
+        mTotalMicros.set(0);
+        mMaxMicros.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount()
+                + " p50=" + p50Micros() / 1000f + "ms"
+                + " p95=" + p95Micros() / 1000f + "ms"
+                + " p99=" + p99Micros() / 1000f + "ms"
+                + " max=" + getMaxMicros() / 1000f + "ms";
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.core.net.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+/**
+ * ================================================
+ * 记录单个 {@link Call} 各阶段的耗时, 每个 Call 一个实例, 由 {@link NetworkMetrics#eventListenerFactory()} 创建
+ * <p>
+ * endpoint 为 {@code null} 时 (例如连接预热请求) 只记录地址的连接耗时, 不计入接口的统计
+ * ================================================
+ */
+final class MetricsEventListener extends EventListener {
+    private final NetworkMetrics mMetrics;
+    @Nullable
+    private final String mEndpoint;
+
+    private long mCallStart;
+    private long mDnsStart;
+    private long mConnectStart;
+    private boolean mTcpRecorded;
+    private long mSecureConnectStart;
+    private long mRequestStart;
+    private long mRequestEnd;
+    private long mBodyStart;
+
+    MetricsEventListener(@NonNull NetworkMetrics metrics, @Nullable String endpoint) {
+        this.mMetrics = metrics;
+        this.mEndpoint = endpoint;
+    }
+
+    private void record(EndpointMetrics.Phase phase, long start) {
+        if (start != 0 && mEndpoint != null) {
+            mMetrics.endpoint(mEndpoint).record(phase, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void callStart(@NonNull Call call) {
+        mCallStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(@NonNull Call call, @NonNull String domainName) {
+        mDnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(@NonNull Call call, @NonNull String domainName, @NonNull List<InetAddress> inetAddressList) {
+        record(EndpointMetrics.Phase.DNS, mDnsStart);
+    }
+
+    @Override
+    public void connectStart(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy) {
+        mConnectStart = System.nanoTime();
+        mTcpRecorded = false;
+    }
+
+    @Override
+    public void secureConnectStart(@NonNull Call call) {
+        mSecureConnectStart = System.nanoTime();
+    }
+
+    /**
+     * TCP 连接建立后记录该地址的连接耗时 (不含 TLS 握手)
+     */
+    private void recordTcpConnect(InetSocketAddress inetSocketAddress, long end) {
+        if (!mTcpRecorded && mConnectStart != 0 && inetSocketAddress.getAddress() != null) {
+            mTcpRecorded = true;
+            mMetrics.getAddressStats().recordSuccess(inetSocketAddress.getAddress(), end - mConnectStart);
+        }
+    }
+
+    @Override
+    public void secureConnectEnd(@NonNull Call call, @Nullable Handshake handshake) {
+        record(EndpointMetrics.Phase.TLS, mSecureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy, @Nullable Protocol protocol) {
+        recordTcpConnect(inetSocketAddress, mSecureConnectStart > mConnectStart ? mSecureConnectStart : System.nanoTime());
+        record(EndpointMetrics.Phase.CONNECT, mConnectStart);
+    }
+
+    @Override
+    public void connectFailed(@NonNull Call call, @NonNull InetSocketAddress inetSocketAddress, @NonNull Proxy proxy,
+                              @Nullable Protocol protocol, @NonNull IOException ioe) {
+        if (inetSocketAddress.getAddress() != null) {
+            mMetrics.getAddressStats().recordFailure(inetSocketAddress.getAddress());
+        }
+    }
+
+    @Override
+    public void requestHeadersStart(@NonNull Call call) {
+        mRequestStart = System.nanoTime();
+    }
+
+    @Override
+    public void requestHeadersEnd(@NonNull Call call, @NonNull Request request) {
+        mRequestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(@NonNull Call call, long byteCount) {
+        mRequestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(@NonNull Call call) {
+        if (mRequestStart != 0 && mRequestEnd != 0 && mEndpoint != null) {
+            mMetrics.endpoint(mEndpoint).record(EndpointMetrics.Phase.REQUEST_WRITE, mRequestEnd - mRequestStart);
+        }
+        record(EndpointMetrics.Phase.TTFB, mRequestEnd);
+    }
+
+    @Override
+    public void responseBodyStart(@NonNull Call call) {
+        mBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(@NonNull Call call, long byteCount) {
+        record(EndpointMetrics.Phase.BODY_READ, mBodyStart);
+        if (mEndpoint != null) {
+            mMetrics.endpoint(mEndpoint).recordResponseBytes(byteCount);
+        }
+    }
+
+    @Override
+    public void callEnd(@NonNull Call call) {
+        record(EndpointMetrics.Phase.TOTAL, mCallStart);
+    }
+
+    @Override
+    public void callFailed(@NonNull Call call, @NonNull IOException ioe) {
+        record(EndpointMetrics.Phase.TOTAL, mCallStart);
+        if (mEndpoint != null) {
+            mMetrics.endpoint(mEndpoint).recordFailure();
+        }
+    }
+}
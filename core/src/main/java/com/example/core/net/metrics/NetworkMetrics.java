@@ -0,0 +1,259 @@
+package com.example.core.net.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.net.CircuitBreaker;
+import com.example.core.net.ConnectionWarmer;
+import com.example.core.net.RequestPriority;
+import com.example.core.util.LogUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import okhttp3.EventListener;
+import okhttp3.Request;
+import retrofit2.Invocation;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.HTTP;
+import retrofit2.http.OPTIONS;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+
+/**
+ * ================================================
+ * 按接口 (路径模板) 汇总网络请求各阶段耗时的直方图, 用于分析长尾耗时来自哪个阶段
+ * 通过 {@link com.example.core.di.component.AppComponent#networkMetrics()} 获取
+ * ================================================
+ */
+@Singleton
+public class NetworkMetrics implements CircuitBreaker.Listener {
+    private static final String TAG = "NetworkMetrics";
+    private final Map<String, EndpointMetrics> mEndpoints = new ConcurrentHashMap<>();
+    private final AddressStats mAddressStats = new AddressStats();
+    private final Map<String, CircuitBreaker.State> mBreakerStates = new ConcurrentHashMap<>();
+    private final AtomicLong mBreakerTransitions = new AtomicLong();
+    private final Map<RequestPriority, LatencyHistogram> mQueueWaits = new EnumMap<>(RequestPriority.class);
+    private final EventListener.Factory mEventListenerFactory = call -> new MetricsEventListener(this,
+            call.request().tag(ConnectionWarmer.class) != null ? null : endpointOf(call.request()));
+
+    @Inject
+    public NetworkMetrics() {
+        for (RequestPriority priority : RequestPriority.values()) {
+            mQueueWaits.put(priority, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * 提供给 {@link okhttp3.OkHttpClient.Builder#eventListenerFactory(EventListener.Factory)} 使用
+     * <p>
+     * 带有 {@link ConnectionWarmer} 标记的预热请求只记录地址的连接耗时, 不计入接口统计
+     */
+    @NonNull
+    public EventListener.Factory eventListenerFactory() {
+        return mEventListenerFactory;
+    }
+
+    /**
+     * 每个 IP 地址的连接耗时统计
+     */
+    @NonNull
+    public AddressStats getAddressStats() {
+        return mAddressStats;
+    }
+
+    /**
+     * 记录熔断器状态变化
+     */
+    @Override
+    public void onStateChanged(@NonNull String host, @NonNull CircuitBreaker.State from, @NonNull CircuitBreaker.State to) {
+        mBreakerStates.put(host, to);
+        mBreakerTransitions.incrementAndGet();
+        LogUtils.warnInfo(TAG, "circuit breaker " + host + ": " + from + " -> " + to);
+    }
+
+    /**
+     * 各域名熔断器的当前状态, 只包含状态变化过的域名
+     */
+    @NonNull
+    public Map<String, CircuitBreaker.State> getBreakerStates() {
+        return Collections.unmodifiableMap(mBreakerStates);
+    }
+
+    /**
+     * 熔断器状态变化的总次数
+     */
+    public long getBreakerTransitions() {
+        return mBreakerTransitions.get();
+    }
+
+    /**
+     * 各优先级的请求在 {@link com.example.core.net.interceptor.PriorityDispatcher} 中的排队耗时
+     */
+    @NonNull
+    public LatencyHistogram queueWait(@NonNull RequestPriority priority) {
+        return mQueueWaits.get(priority);
+    }
+
+    /**
+     * 获取某个接口的统计, 不存在时创建
+     *
+     * @param endpoint 接口, 参考 {@link #endpointOf(Request)}
+     * @return {@link EndpointMetrics}
+     */
+    @NonNull
+    public EndpointMetrics endpoint(@NonNull String endpoint) {
+        EndpointMetrics metrics = mEndpoints.get(endpoint);
+        if (metrics == null) {
+            EndpointMetrics created = new EndpointMetrics(endpoint);
+            metrics = mEndpoints.putIfAbsent(endpoint, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * 获取某个接口的统计
+     *
+     * @param endpoint 接口, 参考 {@link #endpointOf(Request)}
+     * @return 没有请求过时返回 {@code null}
+     */
+    @Nullable
+    public EndpointMetrics getEndpoint(@NonNull String endpoint) {
+        return mEndpoints.get(endpoint);
+    }
+
+    /**
+     * 所有接口的统计
+     */
+    @NonNull
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(mEndpoints);
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        for (EndpointMetrics metrics : mEndpoints.values()) {
+            metrics.reset();
+        }
+        for (LatencyHistogram histogram : mQueueWaits.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * 输出所有接口的统计信息
+     */
+    @NonNull
+    public String report() {
+        StringBuilder builder = new StringBuilder();
+        for (EndpointMetrics metrics : mEndpoints.values()) {
+            builder.append(metrics);
+        }
+        for (Map.Entry<String, CircuitBreaker.State> entry : mBreakerStates.entrySet()) {
+            builder.append("breaker ").append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+        }
+        for (Map.Entry<RequestPriority, LatencyHistogram> entry : mQueueWaits.entrySet()) {
+            if (entry.getValue().getCount() > 0) {
+                builder.append("queue wait ").append(entry.getKey()).append(": ").append(entry.getValue()).append("\n");
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 获取请求对应的接口 (请求方式 + 路径模板)
+     * 通过 Retrofit 发起的请求使用接口方法上注解的路径, 如 "GET /user/{id}",
+     * 否则将路径中的数字以及长 id 替换为 "{id}"
+     *
+     * @param request {@link Request}
+     * @return 接口
+     */
+    @NonNull
+    public static String endpointOf(@NonNull Request request) {
+        Invocation invocation = request.tag(Invocation.class);
+        if (invocation != null) {
+            String endpoint = endpointOf(invocation.method());
+            if (endpoint != null) {
+                return endpoint;
+            }
+        }
+        StringBuilder builder = new StringBuilder(request.method()).append(' ');
+        List<String> segments = request.url().pathSegments();
+        for (String segment : segments) {
+            builder.append('/').append(isIdentifier(segment) ? "{id}" : segment);
+        }
+        if (segments.isEmpty()) {
+            builder.append('/');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 获取 Retrofit 接口方法对应的接口 (请求方式 + 路径模板), 如 "GET /user/{id}"
+     *
+     * @param method Retrofit 接口方法
+     * @return 方法上没有请求方式的注解时返回 {@code null}
+     */
+    @Nullable
+    public static String endpointOf(@NonNull Method method) {
+        for (Annotation annotation : method.getAnnotations()) {
+            if (annotation instanceof GET) {
+                return endpointOf("GET", ((GET) annotation).value());
+            } else if (annotation instanceof POST) {
+                return endpointOf("POST", ((POST) annotation).value());
+            } else if (annotation instanceof PUT) {
+                return endpointOf("PUT", ((PUT) annotation).value());
+            } else if (annotation instanceof DELETE) {
+                return endpointOf("DELETE", ((DELETE) annotation).value());
+            } else if (annotation instanceof PATCH) {
+                return endpointOf("PATCH", ((PATCH) annotation).value());
+            } else if (annotation instanceof HEAD) {
+                return endpointOf("HEAD", ((HEAD) annotation).value());
+            } else if (annotation instanceof OPTIONS) {
+                return endpointOf("OPTIONS", ((OPTIONS) annotation).value());
+            } else if (annotation instanceof HTTP) {
+                return endpointOf(((HTTP) annotation).method(), ((HTTP) annotation).path());
+            }
+        }
+        return null;
+    }
+
+    private static String endpointOf(String method, String path) {
+        return method + " " + (path.startsWith("/") ? path : "/" + path);
+    }
+
+    private static boolean isIdentifier(String segment) {
+        if (segment.isEmpty()) {
+            return false;
+        }
+        boolean allDigits = true;
+        boolean allHex = true;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                allDigits = false;
+            }
+            if (Character.digit(c, 16) < 0 && c != '-') {
+                allHex = false;
+            }
+        }
+        return allDigits || (allHex && segment.length() >= 16);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.core.net.upload;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.util.Preconditions;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * ================================================
+ * 直接从文件读取的 {@link RequestBody}, 可以只发送文件的一部分 (分块上传)
+ * <p>
+ * 通过 {@link FileChannel#transferTo} 每次把 {@link #CHUNK_BYTES} 写入 {@link BufferedSink}, sink 写满一个 segment 就发出,
+ * 内存占用与文件大小无关; 每次写入都可以重新读取文件, 重试时不需要缓存请求体
+ * ================================================
+ */
+public class FileRequestBody extends RequestBody {
+    /**
+     * 每次从文件写入 sink 的字节数, 也是进度回调的间隔
+     */
+    static final long CHUNK_BYTES = 64 * 1024;
+
+    private final File mFile;
+    @Nullable
+    private final MediaType mContentType;
+    private final long mOffset;
+    private final long mLength;
+    @Nullable
+    private final Listener mListener;
+
+    /**
+     * 写入进度, 在 OkHttp 写请求体的线程调用
+     */
+    public interface Listener {
+        /**
+         * @param bytesWritten 这一次写入请求体已经写入的字节数, 重试时从 0 开始
+         */
+        void onProgress(long bytesWritten);
+    }
+
+    /**
+     * 发送整个文件
+     */
+    public FileRequestBody(@NonNull File file, @Nullable MediaType contentType) {
+        this(file, contentType, 0, file.length(), null);
+    }
+
+    /**
+     * 发送文件中从 offset 开始的 length 个字节
+     */
+    public FileRequestBody(@NonNull File file, @Nullable MediaType contentType, long offset, long length, @Nullable Listener listener) {
+        Preconditions.checkNotNull(file, "file == null");
+        Preconditions.checkArgument(offset >= 0 && length >= 0, "offset and length must be >= 0");
+        this.mFile = file;
+        this.mContentType = contentType;
+        this.mOffset = offset;
+        this.mLength = length;
+        this.mListener = listener;
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return mContentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return mLength;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        try (FileInputStream in = new FileInputStream(mFile); FileChannel channel = in.getChannel()) {
+            long written = 0;
+            while (written < mLength) {
+                long count = channel.transferTo(mOffset + written, Math.min(CHUNK_BYTES, mLength - written), sink);
+                if (count <= 0) {
+                    throw new EOFException(mFile + " is shorter than " + (mOffset + mLength) + " bytes");
+                }
+                written += count;
+                if (mListener != null) {
+                    mListener.onProgress(written);
+                }
+            }
+        }
+    }
+}
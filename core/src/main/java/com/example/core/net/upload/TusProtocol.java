@@ -0,0 +1,109 @@
+package com.example.core.net.upload;
+
+import android.util.Base64;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * ================================================
+ * tus 1.0 (https://tus.io) 的 core 与 creation 协议:
+ * <p>
+ * 1. POST 到 {@link UploadRequest#getEndpoint()} 创建上传, 服务器在 Location 中返回上传地址
+ * 2. HEAD 上传地址, 从 Upload-Offset 得到服务器已经收到的字节数
+ * 3. PATCH 上传地址, 从 Upload-Offset 开始发送数据, 服务器在 Upload-Offset 中返回新的偏移
+ * ================================================
+ */
+public class TusProtocol implements UploadProtocol {
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final MediaType OFFSET_OCTET_STREAM = MediaType.parse("application/offset+octet-stream");
+
+    @NonNull
+    @Override
+    public String create(@NonNull Call.Factory callFactory, @NonNull UploadRequest request) throws IOException {
+        String filename = Base64.encodeToString(request.getFile().getName().getBytes(Charset.forName("UTF-8")), Base64.NO_WRAP);
+        Request create = new Request.Builder()
+                .url(request.getEndpoint())
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header("Upload-Length", String.valueOf(request.getFile().length()))
+                .header("Upload-Metadata", "filename " + filename)
+                .post(RequestBody.create(new byte[0], null))
+                .build();
+        try (Response response = callFactory.newCall(create).execute()) {
+            String location = response.header("Location");
+            if (response.code() != 201 || location == null) {
+                throw new IOException("create upload failed: HTTP " + response.code() + " " + request.getEndpoint());
+            }
+            //Location 可以是相对地址
+            HttpUrl url = response.request().url().resolve(location);
+            if (url == null) {
+                throw new IOException("invalid Location: " + location);
+            }
+            return url.toString();
+        }
+    }
+
+    @Override
+    public long queryOffset(@NonNull Call.Factory callFactory, @NonNull UploadRequest request, @NonNull String uploadUrl) throws IOException {
+        Request head = new Request.Builder()
+                .url(uploadUrl)
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .head()
+                .build();
+        try (Response response = callFactory.newCall(head).execute()) {
+            if (response.code() == 404 || response.code() == 410) {
+                return -1;
+            }
+            if (!response.isSuccessful()) {
+                throw new IOException("query offset failed: HTTP " + response.code() + " " + uploadUrl);
+            }
+            return parseOffset(response);
+        }
+    }
+
+    @Override
+    public long uploadChunk(@NonNull Call.Factory callFactory, @NonNull UploadRequest request, @NonNull String uploadUrl,
+                            long offset, @NonNull RequestBody chunk) throws IOException {
+        Request patch = new Request.Builder()
+                .url(uploadUrl)
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(offset))
+                .patch(chunk)
+                .build();
+        try (Response response = callFactory.newCall(patch).execute()) {
+            if (response.code() != 204) {
+                throw new IOException("upload chunk failed: HTTP " + response.code() + " " + uploadUrl);
+            }
+            return parseOffset(response);
+        }
+    }
+
+    /**
+     * tus 要求 PATCH 的 Content-Type 为 application/offset+octet-stream
+     */
+    @NonNull
+    @Override
+    public MediaType chunkContentType() {
+        return OFFSET_OCTET_STREAM;
+    }
+
+    private static long parseOffset(Response response) throws IOException {
+        String offset = response.header(UPLOAD_OFFSET);
+        try {
+            return Long.parseLong(String.valueOf(offset));
+        } catch (NumberFormatException e) {
+            throw new IOException("invalid " + UPLOAD_OFFSET + ": " + offset);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.core.net.upload;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.common.util.MD5Utils;
+import com.example.core.net.RequestPriority;
+import com.example.core.net.interceptor.DispatchPolicy;
+import com.example.core.util.DataHelper;
+import com.example.core.util.LogUtils;
+import com.example.core.util.Preconditions;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.Lazy;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.ObservableEmitter;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+
+/**
+ * ================================================
+ * 分块、可断点续传的文件上传
+ * <p>
+ * 1. 文件按 {@link UploadRequest.Builder#chunkSize(long)} 分块, 每块一个请求, 请求体为 {@link FileRequestBody},
+ * 直接从文件读取, 内存占用与文件大小无关
+ * 2. 每块从服务器确认的偏移开始上传, 上传地址保存在缓存目录下; 取消订阅、出错或者进程被杀死后再次上传同一个文件时,
+ * 先通过 {@link UploadProtocol#queryOffset} 查询服务器已经收到的字节数, 从那里继续
+ * 3. {@link #uploadAll(List)} 并行上传多个文件, 同时进行的上传数不超过 {@link DispatchPolicy#getMaxRequestsPerHost()},
+ * 请求按 {@link UploadRequest.Builder#priority(RequestPriority)} 参与 {@link com.example.core.net.interceptor.PriorityDispatcher} 调度
+ * <p>
+ * 进度在 IO 线程每写入 64KB 产生一次, 在发射前按 {@link #PROGRESS_INTERVAL_MS} 节流, 每个间隔只发射最新的进度,
+ * 最后的完成进度一定会发射; 下游直接使用 {@link com.example.core.net.RxScheduler#Obs_io_main()} 切换到主线程即可
+ * ================================================
+ */
+@Singleton
+public class UploadManager {
+    private static final String TAG = "UploadManager";
+    private static final String DIR_NAME = "Uploads";
+    /**
+     * 没有配置 {@link DispatchPolicy} 时同时上传的文件数
+     */
+    private static final int DEFAULT_CONCURRENCY = 3;
+    /**
+     * 进度的最小发射间隔, 约为一帧
+     */
+    private static final long PROGRESS_INTERVAL_MS = 16;
+
+    private final Lazy<OkHttpClient> mClient;
+    private final File mDir;
+    private final int mMaxConcurrency;
+
+    @Inject
+    public UploadManager(Lazy<OkHttpClient> client, File cacheDir, @Nullable DispatchPolicy dispatchPolicy) {
+        this.mClient = client;
+        this.mDir = new File(cacheDir, DIR_NAME);
+        this.mMaxConcurrency = dispatchPolicy != null ? dispatchPolicy.getMaxRequestsPerHost() : DEFAULT_CONCURRENCY;
+    }
+
+    /**
+     * 上传文件, 取消订阅相当于暂停, 再次调用时从服务器已经收到的位置继续
+     *
+     * @param request {@link UploadRequest}
+     * @return 上传进度, 每 {@link #PROGRESS_INTERVAL_MS} 最多发射一次, 最后一个 {@link UploadProgress#isCompleted()} 为 {@code true}
+     */
+    @NonNull
+    public Observable<UploadProgress> upload(@NonNull UploadRequest request) {
+        Preconditions.checkNotNull(request, "request == null");
+        return Observable.<UploadProgress>create(emitter -> {
+            TaskCalls calls = new TaskCalls(mClient.get(), request);
+            emitter.setCancellable(calls::cancel);
+            try {
+                upload(request, calls, emitter);
+            } catch (IOException e) {
+                emitter.tryOnError(e);
+            }
+        }).subscribeOn(Schedulers.io())
+                //第一个进度立即发射, 之后每个间隔只发射最新的, 结束前发射最后一个
+                .throttleLatest(PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS, true);
+    }
+
+    /**
+     * 并行上传多个文件, 同时进行的上传数受 {@link DispatchPolicy#getMaxRequestsPerHost()} 限制
+     *
+     * @param requests 上传任务
+     * @return 所有文件的上传进度, 通过 {@link UploadProgress#getFile()} 区分
+     */
+    @NonNull
+    public Observable<UploadProgress> uploadAll(@NonNull List<UploadRequest> requests) {
+        return Observable.fromIterable(requests)
+                .flatMap(this::upload, mMaxConcurrency);
+    }
+
+    /**
+     * 删除保存的上传地址, 下次从头上传
+     */
+    public void discard(@NonNull UploadRequest request) {
+        recordOf(request).delete();
+    }
+
+    private void upload(UploadRequest request, TaskCalls calls, ObservableEmitter<UploadProgress> emitter) throws IOException {
+        File file = request.file;
+        long total = file.length();
+        UploadProtocol protocol = request.protocol;
+        File record = recordOf(request);
+        String uploadUrl = readRecord(record);
+        long offset = uploadUrl == null ? -1 : protocol.queryOffset(calls, request, uploadUrl);
+        if (offset < 0) {
+            uploadUrl = protocol.create(calls, request);
+            writeRecord(record, uploadUrl);
+            offset = 0;
+        }
+        emitter.onNext(new UploadProgress(file, offset, total, false, uploadUrl));
+        while (offset < total && !emitter.isDisposed()) {
+            long start = offset;
+            String url = uploadUrl;
+            long length = Math.min(request.chunkSize, total - offset);
+            FileRequestBody chunk = new FileRequestBody(file, protocol.chunkContentType(), start, length,
+                    written -> emitter.onNext(new UploadProgress(file, start + written, total, false, url)));
+            long next = protocol.uploadChunk(calls, request, uploadUrl, offset, chunk);
+            if (next <= offset || next > total) {
+                throw new IOException("unexpected offset " + next + " after uploading from " + offset + " of " + total);
+            }
+            offset = next;
+        }
+        if (offset >= total) {
+            record.delete();
+            emitter.onNext(new UploadProgress(file, total, total, true, uploadUrl));
+            emitter.onComplete();
+        }
+    }
+
+    /**
+     * 保存上传地址的文件, 文件内容或者目标地址改变后是新的上传
+     */
+    private File recordOf(UploadRequest request) {
+        File file = request.file;
+        String key = request.endpoint + "\n" + file.getAbsolutePath() + "\n" + file.length() + "\n" + file.lastModified();
+        return new File(mDir, MD5Utils.md5(key));
+    }
+
+    @Nullable
+    private static String readRecord(File record) {
+        if (!record.isFile()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(record))) {
+            return reader.readLine();
+        } catch (IOException e) {
+            LogUtils.warnInfo(TAG, "ignore broken " + record + ": " + e);
+            return null;
+        }
+    }
+
+    private static void writeRecord(File record, String uploadUrl) {
+        DataHelper.makeDirs(record.getParentFile());
+        try (Writer writer = new FileWriter(record)) {
+            writer.write(uploadUrl);
+        } catch (IOException e) {
+            //只影响进程被杀死后的续传
+            LogUtils.warnInfo(TAG, "failed to save " + record + ": " + e);
+        }
+    }
+
+    /**
+     * 给请求加上优先级, 记录正在进行的请求以便取消
+     */
+    private static final class TaskCalls implements Call.Factory {
+        private final OkHttpClient mClient;
+        private final UploadRequest mRequest;
+        private volatile Call mCurrent;
+        private volatile boolean mCanceled;
+
+        TaskCalls(OkHttpClient client, UploadRequest request) {
+            this.mClient = client;
+            this.mRequest = request;
+        }
+
+        @NonNull
+        @Override
+        public Call newCall(@NonNull Request request) {
+            Call call = mClient.newCall(request.newBuilder()
+                    .tag(RequestPriority.class, mRequest.priority)
+                    .build());
+            mCurrent = call;
+            if (mCanceled) {
+                call.cancel();
+            }
+            return call;
+        }
+
+        void cancel() {
+            mCanceled = true;
+            Call call = mCurrent;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.core.net.upload;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+
+/**
+ * ================================================
+ * {@link UploadManager#upload(UploadRequest)} 发射的上传进度
+ * ================================================
+ */
+public final class UploadProgress {
+    private final File mFile;
+    private final long mUploadedBytes;
+    private final long mTotalBytes;
+    private final boolean mCompleted;
+    @Nullable
+    private final String mUploadUrl;
+
+    UploadProgress(File file, long uploadedBytes, long totalBytes, boolean completed, @Nullable String uploadUrl) {
+        this.mFile = file;
+        this.mUploadedBytes = uploadedBytes;
+        this.mTotalBytes = totalBytes;
+        this.mCompleted = completed;
+        this.mUploadUrl = uploadUrl;
+    }
+
+    @NonNull
+    public File getFile() {
+        return mFile;
+    }
+
+    /**
+     * 已经上传的字节数, 包括服务器之前已经收到的部分
+     */
+    public long getUploadedBytes() {
+        return mUploadedBytes;
+    }
+
+    public long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    /**
+     * 服务器是否已经收到整个文件
+     */
+    public boolean isCompleted() {
+        return mCompleted;
+    }
+
+    /**
+     * {@link UploadProtocol#create} 返回的上传地址, 创建之前为 {@code null}
+     */
+    @Nullable
+    public String getUploadUrl() {
+        return mUploadUrl;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "UploadProgress{" + mFile.getName() + " " + mUploadedBytes + "/" + mTotalBytes
+                + (mCompleted ? " completed" : "") + "}";
+    }
+}
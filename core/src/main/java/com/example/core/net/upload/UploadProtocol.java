@@ -0,0 +1,49 @@
+package com.example.core.net.upload;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+/**
+ * ================================================
+ * 分块上传与服务器之间的协议, 默认使用 {@link TusProtocol}
+ * <p>
+ * 所有请求都要通过传入的 {@link Call.Factory} 发出, {@link UploadManager} 用它设置请求的优先级并在取消时中断请求
+ * ================================================
+ */
+public interface UploadProtocol {
+
+    /**
+     * 在服务器上创建一个上传
+     *
+     * @return 之后查询进度与上传分块使用的地址
+     */
+    @NonNull
+    String create(@NonNull Call.Factory callFactory, @NonNull UploadRequest request) throws IOException;
+
+    /**
+     * 查询服务器已经收到的字节数
+     *
+     * @return 上传已经不存在 (过期、被删除) 时返回 -1, 之后会重新 {@link #create}
+     */
+    long queryOffset(@NonNull Call.Factory callFactory, @NonNull UploadRequest request, @NonNull String uploadUrl) throws IOException;
+
+    /**
+     * 从 offset 开始上传一块数据
+     *
+     * @return 服务器确认之后的偏移
+     */
+    long uploadChunk(@NonNull Call.Factory callFactory, @NonNull UploadRequest request, @NonNull String uploadUrl,
+                     long offset, @NonNull RequestBody chunk) throws IOException;
+
+    /**
+     * 分块请求体的 Content-Type
+     */
+    @Nullable
+    MediaType chunkContentType();
+}
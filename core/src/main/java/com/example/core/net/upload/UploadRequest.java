@@ -0,0 +1,83 @@
+package com.example.core.net.upload;
+
+import androidx.annotation.NonNull;
+
+import com.example.core.net.RequestPriority;
+import com.example.core.util.Preconditions;
+
+import java.io.File;
+
+/**
+ * ================================================
+ * {@link UploadManager} 的上传任务
+ * ================================================
+ */
+public final class UploadRequest {
+    final String endpoint;
+    final File file;
+    final long chunkSize;
+    final RequestPriority priority;
+    final UploadProtocol protocol;
+
+    private UploadRequest(Builder builder) {
+        this.endpoint = builder.endpoint;
+        this.file = builder.file;
+        this.chunkSize = builder.chunkSize;
+        this.priority = builder.priority;
+        this.protocol = builder.protocol;
+    }
+
+    public static Builder builder(@NonNull String endpoint, @NonNull File file) {
+        return new Builder(endpoint, file);
+    }
+
+    /**
+     * 创建上传的地址
+     */
+    @NonNull
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    public static final class Builder {
+        private final String endpoint;
+        private final File file;
+        private long chunkSize = 4 * 1024 * 1024;
+        private RequestPriority priority = RequestPriority.VISIBLE;
+        private UploadProtocol protocol;
+
+        private Builder(String endpoint, File file) {
+            this.endpoint = Preconditions.checkNotNull(endpoint, "endpoint == null");
+            this.file = Preconditions.checkNotNull(file, "file == null");
+        }
+
+        public Builder chunkSize(long bytes) {//每个请求上传的字节数, 中断时最多需要重新上传一块
+            Preconditions.checkArgument(bytes > 0, "chunkSize must be > 0");
+            this.chunkSize = bytes;
+            return this;
+        }
+
+        public Builder priority(@NonNull RequestPriority priority) {//开启 PriorityDispatcher 时上传请求的优先级
+            this.priority = Preconditions.checkNotNull(priority, "priority == null");
+            return this;
+        }
+
+        public Builder protocol(@NonNull UploadProtocol protocol) {//与服务器之间的分块上传协议, 默认为 TusProtocol
+            this.protocol = Preconditions.checkNotNull(protocol, "protocol == null");
+            return this;
+        }
+
+        public UploadRequest build() {
+            Preconditions.checkArgument(file.isFile(), "%s is not a file", file);
+            if (protocol == null) {
+                protocol = new TusProtocol();
+            }
+            return new UploadRequest(this);
+        }
+    }
+}
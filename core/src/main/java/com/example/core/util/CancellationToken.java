@@ -0,0 +1,84 @@
+package com.example.core.util;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.example.common.util.FileTreeUtils;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * ================================================
+ * 取消标记, 取消时一起取消通过 {@link ThreadPoolManager#execute(TaskLane, CancellationToken, Runnable)}
+ * 提交的所有任务: 排队中的任务不再执行, 执行中的任务会被中断
+ * <p>
+ * 长时间运行的任务应该在循环中检查 {@link #isCancelled()}, 及时结束
+ * ================================================
+ */
+public final class CancellationToken implements FileTreeUtils.Cancellable {
+    private final Set<Future<?>> mTasks = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private volatile boolean mCancelled;
+
+    /**
+     * 创建在 owner 销毁 (ON_DESTROY) 时自动取消的标记, 需要在主线程调用
+     *
+     * @param owner Activity、Fragment 等 {@link LifecycleOwner}
+     * @return {@link CancellationToken}
+     */
+    @NonNull
+    public static CancellationToken bindTo(@NonNull LifecycleOwner owner) {
+        CancellationToken token = new CancellationToken();
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            token.cancel();
+            return token;
+        }
+        lifecycle.addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    token.cancel();
+                }
+            }
+        });
+        return token;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    /**
+     * 取消所有关联的任务, 重复调用无效
+     */
+    public void cancel() {
+        if (mCancelled) {
+            return;
+        }
+        mCancelled = true;
+        for (Future<?> task : mTasks) {
+            task.cancel(true);
+        }
+        mTasks.clear();
+    }
+
+    void register(Future<?> task) {
+        mTasks.add(task);
+        //注册与取消同时发生时, 保证任务也被取消
+        if (mCancelled) {
+            task.cancel(true);
+            mTasks.remove(task);
+        }
+    }
+
+    void unregister(Future<?> task) {
+        mTasks.remove(task);
+    }
+}
@@ -20,6 +20,10 @@ import android.content.SharedPreferences;
 import android.os.Environment;
 import android.util.Base64;
 
+import androidx.annotation.Nullable;
+
+import com.example.common.util.FileTreeUtils;
+
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -221,53 +225,53 @@ public class DataHelper {
     }
 
     /**
-     * 使用递归获取目录文件大小
+     * 获取目录下所有文件的大小, 子目录在 {@link ThreadGovernor#forkJoin()} 中并行统计
      *
      * @param dir
      * @return
      */
     public static long getDirSize(File dir) {
-        if (dir == null) {
-            return 0;
-        }
-        if (!dir.isDirectory()) {
+        return getDirSize(dir, null, null);
+    }
+
+    /**
+     * 获取目录下所有文件的大小, 子目录在 {@link ThreadGovernor#forkJoin()} 中并行统计
+     *
+     * @param dir      目录
+     * @param progress 进度回调, 会在多个线程中调用, 可以为 {@code null}
+     * @param token    取消后抛出 {@link java.util.concurrent.CancellationException}, 可以为 {@code null}
+     * @return
+     */
+    public static long getDirSize(File dir, @Nullable FileTreeUtils.Progress progress, @Nullable CancellationToken token) {
+        if (dir == null || !dir.isDirectory()) {
             return 0;
         }
-        long dirSize = 0;
-        File[] files = dir.listFiles();
-        for (File file : files) {
-            if (file.isFile()) {
-                dirSize += file.length();
-            } else if (file.isDirectory()) {
-                dirSize += file.length();
-                dirSize += getDirSize(file); // 递归调用继续统计
-            }
-        }
-        return dirSize;
+        return FileTreeUtils.sizeOf(dir, progress, token, ThreadGovernor.forkJoin());
     }
 
     /**
-     * 使用递归删除文件夹
+     * 清空文件夹 (包括子文件夹), 文件夹本身保留, 子目录在 {@link ThreadGovernor#forkJoin()} 中并行删除
      *
      * @param dir
-     * @return
+     * @return 是否全部删除成功
      */
     public static boolean deleteDir(File dir) {
-        if (dir == null) {
-            return false;
-        }
-        if (!dir.isDirectory()) {
+        return deleteDir(dir, null, null);
+    }
+
+    /**
+     * 清空文件夹 (包括子文件夹), 文件夹本身保留, 子目录在 {@link ThreadGovernor#forkJoin()} 中并行删除
+     *
+     * @param dir      目录
+     * @param progress 进度回调, 会在多个线程中调用, 可以为 {@code null}
+     * @param token    取消后抛出 {@link java.util.concurrent.CancellationException}, 可以为 {@code null}
+     * @return 是否全部删除成功
+     */
+    public static boolean deleteDir(File dir, @Nullable FileTreeUtils.Progress progress, @Nullable CancellationToken token) {
+        if (dir == null || !dir.isDirectory()) {
             return false;
         }
-        File[] files = dir.listFiles();
-        for (File file : files) {
-            if (file.isFile()) {
-                file.delete();
-            } else if (file.isDirectory()) {
-                deleteDir(file); // 递归调用继续删除
-            }
-        }
-        return true;
+        return FileTreeUtils.delete(dir, false, progress, token, ThreadGovernor.forkJoin());
     }
 
     public static String byteToString(InputStream in) throws IOException {
@@ -0,0 +1,121 @@
+package com.example.core.util;
+
+import androidx.annotation.NonNull;
+
+import com.example.core.net.metrics.LatencyHistogram;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ================================================
+ * 线程数与队列长度都有上限的线程池, 统计任务的排队耗时、执行耗时以及被拒绝的次数
+ * 由 {@link ThreadGovernor} 创建
+ * ================================================
+ */
+public final class InstrumentedExecutor extends ThreadPoolExecutor {
+    private final String mName;
+    private final AtomicLong mRejected = new AtomicLong();
+    private final LatencyHistogram mQueueWait = new LatencyHistogram();
+    private final LatencyHistogram mRunTime = new LatencyHistogram();
+
+    InstrumentedExecutor(@NonNull String name, int threads, int queueCapacity, int priority) {
+        super(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueCapacity),
+                threadFactory(name, priority));
+        this.mName = name;
+        //空闲的线程也会被回收, 没有任务时不占用线程
+        allowCoreThreadTimeOut(true);
+        setRejectedExecutionHandler((runnable, executor) -> {
+            mRejected.incrementAndGet();
+            throw new RejectedExecutionException(mName + " rejected task, active: " + getActiveCount()
+                    + ", queued: " + getQueue().size());
+        });
+    }
+
+    private static ThreadFactory threadFactory(String name, int priority) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        };
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        super.execute(new TimedTask(command));
+    }
+
+    @NonNull
+    public String getName() {
+        return mName;
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public int getQueuedCount() {
+        return getQueue().size();
+    }
+
+    /**
+     * 线程数和队列都满时被拒绝的任务数
+     */
+    public long getRejectedCount() {
+        return mRejected.get();
+    }
+
+    /**
+     * 任务从提交到开始执行的耗时
+     */
+    @NonNull
+    public LatencyHistogram getQueueWait() {
+        return mQueueWait;
+    }
+
+    /**
+     * 任务的执行耗时
+     */
+    @NonNull
+    public LatencyHistogram getRunTime() {
+        return mRunTime;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return mName + " threads: " + getPoolSize() + "/" + getMaximumPoolSize()
+                + ", active: " + getActiveCount()
+                + ", queued: " + getQueuedCount()
+                + ", rejected: " + getRejectedCount()
+                + ", completed: " + getCompletedTaskCount()
+                + "\n  queue wait " + mQueueWait
+                + "\n  run time " + mRunTime;
+    }
+
+    private final class TimedTask implements Runnable {
+        private final Runnable mDelegate;
+        private final long mSubmittedAt = System.nanoTime();
+
+        TimedTask(Runnable delegate) {
+            this.mDelegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            mQueueWait.recordNanos(startedAt - mSubmittedAt);
+            try {
+                mDelegate.run();
+            } finally {
+                mRunTime.recordNanos(System.nanoTime() - startedAt);
+            }
+        }
+    }
+}
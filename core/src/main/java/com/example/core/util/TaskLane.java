@@ -0,0 +1,25 @@
+package com.example.core.util;
+
+/**
+ * ================================================
+ * {@link ThreadPoolManager} 的任务通道, 每个通道有自己的并发上限与线程优先级
+ * ================================================
+ */
+public enum TaskLane {
+    /**
+     * 用户正在等待结果的任务, 如点击后的读取, 在保留的线程中执行, 不与其他任务排队, 使用默认线程优先级
+     */
+    USER_INTERACTIVE,
+    /**
+     * 页面展示需要的任务, 如加载列表数据, 默认通道
+     */
+    USER_VISIBLE,
+    /**
+     * 用户感知不到的任务, 如清理缓存、预加载, 并发数最少, 使用后台线程优先级
+     */
+    BACKGROUND,
+    /**
+     * 纯计算任务, 在 {@link java.util.concurrent.ForkJoinPool} 中执行, 可以 fork 子任务并由空闲线程窃取
+     */
+    COMPUTE
+}
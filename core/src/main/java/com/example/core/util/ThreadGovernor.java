@@ -0,0 +1,189 @@
+package com.example.core.util;
+
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+
+/**
+ * ================================================
+ * 整个 App 共用的线程预算: 一个 CPU 线程池和一个 IO 线程池, 以及给 fork/join 计算任务使用的 {@link ForkJoinPool},
+ * 另外为 {@link TaskLane#USER_INTERACTIVE} 保留了少量线程 ({@link #interactive()}), 不与其他任务共用队列
+ * <p>
+ * {@link #install()} 后 {@link Schedulers#io()}、{@link Schedulers#computation()} 都使用这两个线程池,
+ * OkHttp 的 {@link okhttp3.Dispatcher} 与 {@link ThreadPoolManager} 也使用 IO 线程池,
+ * 高峰期线程数不会超过各线程池的上限之和, 超出的任务排队, 队列满时拒绝并计数
+ * <p>
+ * 队列满时:
+ * 1. RxJava 的任务先降级到溢出线程池执行 (拒绝会交给 {@link RxJavaPlugins#onError} 导致崩溃, 订阅也不会结束),
+ * 溢出线程池最多 {@link #OVERFLOW_THREADS} 个线程、空闲 30 秒后回收; 溢出线程池也排满时, 非主线程直接在调用线程中执行,
+ * 起到限流的作用; 主线程上不执行 (避免在主线程上执行网络请求), 抛出带有原因的 {@link RejectedExecutionException},
+ * 由 RxJava 交给 {@link RxJavaPlugins#onError}, 这时两个线程池已经积压了上千个任务; 各自的次数通过 {@link #report()} 输出
+ * 2. OkHttp 的异步请求被拒绝时以 {@link java.io.InterruptedIOException} 回调失败, 不会崩溃
+ * 3. 直接使用 {@link #io()} 的调用方需要自己处理 {@link java.util.concurrent.RejectedExecutionException}
+ * <p>
+ * 注意 IO 线程池的线程 (CPU 核数 * 4, 至少 16 个) 被以下阻塞操作共用:
+ * OkHttp 的异步请求、Schedulers.io() 上的同步请求、{@link com.example.core.net.interceptor.PriorityDispatcher}
+ * 排队时的等待、{@link com.example.core.net.ApiDns} 的后台刷新与连接竞速、{@link ThreadPoolManager} 的任务;
+ * 在 PriorityDispatcher 中排队的请求会一直占着线程, 排队的请求很多时其他 IO 任务只能在队列中等待,
+ * 因此 {@link com.example.core.net.interceptor.DispatchPolicy} 的 maxRequests 应明显小于 IO 线程数
+ * <p>
+ * 线程池的活跃线程数、排队数、拒绝数以及任务耗时通过 {@link #report()} 输出
+ * ================================================
+ */
+public final class ThreadGovernor {
+    private static final String TAG = "ThreadGovernor";
+    private static final int CPU_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+    /**
+     * IO 任务大多在等待网络和磁盘, 线程数可以比 CPU 核数多, 但需要有上限
+     */
+    private static final int IO_THREADS = Math.max(16, CPU_COUNT * 4);
+    /**
+     * 保留给用户正在等待的任务, 只需要少量线程
+     */
+    private static final int INTERACTIVE_THREADS = Math.max(2, CPU_COUNT / 2);
+    /**
+     * 溢出线程池的线程数上限, 只在 CPU、IO 线程池都排满的高峰期使用
+     */
+    private static final int OVERFLOW_THREADS = Math.max(4, CPU_COUNT);
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private static final AtomicBoolean sInstalled = new AtomicBoolean();
+
+    private ThreadGovernor() {
+        throw new IllegalStateException("you can't instantiate me!");
+    }
+
+    private static final class Holder {
+        static final InstrumentedExecutor CPU = new InstrumentedExecutor("Arms-CPU", CPU_COUNT, QUEUE_CAPACITY,
+                Thread.NORM_PRIORITY);
+        static final InstrumentedExecutor IO = new InstrumentedExecutor("Arms-IO", IO_THREADS, QUEUE_CAPACITY,
+                Thread.NORM_PRIORITY);
+        static final InstrumentedExecutor INTERACTIVE = new InstrumentedExecutor("Arms-Interactive", INTERACTIVE_THREADS,
+                QUEUE_CAPACITY, Thread.NORM_PRIORITY);
+        static final ForkJoinPool FORK_JOIN = new ForkJoinPool(CPU_COUNT, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("Arms-FJ-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        static final ThreadPoolExecutor OVERFLOW = overflow();
+        static final AtomicLong OVERFLOWED = new AtomicLong();
+        static final AtomicLong CALLER_RAN = new AtomicLong();
+        static final AtomicLong REJECTED = new AtomicLong();
+        static final Scheduler CPU_SCHEDULER = Schedulers.from(degrading(CPU), true);
+        static final Scheduler IO_SCHEDULER = Schedulers.from(degrading(IO), true);
+    }
+
+    private static ThreadPoolExecutor overflow() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "Arms-Overflow-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(OVERFLOW_THREADS, OVERFLOW_THREADS, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_CAPACITY), factory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 队列满时依次交给溢出线程池、调用线程 (非主线程) 执行, 都不行时才抛出 {@link RejectedExecutionException}
+     */
+    private static Executor degrading(InstrumentedExecutor executor) {
+        return command -> {
+            try {
+                executor.execute(command);
+                return;
+            } catch (RejectedExecutionException e) {
+                if (Holder.OVERFLOWED.incrementAndGet() % 100 == 1) {
+                    LogUtils.warnInfo(TAG, executor.getName() + " is saturated, running on overflow thread");
+                }
+            }
+            try {
+                Holder.OVERFLOW.execute(command);
+                return;
+            } catch (RejectedExecutionException e) {
+                if (Looper.myLooper() == Looper.getMainLooper()) {
+                    Holder.REJECTED.incrementAndGet();
+                    throw new RejectedExecutionException(executor.getName() + " and Arms-Overflow ("
+                            + OVERFLOW_THREADS + " threads) are saturated, refusing to run on the main thread", e);
+                }
+            }
+            //调用方本身是后台线程, 在这里执行可以让提交任务的一方慢下来
+            Holder.CALLER_RAN.incrementAndGet();
+            command.run();
+        };
+    }
+
+    /**
+     * 共用的 CPU 线程池, 线程数为 CPU 核数
+     */
+    @NonNull
+    public static InstrumentedExecutor cpu() {
+        return Holder.CPU;
+    }
+
+    /**
+     * 共用的 IO 线程池, 用于网络、磁盘等阻塞任务
+     */
+    @NonNull
+    public static InstrumentedExecutor io() {
+        return Holder.IO;
+    }
+
+    /**
+     * 保留给 {@link TaskLane#USER_INTERACTIVE} 的线程池, IO 线程池排满时用户正在等待的任务也不用排在后面
+     */
+    @NonNull
+    public static InstrumentedExecutor interactive() {
+        return Holder.INTERACTIVE;
+    }
+
+    /**
+     * 共用的 fork/join 线程池, 并行度为 CPU 核数, 空闲线程可以窃取其他线程的子任务
+     */
+    @NonNull
+    public static ForkJoinPool forkJoin() {
+        return Holder.FORK_JOIN;
+    }
+
+    /**
+     * 让 {@link Schedulers#io()}、{@link Schedulers#computation()} 使用共用的线程池, 重复调用无效
+     * 需要在使用 RxJava 之前调用, 框架在 {@link com.example.core.base.delegate.AppDelegate#onCreate} 中调用
+     */
+    public static void install() {
+        if (!sInstalled.compareAndSet(false, true)) {
+            return;
+        }
+        RxJavaPlugins.setIoSchedulerHandler(scheduler -> Holder.IO_SCHEDULER);
+        RxJavaPlugins.setComputationSchedulerHandler(scheduler -> Holder.CPU_SCHEDULER);
+        LogUtils.debugInfo(TAG, "installed, cpu threads: " + CPU_COUNT + ", io threads: " + IO_THREADS);
+    }
+
+    /**
+     * 输出所有线程池的统计信息
+     */
+    @NonNull
+    public static String report() {
+        return Holder.CPU + "\n" + Holder.IO + "\n" + Holder.INTERACTIVE + "\n" + "Arms-FJ " + Holder.FORK_JOIN + "\n"
+                + "Arms-Overflow threads: " + Holder.OVERFLOW.getPoolSize() + "/" + OVERFLOW_THREADS
+                + ", queued: " + Holder.OVERFLOW.getQueue().size() + ", overflowed: " + Holder.OVERFLOWED.get()
+                + ", caller ran: " + Holder.CALLER_RAN.get() + ", rejected: " + Holder.REJECTED.get() + "\n";
+    }
+}
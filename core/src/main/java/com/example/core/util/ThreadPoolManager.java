@@ -1,24 +1,69 @@
 package com.example.core.util;
 
-import android.app.ActivityManager;
+import android.os.Process;
 
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.core.net.metrics.LatencyHistogram;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-public final class ThreadPoolManager extends ThreadPoolExecutor {
+/**
+ * ================================================
+ * App 内执行后台任务的调度器, 按 {@link TaskLane} 分为多个通道:
+ * <p>
+ * 1. {@link TaskLane#USER_VISIBLE}、{@link TaskLane#BACKGROUND} 的任务交给 {@link ThreadGovernor#io()} 执行,
+ * 与 RxJava、OkHttp 共用线程, 每个通道有自己的并发上限和线程优先级, 后台任务再多也只占用少量线程;
+ * 通道的优先级只体现在并发上限和线程优先级上, 提交给 io() 之后与其他任务在同一个 FIFO 队列中排队
+ * 2. {@link TaskLane#USER_INTERACTIVE} 的任务交给 {@link ThreadGovernor#interactive()} 保留的线程执行,
+ * 不会排在 io() 队列中的网络请求、后台任务后面
+ * 3. {@link TaskLane#COMPUTE} 的任务交给 {@link ThreadGovernor#forkJoin()} 执行, 支持 fork/join 与工作窃取
+ * <p>
+ * 任务可以关联 {@link CancellationToken}, 如 {@link CancellationToken#bindTo(androidx.lifecycle.LifecycleOwner)}
+ * 在 Activity 销毁时取消; 每个通道统计任务的排队耗时与执行耗时, 通过 {@link #report()} 输出
+ * <p>
+ * 线程池是共用的, 所以 {@link #shutdown()} 等方法不会关闭它
+ * ================================================
+ */
+public final class ThreadPoolManager extends AbstractExecutorService {
+    private static final String TAG = "ThreadPoolManager";
 
     private static volatile ThreadPoolManager sInstance;
 
+    private final Map<TaskLane, Lane> mLanes = new EnumMap<>(TaskLane.class);
+
     public ThreadPoolManager() {
-        super(0, Integer.MAX_VALUE,
-                30L, TimeUnit.SECONDS,
-                new SynchronousQueue<>());
+        int cpuCount = Runtime.getRuntime().availableProcessors();
+        Executor io = ThreadGovernor.io();
+        mLanes.put(TaskLane.USER_INTERACTIVE, new Lane(TaskLane.USER_INTERACTIVE, ThreadGovernor.interactive(),
+                ThreadGovernor.interactive().getMaximumPoolSize(), Process.THREAD_PRIORITY_DEFAULT));
+        mLanes.put(TaskLane.USER_VISIBLE, new Lane(TaskLane.USER_VISIBLE, io,
+                Math.max(4, cpuCount), Process.THREAD_PRIORITY_DEFAULT + Process.THREAD_PRIORITY_LESS_FAVORABLE));
+        mLanes.put(TaskLane.BACKGROUND, new Lane(TaskLane.BACKGROUND, io,
+                2, Process.THREAD_PRIORITY_BACKGROUND));
+        //ForkJoinPool 自己管理线程优先级
+        mLanes.put(TaskLane.COMPUTE, new Lane(TaskLane.COMPUTE, ThreadGovernor.forkJoin(),
+                ThreadGovernor.forkJoin().getParallelism(), Integer.MIN_VALUE));
     }
 
     public static ThreadPoolManager getInstance() {
         if(sInstance == null) {
-            synchronized (ActivityManager.class) {
+            synchronized (ThreadPoolManager.class) {
                 if(sInstance == null) {
                     sInstance = new ThreadPoolManager();
                 }
@@ -26,4 +71,262 @@ public final class ThreadPoolManager extends ThreadPoolExecutor {
         }
         return sInstance;
     }
-}
\ No newline at end of file
+
+    /**
+     * 在 {@link TaskLane#USER_VISIBLE} 通道执行任务
+     */
+    @Override
+    public void execute(@NonNull Runnable command) {
+        execute(TaskLane.USER_VISIBLE, null, command);
+    }
+
+    /**
+     * 在指定通道执行任务
+     *
+     * @param lane 通道
+     * @param task 任务
+     * @return 可以用来取消任务或者等待任务结束的 {@link Future}
+     */
+    @NonNull
+    public Future<?> execute(@NonNull TaskLane lane, @NonNull Runnable task) {
+        return execute(lane, null, task);
+    }
+
+    /**
+     * 在指定通道执行任务, token 取消时任务也被取消
+     *
+     * @param lane  通道
+     * @param token 取消标记, 可以为 {@code null}
+     * @param task  任务
+     * @return 可以用来取消任务或者等待任务结束的 {@link Future}
+     */
+    @NonNull
+    public Future<?> execute(@NonNull TaskLane lane, @Nullable CancellationToken token, @NonNull Runnable task) {
+        Preconditions.checkNotNull(lane, "lane == null");
+        Preconditions.checkNotNull(task, "task == null");
+        LaneTask<Object> laneTask = new LaneTask<>(task, token);
+        if (token != null) {
+            token.register(laneTask);
+        }
+        mLanes.get(lane).enqueue(laneTask);
+        return laneTask;
+    }
+
+    /**
+     * 在 {@link TaskLane#COMPUTE} 通道执行可以 fork 子任务的计算任务, 并等待结果
+     * 子任务由 {@link java.util.concurrent.ForkJoinPool} 的空闲线程窃取执行, 不受通道并发上限限制
+     *
+     * @param task 计算任务
+     * @param <T>  结果类型
+     * @return 计算结果
+     */
+    public <T> T invoke(@NonNull ForkJoinTask<T> task) {
+        Preconditions.checkNotNull(task, "task == null");
+        long startedAt = System.nanoTime();
+        try {
+            return ThreadGovernor.forkJoin().invoke(task);
+        } finally {
+            mLanes.get(TaskLane.COMPUTE).mRunTime.recordNanos(System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * 修改通道的并发上限
+     *
+     * @param lane        通道
+     * @param concurrency 同时执行的任务数上限
+     */
+    public void setConcurrency(@NonNull TaskLane lane, int concurrency) {
+        Preconditions.checkArgument(concurrency > 0, "concurrency must be > 0");
+        mLanes.get(lane).setConcurrency(concurrency);
+    }
+
+    /**
+     * 通道中排队的任务数
+     */
+    public int getQueuedCount(@NonNull TaskLane lane) {
+        return mLanes.get(lane).getQueuedCount();
+    }
+
+    /**
+     * 通道中任务的排队耗时
+     */
+    @NonNull
+    public LatencyHistogram getQueueWait(@NonNull TaskLane lane) {
+        return mLanes.get(lane).mQueueWait;
+    }
+
+    /**
+     * 通道中任务的执行耗时
+     */
+    @NonNull
+    public LatencyHistogram getRunTime(@NonNull TaskLane lane) {
+        return mLanes.get(lane).mRunTime;
+    }
+
+    /**
+     * 输出所有通道的统计信息
+     */
+    @NonNull
+    public String report() {
+        StringBuilder builder = new StringBuilder();
+        for (Lane lane : mLanes.values()) {
+            builder.append(lane).append("\n");
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @NonNull
+    @Override
+    public List<Runnable> shutdownNow() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @NonNull TimeUnit unit) {
+        return false;
+    }
+
+    /**
+     * 一个通道: 自己的等待队列, 最多同时向线程池提交 mConcurrency 个任务
+     */
+    private static final class Lane {
+        final TaskLane mLane;
+        final Executor mExecutor;
+        final int mThreadPriority;
+        final ArrayDeque<LaneTask<?>> mQueue = new ArrayDeque<>();
+        final LatencyHistogram mQueueWait = new LatencyHistogram();
+        final LatencyHistogram mRunTime = new LatencyHistogram();
+        final AtomicLong mCompleted = new AtomicLong();
+        final AtomicLong mRejected = new AtomicLong();
+        int mConcurrency;
+        int mRunning;
+
+        Lane(TaskLane lane, Executor executor, int concurrency, int threadPriority) {
+            this.mLane = lane;
+            this.mExecutor = executor;
+            this.mConcurrency = concurrency;
+            this.mThreadPriority = threadPriority;
+        }
+
+        void enqueue(LaneTask<?> task) {
+            synchronized (this) {
+                mQueue.add(task);
+            }
+            drain();
+        }
+
+        synchronized void setConcurrency(int concurrency) {
+            mConcurrency = concurrency;
+            drain();
+        }
+
+        synchronized int getQueuedCount() {
+            return mQueue.size();
+        }
+
+        /**
+         * 在并发上限内把排队的任务提交给线程池, 已经取消的任务直接丢弃
+         */
+        synchronized void drain() {
+            while (mRunning < mConcurrency && !mQueue.isEmpty()) {
+                LaneTask<?> task = mQueue.poll();
+                if (task.isCancelled()) {
+                    continue;
+                }
+                mRunning++;
+                try {
+                    mExecutor.execute(() -> run(task));
+                } catch (RejectedExecutionException e) {
+                    mRunning--;
+                    mRejected.incrementAndGet();
+                    task.reject(e);
+                }
+            }
+        }
+
+        private void run(LaneTask<?> task) {
+            long startedAt = System.nanoTime();
+            mQueueWait.recordNanos(startedAt - task.mSubmittedAt);
+            int tid = Process.myTid();
+            int previousPriority = 0;
+            boolean changePriority = mThreadPriority != Integer.MIN_VALUE;
+            if (changePriority) {
+                previousPriority = Process.getThreadPriority(tid);
+                Process.setThreadPriority(mThreadPriority);
+            }
+            try {
+                task.run();
+            } finally {
+                if (changePriority) {
+                    Process.setThreadPriority(previousPriority);
+                }
+                mRunTime.recordNanos(System.nanoTime() - startedAt);
+                mCompleted.incrementAndGet();
+                synchronized (this) {
+                    mRunning--;
+                    drain();
+                }
+            }
+        }
+
+        @NonNull
+        @Override
+        public synchronized String toString() {
+            return mLane + " running: " + mRunning + "/" + mConcurrency
+                    + ", queued: " + mQueue.size()
+                    + ", completed: " + mCompleted.get()
+                    + ", rejected: " + mRejected.get()
+                    + "\n  queue wait " + mQueueWait
+                    + "\n  run time " + mRunTime;
+        }
+    }
+
+    /**
+     * 记录提交时间, 结束时与 {@link CancellationToken} 解除关联, 任务抛出的异常打印日志
+     */
+    private static final class LaneTask<T> extends FutureTask<T> {
+        final long mSubmittedAt = System.nanoTime();
+        @Nullable
+        final CancellationToken mToken;
+
+        LaneTask(Runnable runnable, @Nullable CancellationToken token) {
+            super(runnable, null);
+            this.mToken = token;
+        }
+
+        void reject(RejectedExecutionException e) {
+            setException(e);
+        }
+
+        @Override
+        protected void done() {
+            if (mToken != null) {
+                mToken.unregister(this);
+            }
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                get();
+            } catch (ExecutionException e) {
+                LogUtils.warnInfo(TAG, "task failed: " + e.getCause());
+            } catch (InterruptedException | CancellationException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.core.cache;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.math.BigDecimal;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link BinaryJsonCodec} 的编码、解码以及损坏数据的处理
+ */
+public class BinaryJsonCodecTest {
+
+    @Test
+    public void roundTripsPrimitives() throws Exception {
+        assertRoundTrip(JsonNull.INSTANCE);
+        assertRoundTrip(new JsonPrimitive(true));
+        assertRoundTrip(new JsonPrimitive(false));
+        assertRoundTrip(new JsonPrimitive(""));
+        assertRoundTrip(new JsonPrimitive("操作成功 😀"));
+        assertRoundTrip(new JsonPrimitive(2.5d));
+        assertRoundTrip(new JsonPrimitive(new BigDecimal("12345678901234567890.123456789")));
+    }
+
+    @Test
+    public void roundTripsLongsOfEverySize() throws Exception {
+        long[] values = {0, 1, -1, 63, -64, 64, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            assertEquals(value, roundTrip(new JsonPrimitive(value)).getAsLong());
+        }
+    }
+
+    @Test
+    public void roundTripsNestedStructures() throws Exception {
+        JsonElement element = new JsonParser().parse("{\"code\":200,\"message\":\"ok\",\"data\":{\"pageNum\":1,"
+                + "\"list\":[{\"id\":1,\"name\":\"a\",\"tags\":[]},{\"id\":2,\"name\":null,\"tags\":[\"x\",{}]}]}}");
+        assertEquals(element, roundTrip(element));
+    }
+
+    @Test
+    public void writesRepeatedNamesOnce() {
+        JsonArray list = new JsonArray();
+        for (int i = 0; i < 100; i++) {
+            JsonObject item = new JsonObject();
+            item.addProperty("a_rather_long_field_name", i);
+            list.add(item);
+        }
+        Buffer buffer = new Buffer();
+        BinaryJsonCodec.encode(list, buffer);
+        String encoded = buffer.readUtf8();
+        assertEquals(encoded.indexOf("a_rather_long_field_name"), encoded.lastIndexOf("a_rather_long_field_name"));
+    }
+
+    @Test
+    public void rejectsOversizedLength() throws Exception {
+        //数组声明了 2^40 个元素, 但后面没有数据
+        Buffer buffer = new Buffer().writeByte(6);
+        writeVarint(buffer, 1L << 40);
+        assertCorrupted(buffer);
+
+        buffer = new Buffer().writeByte(5);
+        writeVarint(buffer, Integer.MAX_VALUE);
+        buffer.writeUtf8("abc");
+        assertCorrupted(buffer);
+    }
+
+    @Test
+    public void rejectsUnknownNameReference() throws Exception {
+        Buffer buffer = new Buffer().writeByte(7);
+        writeVarint(buffer, 1);
+        buffer.writeByte(1);
+        writeVarint(buffer, 3);
+        buffer.writeByte(0);
+        assertCorrupted(buffer);
+    }
+
+    @Test
+    public void rejectsTruncatedData() throws Exception {
+        Buffer buffer = new Buffer();
+        BinaryJsonCodec.encode(new JsonParser().parse("{\"id\":1,\"name\":\"alice\"}"), buffer);
+        Buffer truncated = new Buffer();
+        buffer.copyTo(truncated, 0, buffer.size() - 3);
+        assertCorrupted(truncated);
+    }
+
+    private static JsonElement roundTrip(JsonElement element) throws EOFException {
+        Buffer buffer = new Buffer();
+        BinaryJsonCodec.encode(element, buffer);
+        JsonElement decoded = BinaryJsonCodec.decode(buffer);
+        assertEquals(0, buffer.size());
+        return decoded;
+    }
+
+    private static void assertRoundTrip(JsonElement element) throws EOFException {
+        assertEquals(element, roundTrip(element));
+    }
+
+    private static void assertCorrupted(Buffer buffer) {
+        try {
+            BinaryJsonCodec.decode(buffer);
+            fail();
+        } catch (JsonParseException | EOFException expected) {
+        }
+    }
+
+    private static void writeVarint(Buffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.writeByte((int) value);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.core.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import io.victoralbertos.jolyglot.GsonSpeaker;
+import io.victoralbertos.jolyglot.JolyglotGenerics;
+
+import static org.junit.Assert.*;
+
+/**
+ * 对比 {@link GsonSpeaker} 与 {@link BinarySpeaker} 写入、读取缓存文件的耗时以及文件大小
+ * <p>
+ * 与 RxCache 一样先序列化为字符串再写入文件, 读取时直接读文件; 耗时较长, 只在指定 {@code -Pbenchmark} 时运行,
+ * 文件大小的断言在 {@link BinarySpeakerTest} 中
+ */
+public class BinarySpeakerBenchmarkTest {
+    private static final int PRODUCTS = 5000;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 10;
+    private static final int ROUNDS = 3;
+    private static final Type TYPE = new TypeToken<List<BinarySpeakerTest.Product>>() {
+    }.getType();
+
+    private final Gson mGson = new Gson();
+    private final List<BinarySpeakerTest.Product> mProducts = BinarySpeakerTest.Product.list(PRODUCTS);
+    private File mDir;
+
+    @Before
+    public void setUp() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        mDir = Files.createTempDirectory("speaker-benchmark").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        if (mDir == null) {
+            return;
+        }
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        JolyglotGenerics json = new GsonSpeaker(mGson);
+        JolyglotGenerics binary = new BinarySpeaker(mGson);
+        File jsonFile = new File(mDir, "json");
+        File binaryFile = new File(mDir, "binary");
+        long[] jsonTimes = {Long.MAX_VALUE, Long.MAX_VALUE};
+        long[] binaryTimes = {Long.MAX_VALUE, Long.MAX_VALUE};
+        //交替测量并取最小值, 减少先后顺序与 GC 的影响
+        for (int round = 0; round < ROUNDS; round++) {
+            measure(json, jsonFile, jsonTimes);
+            measure(binary, binaryFile, binaryTimes);
+        }
+        String result = String.format("%d products, json: write %.2f ms/op, read %.2f ms/op, %d bytes; "
+                        + "binary: write %.2f ms/op, read %.2f ms/op, %d bytes",
+                PRODUCTS, jsonTimes[0] / 1e6, jsonTimes[1] / 1e6, jsonFile.length(),
+                binaryTimes[0] / 1e6, binaryTimes[1] / 1e6, binaryFile.length());
+        assertTrue(result, binaryTimes[1] < jsonTimes[1]);
+    }
+
+    /**
+     * 把每次写入、读取的平均耗时 (单位纳秒) 与 times 中已有的值比较, 保留较小值
+     */
+    private void measure(JolyglotGenerics speaker, File file, long[] times) throws IOException {
+        for (int i = 0; i < WARMUP; i++) {
+            write(speaker, file);
+            read(speaker, file);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            write(speaker, file);
+        }
+        times[0] = Math.min(times[0], (System.nanoTime() - start) / ITERATIONS);
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            read(speaker, file);
+        }
+        times[1] = Math.min(times[1], (System.nanoTime() - start) / ITERATIONS);
+    }
+
+    private void write(JolyglotGenerics speaker, File file) throws IOException {
+        Files.write(file.toPath(), speaker.toJson(mProducts, TYPE).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void read(JolyglotGenerics speaker, File file) {
+        List<BinarySpeakerTest.Product> products = speaker.fromJson(file, TYPE);
+        assertEquals(PRODUCTS, products.size());
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.core.cache;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link BinarySpeaker} 的读写、兼容旧的 JSON 缓存以及损坏数据的处理
+ */
+public class BinarySpeakerTest {
+    private static final Type TYPE = new TypeToken<List<Product>>() {
+    }.getType();
+
+    private final Gson mGson = new Gson();
+    private final BinarySpeaker mSpeaker = new BinarySpeaker(mGson);
+
+    @Test
+    public void roundTripsCompressedAndUncompressed() throws Exception {
+        for (BinarySpeaker speaker : Arrays.asList(mSpeaker, new BinarySpeaker(mGson, false))) {
+            List<Product> products = Product.list(200);
+            String encoded = speaker.toJson(products, TYPE);
+            assertTrue(encoded.startsWith("RXB:"));
+            List<Product> decoded = speaker.fromJson(encoded, TYPE);
+            assertEquals(mGson.toJson(products), mGson.toJson(decoded));
+
+            File file = File.createTempFile("binary-speaker", ".txt");
+            try {
+                Files.write(file.toPath(), encoded.getBytes(StandardCharsets.US_ASCII));
+                List<Product> read = speaker.fromJson(file, TYPE);
+                assertEquals(mGson.toJson(products), mGson.toJson(read));
+            } finally {
+                file.delete();
+            }
+        }
+    }
+
+    @Test
+    public void encodesSmallerThanJson() {
+        List<Product> products = Product.list(1000);
+        String json = mGson.toJson(products, TYPE);
+        String binary = mSpeaker.toJson(products, TYPE);
+        assertTrue(binary.length() * 2 < json.length());
+        assertTrue(new BinarySpeaker(mGson, false).toJson(products, TYPE).length() < json.length());
+    }
+
+    @Test
+    public void keepsSmallValuesAsJson() {
+        String encoded = mSpeaker.toJson(Product.list(1).get(0), Product.class);
+        assertFalse(encoded.startsWith("RXB:"));
+        assertEquals("p0", mSpeaker.fromJson(encoded, Product.class).name);
+    }
+
+    @Test
+    public void readsLegacyJsonFile() throws Exception {
+        List<Product> products = Product.list(3);
+        File file = File.createTempFile("binary-speaker", ".json");
+        try {
+            Files.write(file.toPath(), mGson.toJson(products).getBytes(StandardCharsets.UTF_8));
+            List<Product> read = mSpeaker.fromJson(file, TYPE);
+            assertEquals(mGson.toJson(products), mGson.toJson(read));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void rejectsHugeInflatedLength() {
+        //deflate 格式, 声明解压后有 2GB, 实际只有几个字节
+        Buffer payload = new Buffer().writeByte(1).writeByte(1).writeInt(Integer.MAX_VALUE).write(new byte[]{1, 2, 3});
+        assertCorrupted("RXB:" + payload.readByteString().base64());
+
+        payload = new Buffer().writeByte(1).writeByte(1).writeInt(-1).write(new byte[]{1, 2, 3});
+        assertCorrupted("RXB:" + payload.readByteString().base64());
+    }
+
+    @Test
+    public void rejectsCorruptedPayload() {
+        assertCorrupted("RXB:not base64!");
+        assertCorrupted("RXB:" + new Buffer().writeByte(9).writeByte(0).readByteString().base64());
+        String encoded = mSpeaker.toJson(Product.list(200), TYPE);
+        assertCorrupted(encoded.substring(0, encoded.length() / 2));
+    }
+
+    private void assertCorrupted(String encoded) {
+        try {
+            mSpeaker.fromJson(encoded, TYPE);
+            fail();
+        } catch (JsonParseException expected) {
+        }
+    }
+
+    static final class Product {
+        long id;
+        String name;
+        double price;
+        boolean onSale;
+        List<String> tags;
+
+        static List<Product> list(int count) {
+            List<Product> products = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Product product = new Product();
+                product.id = 1000000L + i;
+                product.name = "p" + i;
+                product.price = i * 1.25;
+                product.onSale = i % 3 == 0;
+                product.tags = Arrays.asList("tag" + i % 7, "新品");
+                products.add(product);
+            }
+            return products;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.core.gson;
+
+import com.example.core.api.CommonPage;
+import com.example.core.api.CommonResult;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 对比反射与编译期生成的 TypeAdapter 解析 {@link CommonResult}、{@link CommonPage} 的耗时
+ * <p>
+ * 解析耗时的对比较慢且受机器负载影响, 只在指定 {@code -Pbenchmark} 时运行
+ */
+public class TypeAdapterBenchmarkTest {
+    private static final int RESULTS = 20000;
+    private static final int WARMUP = 5;
+    private static final int ITERATIONS = 10;
+    private static final int ROUNDS = 3;
+    private static final Type TYPE = new TypeToken<List<CommonResult<CommonPage<String>>>>() {
+    }.getType();
+
+    private final Gson mReflective = new Gson();
+    private final Gson mGenerated = new GsonBuilder()
+            .registerTypeAdapterFactory(new CoreGsonAdapterFactory())
+            .create();
+
+    @Test
+    public void generatedAdapterIsUsed() {
+        String name = mGenerated.getAdapter(CommonResult.class).getClass().getSimpleName();
+        assertEquals("CommonResult_TypeAdapter", name);
+    }
+
+    @Test
+    public void generatedMatchesReflective() {
+        String json = json(100);
+        List<CommonResult<CommonPage<String>>> reflective = mReflective.fromJson(json, TYPE);
+        List<CommonResult<CommonPage<String>>> generated = mGenerated.fromJson(json, TYPE);
+        assertEquals(mReflective.toJson(reflective, TYPE), mReflective.toJson(generated, TYPE));
+        assertEquals(mReflective.toJson(reflective, TYPE), mGenerated.toJson(generated, TYPE));
+    }
+
+    @Test
+    public void parse() {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+        String json = json(RESULTS);
+        long reflective = Long.MAX_VALUE;
+        long generated = Long.MAX_VALUE;
+        //交替测量并取最小值, 减少先后顺序与 GC 的影响
+        for (int round = 0; round < ROUNDS; round++) {
+            reflective = Math.min(reflective, measure(mReflective, json));
+            generated = Math.min(generated, measure(mGenerated, json));
+        }
+        String result = String.format("parse %d results: reflective %.2f ms/op, generated %.2f ms/op",
+                RESULTS, reflective / 1e6, generated / 1e6);
+        assertTrue(result, generated < reflective);
+    }
+
+    /**
+     * @return 每次解析的平均耗时 (单位纳秒)
+     */
+    private static long measure(Gson gson, String json) {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            List<CommonResult<CommonPage<String>>> results = gson.fromJson(json, TYPE);
+            sink += results.size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            List<CommonResult<CommonPage<String>>> results = gson.fromJson(json, TYPE);
+            sink += results.size();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals((WARMUP + ITERATIONS) * RESULTS, sink);
+        return elapsed / ITERATIONS;
+    }
+
+    private static String json(int count) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"code\":200,\"message\":\"操作成功\",\"data\":{\"pageNum\":").append(i)
+                    .append(",\"pageSize\":3,\"totalPage\":10,\"total\":30,\"data\":[\"a")
+                    .append(i).append("\",\"b\",\"c\"]}}");
+        }
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.core.net;
+
+import com.example.core.net.metrics.AddressStats;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Dns;
+
+import static org.junit.Assert.*;
+
+/**
+ * 使用假的 {@link Dns} 验证 {@link ApiDns} 的缓存、刷新与排序
+ */
+public class ApiDnsTest {
+    private static final long TTL_MS = 200;
+
+    private final FakeDns mDelegate = new FakeDns();
+    private final QueueExecutor mExecutor = new QueueExecutor();
+    private final AddressStats mStats = new AddressStats();
+    private final ApiDns mDns = new ApiDns(mDelegate, mExecutor, TTL_MS, TTL_MS, mStats, new ConnectionRacer(mStats, 1000));
+
+    @Test
+    public void cachesAnswer() throws Exception {
+        mDelegate.answer(ip(10, 0, 0, 1));
+        assertEquals(Arrays.asList(ip(10, 0, 0, 1)), mDns.lookup("api.example.com"));
+        assertEquals(Arrays.asList(ip(10, 0, 0, 1)), mDns.lookup("api.example.com"));
+        assertEquals(1, mDelegate.mLookups.get());
+    }
+
+    @Test
+    public void putsIpv4First() throws Exception {
+        InetAddress v6 = InetAddress.getByName("2001:db8::1");
+        mDelegate.answer(v6, ip(10, 0, 0, 1));
+        assertEquals(Arrays.asList(ip(10, 0, 0, 1), v6), mDns.lookup("api.example.com"));
+    }
+
+    @Test
+    public void concurrentColdLookupsResolveOnce() throws Exception {
+        mDelegate.answer(ip(10, 0, 0, 1));
+        mDelegate.mDelayMs = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<InetAddress>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit((Callable<List<InetAddress>>) () -> {
+                    start.await();
+                    return mDns.lookup("api.example.com");
+                }));
+            }
+            start.countDown();
+            for (Future<List<InetAddress>> future : futures) {
+                assertEquals(Arrays.asList(ip(10, 0, 0, 1)), future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, mDelegate.mLookups.get());
+    }
+
+    @Test
+    public void refreshesInBackgroundBeforeExpiry() throws Exception {
+        mDelegate.answer(ip(10, 0, 0, 1));
+        mDns.lookup("api.example.com");
+        Thread.sleep(TTL_MS * 8 / 10);
+
+        mDelegate.answer(ip(10, 0, 0, 2));
+        assertEquals(Arrays.asList(ip(10, 0, 0, 1)), mDns.lookup("api.example.com"));
+        mDns.lookup("api.example.com");
+        //多次命中只安排一次刷新
+        assertEquals(1, mExecutor.runAll());
+        assertEquals(Arrays.asList(ip(10, 0, 0, 2)), mDns.lookup("api.example.com"));
+        assertEquals(2, mDelegate.mLookups.get());
+    }
+
+    @Test
+    public void servesStaleEntryAfterExpiry() throws Exception {
+        mDelegate.answer(ip(10, 0, 0, 1));
+        mDns.lookup("api.example.com");
+        Thread.sleep(TTL_MS + 20);
+
+        //过期后不在请求线程中解析
+        mDelegate.fail();
+        assertEquals(Arrays.asList(ip(10, 0, 0, 1)), mDns.lookup("api.example.com"));
+        assertEquals(1, mDelegate.mLookups.get());
+        assertEquals(1, mExecutor.runAll());
+        assertEquals(2, mDelegate.mLookups.get());
+
+        //刷新失败后继续使用上一次的结果, 失败有效期内不再解析
+        assertEquals(Arrays.asList(ip(10, 0, 0, 1)), mDns.lookup("api.example.com"));
+        assertEquals(0, mExecutor.runAll());
+        assertEquals(2, mDelegate.mLookups.get());
+    }
+
+    @Test
+    public void resolvesSynchronouslyWhenTooStale() throws Exception {
+        mDelegate.answer(ip(10, 0, 0, 1));
+        mDns.lookup("api.example.com");
+        Thread.sleep(TTL_MS * 2 + 20);
+
+        mDelegate.answer(ip(10, 0, 0, 2));
+        assertEquals(Arrays.asList(ip(10, 0, 0, 2)), mDns.lookup("api.example.com"));
+    }
+
+    @Test
+    public void cachesFailure() throws Exception {
+        mDelegate.fail();
+        for (int i = 0; i < 3; i++) {
+            try {
+                mDns.lookup("missing.example.com");
+                fail();
+            } catch (UnknownHostException expected) {
+            }
+        }
+        assertEquals(1, mDelegate.mLookups.get());
+
+        Thread.sleep(TTL_MS + 20);
+        mDelegate.answer(ip(10, 0, 0, 1));
+        assertEquals(Arrays.asList(ip(10, 0, 0, 1)), mDns.lookup("missing.example.com"));
+    }
+
+    @Test
+    public void ordersByMeasuredSpeed() throws Exception {
+        mDelegate.answer(ip(10, 0, 0, 1), ip(10, 0, 0, 2));
+        assertEquals(Arrays.asList(ip(10, 0, 0, 1), ip(10, 0, 0, 2)), mDns.lookup("api.example.com"));
+
+        mStats.recordSuccess(ip(10, 0, 0, 1), TimeUnit.MILLISECONDS.toNanos(300));
+        mStats.recordSuccess(ip(10, 0, 0, 2), TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(Arrays.asList(ip(10, 0, 0, 2), ip(10, 0, 0, 1)), mDns.lookup("api.example.com"));
+
+        mStats.recordFailure(ip(10, 0, 0, 2));
+        assertEquals(Arrays.asList(ip(10, 0, 0, 1), ip(10, 0, 0, 2)), mDns.lookup("api.example.com"));
+    }
+
+    @Test
+    public void reusesOrderingWhenStatsBarelyChange() throws Exception {
+        mDelegate.answer(ip(10, 0, 0, 1), ip(10, 0, 0, 2));
+        mStats.recordSuccess(ip(10, 0, 0, 1), TimeUnit.MILLISECONDS.toNanos(100));
+        List<InetAddress> first = mDns.lookup("api.example.com");
+
+        //每次连接的微小波动不会使排序结果失效
+        for (int i = 0; i < 10; i++) {
+            mStats.recordSuccess(ip(10, 0, 0, 1), TimeUnit.MILLISECONDS.toNanos(101));
+            assertSame(first, mDns.lookup("api.example.com"));
+        }
+
+        mStats.recordSuccess(ip(10, 0, 0, 1), TimeUnit.MILLISECONDS.toNanos(2000));
+        assertNotSame(first, mDns.lookup("api.example.com"));
+    }
+
+    @Test
+    public void racesOnlyRegisteredHosts() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"))) {
+            InetAddress v6 = InetAddress.getByName("::1");
+            InetAddress v4 = InetAddress.getByName("127.0.0.1");
+            mDelegate.answer(v6, v4);
+
+            mDns.lookup("other.example.com");
+            assertEquals(0, mExecutor.runAll());
+
+            mDns.setRacePort("api.example.com", server.getLocalPort());
+            mDns.lookup("api.example.com");
+            assertEquals(1, mExecutor.runAll());
+            assertTrue(mStats.isMeasured(v4));
+        }
+    }
+
+    static InetAddress ip(int a, int b, int c, int d) throws UnknownHostException {
+        return InetAddress.getByAddress(new byte[]{(byte) a, (byte) b, (byte) c, (byte) d});
+    }
+
+    static final class FakeDns implements Dns {
+        final AtomicInteger mLookups = new AtomicInteger();
+        volatile List<InetAddress> mAnswer;
+        volatile long mDelayMs;
+
+        void answer(InetAddress... addresses) {
+            mAnswer = Arrays.asList(addresses);
+        }
+
+        void fail() {
+            mAnswer = null;
+        }
+
+        @Override
+        public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+            mLookups.incrementAndGet();
+            if (mDelayMs > 0) {
+                try {
+                    Thread.sleep(mDelayMs);
+                } catch (InterruptedException e) {
+                    throw new UnknownHostException("interrupted");
+                }
+            }
+            List<InetAddress> answer = mAnswer;
+            if (answer == null) {
+                throw new UnknownHostException(hostname);
+            }
+            return answer;
+        }
+    }
+
+    /**
+     * 手动执行后台任务
+     */
+    static final class QueueExecutor implements Executor {
+        private final List<Runnable> mTasks = new ArrayList<>();
+
+        @Override
+        public synchronized void execute(Runnable command) {
+            mTasks.add(command);
+        }
+
+        /**
+         * @return 执行的任务数
+         */
+        int runAll() {
+            List<Runnable> tasks;
+            synchronized (this) {
+                tasks = new ArrayList<>(mTasks);
+                mTasks.clear();
+            }
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return tasks.size();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.core.net;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CircuitBreaker} 的状态切换
+ */
+public class CircuitBreakerTest {
+    private static final long OPEN_DURATION_MS = 20;
+
+    private final List<String> mTransitions = new ArrayList<>();
+    private final CircuitBreaker mBreaker = new CircuitBreaker("example.com", 3, OPEN_DURATION_MS,
+            (host, from, to) -> mTransitions.add(from + "->" + to));
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        failOnce();
+        failOnce();
+        assertEquals(CircuitBreaker.State.CLOSED, mBreaker.getState());
+        failOnce();
+        assertEquals(CircuitBreaker.State.OPEN, mBreaker.getState());
+        assertEquals(1, mTransitions.size());
+
+        CircuitBreaker breaker = new CircuitBreaker("example.com", 1, 60 * 1000, null);
+        breaker.onFailure(breaker.tryAcquire());
+        assertNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void successResetsFailureCount() {
+        failOnce();
+        failOnce();
+        mBreaker.onSuccess(mBreaker.tryAcquire());
+        failOnce();
+        failOnce();
+        assertEquals(CircuitBreaker.State.CLOSED, mBreaker.getState());
+        assertNotNull(mBreaker.tryAcquire());
+    }
+
+    @Test
+    public void halfOpenAllowsSingleProbe() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS * 2);
+        CircuitBreaker.Permit probe = mBreaker.tryAcquire();
+        assertNotNull(probe);
+        assertTrue(probe.isProbe());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, mBreaker.getState());
+        assertNull(mBreaker.tryAcquire());
+
+        mBreaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, mBreaker.getState());
+        assertNotNull(mBreaker.tryAcquire());
+        assertEquals("[CLOSED->OPEN, OPEN->HALF_OPEN, HALF_OPEN->CLOSED]", mTransitions.toString());
+    }
+
+    @Test
+    public void failedProbeReopens() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS * 2);
+        mBreaker.onFailure(mBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, mBreaker.getState());
+        assertNull(mBreaker.tryAcquire());
+    }
+
+    @Test
+    public void releasedProbeLetsNextRequestProbe() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS * 2);
+        //探测请求被取消, 不计入成败
+        mBreaker.release(mBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, mBreaker.getState());
+        assertNotNull(mBreaker.tryAcquire());
+        assertNull(mBreaker.tryAcquire());
+    }
+
+    @Test
+    public void staleSuccessDoesNotCloseOpenBreaker() {
+        //熔断之前发出的慢请求, 在熔断之后才成功返回
+        CircuitBreaker.Permit slow = mBreaker.tryAcquire();
+        open();
+        mBreaker.onSuccess(slow);
+        assertEquals(CircuitBreaker.State.OPEN, mBreaker.getState());
+        assertNull(mBreaker.tryAcquire());
+        assertEquals("[CLOSED->OPEN]", mTransitions.toString());
+    }
+
+    @Test
+    public void staleResultsDoNotReleaseProbe() throws InterruptedException {
+        CircuitBreaker.Permit slowFailure = mBreaker.tryAcquire();
+        CircuitBreaker.Permit slowCancel = mBreaker.tryAcquire();
+        CircuitBreaker.Permit slowSuccess = mBreaker.tryAcquire();
+        open();
+        Thread.sleep(OPEN_DURATION_MS * 2);
+        CircuitBreaker.Permit probe = mBreaker.tryAcquire();
+        assertTrue(probe.isProbe());
+
+        //旧请求的结果不能清除探测标记, 也不能改变 HALF_OPEN 状态
+        mBreaker.onFailure(slowFailure);
+        mBreaker.release(slowCancel);
+        mBreaker.onSuccess(slowSuccess);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, mBreaker.getState());
+        assertNull(mBreaker.tryAcquire());
+
+        mBreaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, mBreaker.getState());
+    }
+
+    @Test
+    public void releasedProbeCannotReportLater() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS * 2);
+        CircuitBreaker.Permit first = mBreaker.tryAcquire();
+        mBreaker.release(first);
+        CircuitBreaker.Permit second = mBreaker.tryAcquire();
+
+        mBreaker.onSuccess(first);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, mBreaker.getState());
+        mBreaker.onFailure(second);
+        assertEquals(CircuitBreaker.State.OPEN, mBreaker.getState());
+    }
+
+    private void failOnce() {
+        mBreaker.onFailure(mBreaker.tryAcquire());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            failOnce();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, mBreaker.getState());
+    }
+}
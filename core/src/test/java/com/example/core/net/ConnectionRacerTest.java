@@ -0,0 +1,67 @@
+package com.example.core.net;
+
+import com.example.core.net.metrics.AddressStats;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在本机回环地址上验证 {@link ConnectionRacer}
+ */
+public class ConnectionRacerTest {
+    private final AddressStats mStats = new AddressStats();
+    private final ConnectionRacer mRacer = new ConnectionRacer(mStats, 1000);
+
+    @Test
+    public void failsOverToNextAddress() throws Exception {
+        InetAddress v6 = InetAddress.getByName("::1");
+        InetAddress v4 = InetAddress.getByName("127.0.0.1");
+        //只在 IPv4 上监听, ::1 的连接被拒绝或者不可用
+        try (ServerSocket server = new ServerSocket(0, 50, v4)) {
+            long start = System.nanoTime();
+            assertEquals(v4, mRacer.race(Arrays.asList(v6, v4), server.getLocalPort()));
+            //前一个地址失败后立即启动下一个, 不用等待 stagger
+            assertTrue(System.nanoTime() - start < ConnectionRacer.DEFAULT_STAGGER_MS * 1000000L);
+        }
+        assertTrue(mStats.isMeasured(v4));
+        assertFalse(mStats.isMeasured(v6));
+        assertTrue(mStats.score(v6) > mStats.score(v4));
+    }
+
+    @Test
+    public void allFailedReturnsNull() throws Exception {
+        InetAddress v4 = InetAddress.getByName("127.0.0.1");
+        int port;
+        try (ServerSocket server = new ServerSocket(0, 50, v4)) {
+            port = server.getLocalPort();
+        }
+        assertNull(mRacer.race(Collections.singletonList(v4), port));
+        assertFalse(mStats.isMeasured(v4));
+    }
+
+    @Test
+    public void skipsMeasuredAddresses() throws Exception {
+        InetAddress v4 = InetAddress.getByName("127.0.0.1");
+        mStats.recordSuccess(v4, 1000000L);
+        long version = mStats.version();
+        //端口 1 上没有监听, 如果连接了会记录失败
+        assertNull(mRacer.race(Collections.singletonList(v4), 1));
+        assertEquals(version, mStats.version());
+    }
+
+    @Test
+    public void interleavesAddressFamilies() throws Exception {
+        InetAddress a4 = InetAddress.getByName("10.0.0.1");
+        InetAddress b4 = InetAddress.getByName("10.0.0.2");
+        InetAddress a6 = InetAddress.getByName("2001:db8::1");
+        InetAddress b6 = InetAddress.getByName("2001:db8::2");
+        assertEquals(Arrays.asList(a6, a4, b6, b4), ConnectionRacer.interleave(Arrays.asList(a6, b6, a4, b4)));
+        assertEquals(Arrays.asList(a4, a6, b4, b6), ConnectionRacer.interleave(Arrays.asList(a4, b4, a6, b6)));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.core.net;
+
+import com.example.core.cache.LruCache;
+import com.example.core.util.LogUtils;
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.rxjava3.core.Observable;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RepositoryCache} 的文件读写与 {@link CachePolicy} 组合
+ */
+public class RepositoryCacheTest {
+    private final Gson mGson = new Gson();
+    private File mCacheDir;
+
+    @Before
+    public void setUp() throws IOException {
+        LogUtils.setLog(false);
+        mCacheDir = Files.createTempDirectory("repository-cache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        delete(mCacheDir);
+    }
+
+    @Test
+    public void readsBackFromDisk() throws Exception {
+        RepositoryCache cache = newCache();
+        cache.write("user:1", "alice");
+        awaitFileContent(cache, "\"alice\"");
+
+        //新的实例内存中没有数据, 从文件读取
+        assertEquals("alice", newCache().<String>read("user:1", String.class).blockingGet());
+        assertNull(newCache().<String>read("user:2", String.class).blockingGet());
+    }
+
+    @Test
+    public void burstOfWritesKeepsLatestValue() throws Exception {
+        RepositoryCache cache = newCache();
+        for (int i = 1; i <= 500; i++) {
+            cache.write("counter", i);
+        }
+        awaitFileContent(cache, "500");
+        assertEquals(1, cache.getDirectory().list().length);
+    }
+
+    @Test
+    public void removeDeletesFile() throws Exception {
+        RepositoryCache cache = newCache();
+        cache.write("user:1", "alice");
+        awaitFileContent(cache, "\"alice\"");
+        cache.remove("user:1");
+        assertEquals(0, cache.getDirectory().list().length);
+        assertNull(cache.<String>read("user:1", String.class).blockingGet());
+    }
+
+    @Test
+    public void cacheThenNetworkEmitsCacheBeforeNetworkError() throws Exception {
+        RepositoryCache writer = newCache();
+        writer.write("user:1", "cached");
+        awaitFileContent(writer, "\"cached\"");
+
+        IOException error = new IOException("offline");
+        newCache().fetch("user:1", String.class, CachePolicy.CACHE_THEN_NETWORK, Observable.<String>error(error))
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertValues("cached")
+                .assertError(error);
+    }
+
+    @Test
+    public void cacheThenNetworkWritesNetworkResult() throws Exception {
+        RepositoryCache cache = newCache();
+        cache.fetch("user:1", String.class, CachePolicy.CACHE_THEN_NETWORK, Observable.just("fresh"))
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertValues("fresh")
+                .assertComplete();
+        awaitFileContent(cache, "\"fresh\"");
+    }
+
+    @Test
+    public void networkElseCacheFallsBack() throws Exception {
+        RepositoryCache cache = newCache();
+        cache.write("user:1", "cached");
+        cache.fetch("user:1", String.class, CachePolicy.NETWORK_ELSE_CACHE, Observable.<String>error(new IOException()))
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertValues("cached")
+                .assertComplete();
+    }
+
+    @Test
+    public void cacheOnlyIsEmptyWithoutCache() {
+        newCache().fetch("user:1", String.class, CachePolicy.CACHE_ONLY, Observable.just("fresh"))
+                .test()
+                .awaitDone(5, TimeUnit.SECONDS)
+                .assertNoValues()
+                .assertComplete();
+    }
+
+    @SuppressWarnings("unchecked")
+    private RepositoryCache newCache() {
+        return new RepositoryCache(type -> new LruCache<>(100), mCacheDir, () -> mGson);
+    }
+
+    /**
+     * 文件在 IO 线程中异步写入, 等待目录中只剩一个内容为 expected 的文件
+     */
+    private static void awaitFileContent(RepositoryCache cache, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String content = null;
+        while (System.nanoTime() < deadline) {
+            File[] files = cache.getDirectory().listFiles();
+            if (files != null && files.length == 1) {
+                content = new String(Files.readAllBytes(files[0].toPath()), StandardCharsets.UTF_8);
+                if (expected.equals(content)) {
+                    return;
+                }
+            }
+            Thread.sleep(10);
+        }
+        fail("expected " + expected + " but was " + content);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
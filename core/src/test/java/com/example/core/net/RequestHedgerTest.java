@@ -0,0 +1,86 @@
+package com.example.core.net;
+
+import com.example.core.net.metrics.EndpointMetrics;
+import com.example.core.net.metrics.NetworkMetrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Single;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RequestHedger} 的对冲请求在 IO 线程上发起
+ */
+public class RequestHedgerTest {
+    private static final String ENDPOINT = "GET /user";
+
+    private final NetworkMetrics mMetrics = new NetworkMetrics();
+    private final RequestHedger mHedger = new RequestHedger(mMetrics);
+    private Hedge mHedge;
+
+    @Before
+    public void setUp() throws NoSuchMethodException {
+        mHedge = RequestHedgerTest.class.getDeclaredMethod("hedged").getAnnotation(Hedge.class);
+        EndpointMetrics endpoint = mMetrics.endpoint(ENDPOINT);
+        for (int i = 0; i < mHedge.minSamples(); i++) {
+            endpoint.histogram(EndpointMetrics.Phase.TOTAL).recordNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        //攒够一次对冲的预算
+        for (int i = 0; i < 1 / RequestHedger.DEFAULT_BUDGET_RATIO; i++) {
+            assertEquals("ok", mHedger.hedgeSingle(ENDPOINT, mHedge, () -> Single.just("ok")).blockingGet());
+        }
+        assertEquals(0, mHedger.getHedgeCount());
+    }
+
+    @Test
+    public void singleBackupSubscribesOnIo() {
+        AtomicReference<String> backupThread = new AtomicReference<>();
+        boolean[] primary = {true};
+        String result = mHedger.hedgeSingle(ENDPOINT, mHedge, () -> {
+            if (primary[0]) {
+                primary[0] = false;
+                return Single.<String>never();
+            }
+            backupThread.set(Thread.currentThread().getName());
+            return Single.just("backup");
+        }).timeout(5, TimeUnit.SECONDS).blockingGet();
+
+        assertEquals("backup", result);
+        assertEquals(1, mHedger.getHedgeCount());
+        assertIoThread(backupThread.get());
+    }
+
+    @Test
+    public void observableBackupSubscribesOnIo() {
+        AtomicReference<String> backupThread = new AtomicReference<>();
+        boolean[] primary = {true};
+        String result = mHedger.hedgeObservable(ENDPOINT, mHedge, () -> {
+            if (primary[0]) {
+                primary[0] = false;
+                return Observable.<String>never();
+            }
+            backupThread.set(Thread.currentThread().getName());
+            return Observable.just("backup");
+        }).timeout(5, TimeUnit.SECONDS).blockingFirst();
+
+        assertEquals("backup", result);
+        assertEquals(1, mHedger.getHedgeCount());
+        assertIoThread(backupThread.get());
+    }
+
+    private static void assertIoThread(String name) {
+        assertNotNull(name);
+        assertFalse(name, name.startsWith("RxComputation"));
+        assertTrue(name, name.startsWith("RxCachedThreadScheduler"));
+    }
+
+    @Hedge(minDelayMs = 1)
+    private void hedged() {
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.core.net;
+
+import androidx.annotation.Nullable;
+
+import com.example.core.util.LogUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在本地 {@link MockWebServer} 上验证 {@link TokenRefreshHandler} 的并发刷新
+ */
+public class TokenRefreshHandlerTest {
+    private static final int CONCURRENCY = 32;
+
+    private final MockWebServer mServer = new MockWebServer();
+    /**
+     * 服务器当前认可的 token
+     */
+    private volatile String mValidToken = "token-2";
+
+    @Before
+    public void setUp() throws IOException {
+        LogUtils.setLog(false);
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (mValidToken.equals(request.getHeader("Authorization"))) {
+                    return new MockResponse().setBody("ok");
+                }
+                return new MockResponse().setResponseCode(401);
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+    }
+
+    @Test
+    public void concurrent401sRefreshOnce() throws Exception {
+        FakeHandler handler = new FakeHandler("token-2", null);
+        handler.setToken("token-1");
+        List<Integer> codes = callConcurrently(handler);
+        for (int code : codes) {
+            assertEquals(200, code);
+        }
+        assertEquals(1, handler.mRefreshCount.get());
+        assertEquals("token-2", handler.getToken());
+    }
+
+    @Test
+    public void failedRefreshIsNotRepeatedByWaitingRequests() throws Exception {
+        FakeHandler handler = new FakeHandler(null, new IOException("refresh endpoint down"));
+        handler.setToken("token-1");
+        for (int code : callConcurrently(handler)) {
+            assertEquals(401, code);
+        }
+        assertEquals(1, handler.mRefreshCount.get());
+    }
+
+    @Test
+    public void failedRefreshWithoutTokenIsNotRepeated() throws Exception {
+        FakeHandler handler = new FakeHandler(null, null);
+        OkHttpClient client = clientOf(handler);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(401, call(client));
+        }
+        assertEquals(1, handler.mRefreshCount.get());
+
+        //登录后可以重新刷新
+        handler.setToken("token-2");
+        assertEquals(200, call(client));
+    }
+
+    @Test
+    public void runtimeExceptionEndsRefresh() throws Exception {
+        FakeHandler handler = new FakeHandler("token-2", new IllegalStateException("bug in refreshToken"));
+        handler.setToken("token-1");
+        OkHttpClient client = clientOf(handler);
+        try {
+            call(client);
+            fail("expected the exception from refreshToken");
+        } catch (IllegalStateException expected) {
+        }
+
+        //不再停留在刷新中, 之后的 401 立刻失败, 而不是等到超时
+        long start = System.nanoTime();
+        assertEquals(401, call(client));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1, handler.mRefreshCount.get());
+
+        handler.setToken("token-2");
+        assertEquals(200, call(client));
+    }
+
+    @Test
+    public void setTokenDuringRefreshDiscardsResult() throws Exception {
+        mValidToken = "token-3";
+        FakeHandler handler = new FakeHandler("token-2", null) {
+            @Nullable
+            @Override
+            protected String refreshToken(@Nullable String expiredToken) throws IOException {
+                String fresh = super.refreshToken(expiredToken);
+                setToken("token-3");
+                return fresh;
+            }
+        };
+        handler.setToken("token-1");
+        assertEquals(200, call(clientOf(handler)));
+        assertEquals("token-3", handler.getToken());
+    }
+
+    private List<Integer> callConcurrently(FakeHandler handler) throws Exception {
+        OkHttpClient client = clientOf(handler);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < CONCURRENCY; i++) {
+                futures.add(executor.submit((Callable<Integer>) () -> {
+                    start.await();
+                    return call(client);
+                }));
+            }
+            start.countDown();
+            List<Integer> codes = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                codes.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return codes;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private OkHttpClient clientOf(TokenRefreshHandler handler) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(chain -> chain.proceed(handler.onHttpRequestBefore(chain, chain.request())))
+                .authenticator(handler)
+                .build();
+    }
+
+    private int call(OkHttpClient client) throws IOException {
+        Request request = new Request.Builder().url(mServer.url("/user")).build();
+        try (Response response = client.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+    private static class FakeHandler extends TokenRefreshHandler {
+        final AtomicInteger mRefreshCount = new AtomicInteger();
+        private final String mFresh;
+        private final Exception mError;
+
+        FakeHandler(@Nullable String fresh, @Nullable Exception error) {
+            super(TimeUnit.SECONDS.toMillis(10));
+            this.mFresh = fresh;
+            this.mError = error;
+        }
+
+        @Nullable
+        @Override
+        protected String refreshToken(@Nullable String expiredToken) throws IOException {
+            mRefreshCount.incrementAndGet();
+            try {
+                //让其余请求都在刷新期间收到 401
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            if (mError instanceof IOException) {
+                throw (IOException) mError;
+            }
+            if (mError instanceof RuntimeException) {
+                throw (RuntimeException) mError;
+            }
+            return mFresh;
+        }
+    }
+}
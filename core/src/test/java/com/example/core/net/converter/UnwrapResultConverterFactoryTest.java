@@ -0,0 +1,93 @@
+package com.example.core.net.converter;
+
+import com.example.core.net.ApiException;
+import com.example.core.net.NullDataException;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link UnwrapResultConverterFactory} 去掉外壳以及对错误结果、缺少字段的处理
+ */
+public class UnwrapResultConverterFactoryTest {
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final UnwrapResultConverterFactory mFactory = UnwrapResultConverterFactory.create(new Gson());
+
+    @Test
+    public void returnsData() throws Exception {
+        assertEquals("token", convert(String.class, "{\"code\":0,\"message\":\"ok\",\"data\":\"token\"}"));
+        //code 在 data 之后
+        assertEquals("token", convert(String.class, "{\"data\":\"token\",\"message\":\"ok\",\"code\":0}"));
+    }
+
+    @Test
+    public void throwsApiExceptionForErrorCode() throws Exception {
+        try {
+            convert(String.class, "{\"code\":401,\"message\":\"未登录\",\"data\":{\"unexpected\":true}}");
+            fail();
+        } catch (ApiException e) {
+            assertFalse(e instanceof NullDataException);
+            assertEquals(401, e.getCode());
+            assertEquals("未登录", e.getMessage());
+        }
+    }
+
+    @Test
+    public void throwsForNullData() throws Exception {
+        for (String json : new String[]{"{\"code\":0,\"message\":\"ok\",\"data\":null}", "{\"code\":0,\"message\":\"ok\"}"}) {
+            try {
+                convert(String.class, json);
+                fail(json);
+            } catch (NullDataException e) {
+                assertEquals(0, e.getCode());
+                assertEquals("ok", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void throwsForMissingCode() throws Exception {
+        for (String json : new String[]{"{\"message\":\"ok\",\"data\":\"token\"}", "{}"}) {
+            try {
+                convert(String.class, json);
+                fail(json);
+            } catch (JsonParseException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void ignoresMethodsWithoutAnnotation() {
+        assertNull(mFactory.responseBodyConverter(List.class, new Annotation[0], null));
+    }
+
+    private Object convert(Class<?> type, String json) throws IOException {
+        Converter<ResponseBody, ?> converter = mFactory.responseBodyConverter(type, annotations(), null);
+        assertNotNull(converter);
+        return converter.convert(ResponseBody.create(json, JSON));
+    }
+
+    private static Annotation[] annotations() {
+        try {
+            return UnwrapResultConverterFactoryTest.class.getDeclaredMethod("unwrapped").getAnnotations();
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @UnwrapResult
+    private void unwrapped() {
+    }
+}
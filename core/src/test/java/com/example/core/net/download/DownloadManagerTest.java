@@ -0,0 +1,209 @@
+package com.example.core.net.download;
+
+import com.example.core.util.LogUtils;
+import com.google.gson.Gson;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在本地 {@link MockWebServer} 上验证 {@link DownloadManager} 的分段下载与 {@link DownloadState} 断点续传
+ */
+public class DownloadManagerTest {
+    private static final int LENGTH = 100000;
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final Gson mGson = new Gson();
+    private final OkHttpClient mClient = new OkHttpClient();
+    private final DownloadManager mManager = new DownloadManager(() -> mClient, () -> mGson);
+    private final byte[] mContent = new byte[LENGTH];
+    /**
+     * 服务器收到的 Range 的起始位置, 不包括探测用的 bytes=0-0
+     */
+    private final List<Long> mRangeStarts = Collections.synchronizedList(new ArrayList<>());
+    private volatile String mETag = "\"v1\"";
+    private File mDir;
+    private File mFile;
+
+    @Before
+    public void setUp() throws IOException {
+        LogUtils.setLog(false);
+        new Random(42).nextBytes(mContent);
+        mDir = Files.createTempDirectory("download").toFile();
+        mFile = new File(mDir, "file.bin");
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return serve(request);
+            }
+        });
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mServer.shutdown();
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    @Test
+    public void downloadsInSegments() throws Exception {
+        DownloadProgress last = download(4);
+        assertTrue(last.isCompleted());
+        assertEquals(LENGTH, last.getTotalBytes());
+        assertArrayEquals(mContent, Files.readAllBytes(mFile.toPath()));
+        assertEquals(4, mRangeStarts.size());
+        assertEquals(1, mDir.list().length);
+    }
+
+    @Test
+    public void resumesFromSavedState() throws Exception {
+        DownloadState state = savedState(mETag, 30000, 10000);
+        write(state);
+
+        download(2);
+        assertArrayEquals(mContent, Files.readAllBytes(mFile.toPath()));
+        //两个分段都从保存的位置继续
+        Collections.sort(mRangeStarts);
+        assertEquals(30000L, (long) mRangeStarts.get(0));
+        assertEquals(60000L, (long) mRangeStarts.get(1));
+        assertEquals(1, mDir.list().length);
+    }
+
+    @Test
+    public void skipsFinishedSegments() throws Exception {
+        DownloadState state = savedState(mETag, 50000, 20000);
+        write(state);
+
+        download(2);
+        assertArrayEquals(mContent, Files.readAllBytes(mFile.toPath()));
+        assertEquals(Collections.singletonList(70000L), mRangeStarts);
+    }
+
+    @Test
+    public void restartsWhenFileChanged() throws Exception {
+        write(savedState("\"v0\"", 30000, 10000));
+
+        download(2);
+        assertArrayEquals(mContent, Files.readAllBytes(mFile.toPath()));
+        Collections.sort(mRangeStarts);
+        assertEquals(0L, (long) mRangeStarts.get(0));
+        assertEquals(50000L, (long) mRangeStarts.get(1));
+    }
+
+    @Test
+    public void ignoresBrokenState() throws Exception {
+        Files.write(new File(mFile.getPath() + ".download").toPath(), "{broken".getBytes(StandardCharsets.UTF_8));
+
+        download(1);
+        assertArrayEquals(mContent, Files.readAllBytes(mFile.toPath()));
+        assertEquals(Collections.singletonList(0L), mRangeStarts);
+    }
+
+    @Test
+    public void stateSurvivesJsonRoundTrip() {
+        DownloadState state = savedState(mETag, 50000, 20000);
+        assertTrue(state.segments.get(0).isFinished());
+        assertFalse(state.segments.get(1).isFinished());
+        assertEquals(70000, state.downloaded());
+
+        DownloadState read = mGson.fromJson(mGson.toJson(state), DownloadState.class);
+        assertEquals(state.url, read.url);
+        assertEquals(state.validator, read.validator);
+        assertEquals(LENGTH, read.length);
+        assertTrue(read.ranges);
+        assertEquals(70000, read.downloaded());
+        assertEquals(49999, read.segments.get(0).end);
+    }
+
+    private DownloadProgress download(int connections) {
+        DownloadRequest request = DownloadRequest.builder(mServer.url("/file.bin").toString(), mFile)
+                .connections(connections)
+                .minSegmentSize(1000)
+                .build();
+        return mManager.download(request).timeout(10, TimeUnit.SECONDS).blockingLast();
+    }
+
+    /**
+     * 两个分段, 分别已经下载了 first、second 个字节
+     */
+    private DownloadState savedState(String validator, long first, long second) {
+        DownloadState state = new DownloadState();
+        state.url = mServer.url("/file.bin").toString();
+        state.validator = validator;
+        state.length = LENGTH;
+        state.ranges = true;
+        DownloadState.Segment head = new DownloadState.Segment(0, LENGTH / 2 - 1);
+        head.downloaded = first;
+        DownloadState.Segment tail = new DownloadState.Segment(LENGTH / 2, LENGTH - 1);
+        tail.downloaded = second;
+        state.segments.add(head);
+        state.segments.add(tail);
+        return state;
+    }
+
+    /**
+     * 写入进度文件与只包含已下载部分的 .part 文件
+     */
+    private void write(DownloadState state) throws IOException {
+        try (RandomAccessFile part = new RandomAccessFile(mFile.getPath() + ".part", "rw")) {
+            part.setLength(state.length);
+            for (DownloadState.Segment segment : state.segments) {
+                part.seek(segment.start);
+                part.write(mContent, (int) segment.start, (int) segment.downloaded);
+            }
+        }
+        Files.write(new File(mFile.getPath() + ".download").toPath(), mGson.toJson(state).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MockResponse serve(RecordedRequest request) {
+        String range = request.getHeader("Range");
+        String ifRange = request.getHeader("If-Range");
+        Matcher matcher = range == null ? null : RANGE.matcher(range);
+        if (matcher == null || !matcher.matches() || (ifRange != null && !ifRange.equals(mETag))) {
+            return new MockResponse()
+                    .setHeader("ETag", mETag)
+                    .setBody(new Buffer().write(mContent));
+        }
+        long start = Long.parseLong(matcher.group(1));
+        long end = Math.min(LENGTH - 1, Long.parseLong(matcher.group(2)));
+        if (!"bytes=0-0".equals(range)) {
+            mRangeStarts.add(start);
+        }
+        return new MockResponse()
+                .setResponseCode(206)
+                .setHeader("ETag", mETag)
+                .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + LENGTH)
+                .setBody(new Buffer().write(mContent, (int) start, (int) (end - start + 1)));
+    }
+}
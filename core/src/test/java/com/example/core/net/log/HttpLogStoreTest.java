@@ -0,0 +1,92 @@
+package com.example.core.net.log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link HttpLogStore} 的分段读写以及未提交记录的处理
+ */
+public class HttpLogStoreTest {
+    /**
+     * 分段文件头的大小, 第一条记录从这里开始
+     */
+    private static final int HEADER_SIZE = 8;
+    private static final String HOST = "https://example.com";
+
+    private File mDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = Files.createTempDirectory("http-log").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    @Test
+    public void readsBackInOrder() {
+        HttpLogStore store = new HttpLogStore(mDir, 4096, 4096 * 4);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(store.append(record("/path/" + i)));
+        }
+        List<HttpLogRecord> records = store.readAll();
+        assertEquals(50, records.size());
+        assertEquals(HOST + "/path/0", records.get(0).getUrl());
+        assertEquals(HOST + "/path/49", records.get(49).getUrl());
+        assertEquals(HOST + "/path/47", store.readRecent(3).get(0).getUrl());
+    }
+
+    @Test
+    public void skipsUncommittedRecord() throws IOException {
+        HttpLogStore store = new HttpLogStore(mDir, 4096, 4096);
+        store.append(record("/first"));
+        store.append(record("/second"));
+        store.append(record("/third"));
+        store.flush();
+
+        //模拟第一条记录已经预留 (长度已写入) 但内容还没有写完时进程崩溃
+        File segment = mDir.listFiles()[0];
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(HEADER_SIZE + 4);
+            raf.writeByte(0);
+        }
+        List<HttpLogRecord> records = new HttpLogStore(mDir, 4096, 4096).readAll();
+        assertEquals(2, records.size());
+        assertEquals(HOST + "/second", records.get(0).getUrl());
+        assertEquals(HOST + "/third", records.get(1).getUrl());
+    }
+
+    @Test
+    public void rollsAndTrimsSegments() {
+        HttpLogStore store = new HttpLogStore(mDir, 1024, 1024 * 2);
+        for (int i = 0; i < 200; i++) {
+            store.append(record("/path/" + i));
+        }
+        assertTrue(mDir.listFiles().length <= 2);
+        List<HttpLogRecord> records = store.readAll();
+        assertFalse(records.isEmpty());
+        assertEquals(HOST + "/path/199", records.get(records.size() - 1).getUrl());
+    }
+
+    private static HttpLogRecord record(String path) {
+        return new HttpLogRecord(HttpLogRecord.TYPE_RESPONSE, System.currentTimeMillis(), HOST + path,
+                "GET", 200, true, 12, "OK", "Content-Type: application/json", "application/json", "{}");
+    }
+}
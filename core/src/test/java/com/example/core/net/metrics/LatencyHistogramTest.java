@@ -0,0 +1,115 @@
+package com.example.core.net.metrics;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link LatencyHistogram} 的分桶计算与分位数
+ */
+public class LatencyHistogramTest {
+    /**
+     * 与 {@link LatencyHistogram} 中的桶数一致
+     */
+    private static final int BUCKET_COUNT = 312;
+    private static final long MAX_VALUE = (1L << 41) - 1;
+
+    @Test
+    public void smallValuesHaveExactBuckets() {
+        for (int value = 0; value < 16; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.upperBoundOf(value));
+        }
+    }
+
+    @Test
+    public void bucketsContainValueWithBoundedError() {
+        for (long value : values()) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue("index of " + value, index >= 0 && index < BUCKET_COUNT);
+            long upper = LatencyHistogram.upperBoundOf(index);
+            long lower = index == 0 ? 0 : LatencyHistogram.upperBoundOf(index - 1) + 1;
+            assertTrue(value + " in [" + lower + ", " + upper + "]", lower <= value && value <= upper);
+            //相对误差不超过 1/8
+            assertTrue("width of " + value, upper - lower <= Math.max(0, value / 8));
+        }
+    }
+
+    @Test
+    public void indexIsMonotonicAndContiguous() {
+        int previous = -1;
+        for (long value : values()) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index >= previous);
+            previous = index;
+        }
+        //相邻的桶首尾相接
+        for (int index = 1; index < BUCKET_COUNT; index++) {
+            long lower = LatencyHistogram.upperBoundOf(index - 1) + 1;
+            assertEquals(index, LatencyHistogram.indexOf(lower));
+        }
+        assertEquals(MAX_VALUE, LatencyHistogram.upperBoundOf(BUCKET_COUNT - 1));
+    }
+
+    @Test
+    public void hugeValuesGoToLastBucket() {
+        assertEquals(BUCKET_COUNT - 1, LatencyHistogram.indexOf(MAX_VALUE + 1));
+        assertEquals(BUCKET_COUNT - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.p50Micros());
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordMicros(i);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMaxMicros());
+        assertEquals(500, histogram.getMeanMicros());
+        assertBetween(500, histogram.p50Micros(), 500 + 500 / 8);
+        assertBetween(950, histogram.p95Micros(), 950 + 950 / 8);
+        assertBetween(990, histogram.p99Micros(), 1000);
+        assertEquals(1000, histogram.percentileMicros(1));
+        assertEquals(1, histogram.percentileMicros(0));
+    }
+
+    @Test
+    public void negativeAndResetValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(-5000);
+        assertEquals(0, histogram.p99Micros());
+        histogram.recordNanos(3_000_000);
+        assertEquals(3000, histogram.getMaxMicros());
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMicros());
+        assertEquals(0, histogram.p50Micros());
+    }
+
+    private static void assertBetween(long min, long actual, long max) {
+        assertTrue(min + " <= " + actual + " <= " + max, min <= actual && actual <= max);
+    }
+
+    /**
+     * 0 到 100000 的所有值, 以及每个 2 的幂附近的值, 升序
+     */
+    private static List<Long> values() {
+        List<Long> values = new ArrayList<>();
+        for (long value = 0; value <= 100000; value++) {
+            values.add(value);
+        }
+        for (int exponent = 17; exponent <= 40; exponent++) {
+            long power = 1L << exponent;
+            values.add(power - 1);
+            values.add(power);
+            values.add(power + 1);
+            values.add(power + power / 3);
+        }
+        values.add(MAX_VALUE);
+        return values;
+    }
+}
@@ -0,0 +1,651 @@
+package com.example.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * ================================================
+ * 为带有 {@code com.example.core.gson.GenerateTypeAdapter} 注解的实体类生成 {@code Xxx_TypeAdapter},
+ * 并把本模块所有生成的 TypeAdapter 汇总到一个 {@code TypeAdapterFactory} 中
+ * <p>
+ * TypeAdapterFactory 的类名通过注解处理器参数 {@code gsonAdapterFactory} 指定, 未指定时生成在
+ * 第一个实体类所在的包中, 类名为 {@code GsonAdapterFactory}
+ * <p>
+ * 基本类型与 String 字段直接使用 JsonReader/JsonWriter 读写, 其他字段交给 Gson 获取对应的 TypeAdapter,
+ * 泛型类 (如 {@code CommonResult<T>}) 的类型参数在创建 TypeAdapter 时从 TypeToken 中取得
+ * ================================================
+ */
+public class TypeAdapterProcessor extends AbstractProcessor {
+    private static final String ANNOTATION = "com.example.core.gson.GenerateTypeAdapter";
+    private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    private static final String OPTION_FACTORY = "gsonAdapterFactory";
+    private static final String DEFAULT_FACTORY_NAME = "GsonAdapterFactory";
+    private static final String SUFFIX = "_TypeAdapter";
+
+    private Elements mElements;
+    private Types mTypes;
+    private boolean mGenerated;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        mElements = processingEnv.getElementUtils();
+        mTypes = processingEnv.getTypeUtils();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(ANNOTATION);
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(OPTION_FACTORY);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = mElements.getTypeElement(ANNOTATION);
+        if (mGenerated || annotation == null) {
+            return false;
+        }
+        List<TypeElement> models = new ArrayList<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateTypeAdapter can only be applied to classes");
+                continue;
+            }
+            models.add((TypeElement) element);
+        }
+        if (models.isEmpty()) {
+            return false;
+        }
+        //生成的代码中没有该注解, 所有实体类都在第一轮中, 只需生成一次
+        mGenerated = true;
+        models.sort((a, b) -> a.getQualifiedName().toString().compareTo(b.getQualifiedName().toString()));
+
+        List<TypeElement> generated = new ArrayList<>();
+        for (TypeElement model : models) {
+            try {
+                if (generateAdapter(model)) {
+                    generated.add(model);
+                }
+            } catch (IOException e) {
+                error(model, "Failed to generate TypeAdapter: " + e.getMessage());
+            }
+        }
+        if (!generated.isEmpty()) {
+            try {
+                generateFactory(generated);
+            } catch (IOException e) {
+                error(null, "Failed to generate TypeAdapterFactory: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 实体类中参与序列化的一个字段
+     */
+    private static final class Property {
+        String fieldName;
+        TypeMirror type;
+        String serializedName;
+        List<String> alternates = new ArrayList<>();
+        /**
+         * 读取的表达式, 如 {@code value.getName()} 或 {@code value.name}
+         */
+        String getter;
+        /**
+         * 赋值语句模板, {@code %s} 为要赋的值
+         */
+        String setter;
+        /**
+         * 非基本类型字段使用的 TypeAdapter 字段名
+         */
+        String adapterField;
+    }
+
+    private boolean generateAdapter(TypeElement model) throws IOException {
+        if (model.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(model, "@GenerateTypeAdapter class must not be abstract");
+            return false;
+        }
+        if (model.getNestingKind().isNested() && !model.getModifiers().contains(Modifier.STATIC)) {
+            error(model, "@GenerateTypeAdapter class must not be an inner class");
+            return false;
+        }
+        String packageName = packageOf(model);
+        if (!hasAccessibleConstructor(model, packageName)) {
+            error(model, "@GenerateTypeAdapter class needs a non-private no-arg constructor");
+            return false;
+        }
+
+        Map<String, Integer> typeVariables = new HashMap<>();
+        List<? extends TypeParameterElement> typeParameters = model.getTypeParameters();
+        for (int i = 0; i < typeParameters.size(); i++) {
+            typeVariables.put(typeParameters.get(i).getSimpleName().toString(), i);
+        }
+
+        List<Property> properties = collectProperties(model, packageName);
+        if (properties == null) {
+            return false;
+        }
+
+        String modelType = modelType(model);
+        String typeParams = typeParameterList(model);
+        String adapterName = adapterSimpleName(model);
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("import com.google.gson.Gson;\n")
+                .append("import com.google.gson.JsonSyntaxException;\n")
+                .append("import com.google.gson.TypeAdapter;\n")
+                .append("import com.google.gson.reflect.TypeToken;\n")
+                .append("import com.google.gson.stream.JsonReader;\n")
+                .append("import com.google.gson.stream.JsonToken;\n")
+                .append("import com.google.gson.stream.JsonWriter;\n")
+                .append("import java.io.IOException;\n")
+                .append("import java.lang.reflect.Type;\n\n")
+                .append("/**\n * 由 TypeAdapterProcessor 为 {@link ").append(model.getQualifiedName()).append("} 生成, 请勿修改\n */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(adapterName).append(typeParams)
+                .append(" extends TypeAdapter<").append(modelType).append("> {\n");
+
+        for (Property property : properties) {
+            if (property.adapterField != null) {
+                out.append("    private final TypeAdapter<").append(boxed(property.type)).append("> ")
+                        .append(property.adapterField).append(";\n");
+            }
+        }
+        out.append("\n    public ").append(adapterName).append("(Gson gson, Type[] typeArgs) {\n");
+        for (Property property : properties) {
+            if (property.adapterField != null) {
+                out.append("        this.").append(property.adapterField).append(" = (TypeAdapter) gson.getAdapter(TypeToken.get(")
+                        .append(typeExpression(property.type, typeVariables)).append("));\n");
+            }
+        }
+        out.append("    }\n\n");
+
+        //写
+        out.append("    @Override\n")
+                .append("    public void write(JsonWriter out, ").append(modelType).append(" value) throws IOException {\n")
+                .append("        if (value == null) {\n")
+                .append("            out.nullValue();\n")
+                .append("            return;\n")
+                .append("        }\n")
+                .append("        out.beginObject();\n");
+        for (Property property : properties) {
+            out.append("        out.name(\"").append(escape(property.serializedName)).append("\");\n");
+            out.append("        ").append(writeStatement(property)).append("\n");
+        }
+        out.append("        out.endObject();\n")
+                .append("    }\n\n");
+
+        //读
+        out.append("    @Override\n")
+                .append("    public ").append(modelType).append(" read(JsonReader in) throws IOException {\n")
+                .append("        if (in.peek() == JsonToken.NULL) {\n")
+                .append("            in.nextNull();\n")
+                .append("            return null;\n")
+                .append("        }\n")
+                .append("        ").append(modelType).append(" value = new ").append(rawName(model))
+                .append(typeParams.isEmpty() ? "" : "<>").append("();\n")
+                .append("        try {\n")
+                .append("            in.beginObject();\n")
+                .append("            while (in.hasNext()) {\n")
+                .append("                switch (in.nextName()) {\n");
+        for (Property property : properties) {
+            out.append("                    case \"").append(escape(property.serializedName)).append("\":\n");
+            for (String alternate : property.alternates) {
+                out.append("                    case \"").append(escape(alternate)).append("\":\n");
+            }
+            out.append(readStatements(property, "                        "))
+                    .append("                        break;\n");
+        }
+        out.append("                    default:\n")
+                .append("                        in.skipValue();\n")
+                .append("                        break;\n")
+                .append("                }\n")
+                .append("            }\n")
+                .append("            in.endObject();\n")
+                .append("        } catch (IllegalStateException | NumberFormatException e) {\n")
+                .append("            throw new JsonSyntaxException(e);\n")
+                .append("        }\n")
+                .append("        return value;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        write(qualified(packageName, adapterName), out.toString(), model);
+        return true;
+    }
+
+    private void generateFactory(List<TypeElement> models) throws IOException {
+        String qualifiedName = processingEnv.getOptions().get(OPTION_FACTORY);
+        if (qualifiedName == null || qualifiedName.trim().isEmpty()) {
+            qualifiedName = qualified(packageOf(models.get(0)), DEFAULT_FACTORY_NAME);
+        }
+        qualifiedName = qualifiedName.trim();
+        int dot = qualifiedName.lastIndexOf('.');
+        String packageName = dot < 0 ? "" : qualifiedName.substring(0, dot);
+        String simpleName = qualifiedName.substring(dot + 1);
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("import com.google.gson.Gson;\n")
+                .append("import com.google.gson.TypeAdapter;\n")
+                .append("import com.google.gson.TypeAdapterFactory;\n")
+                .append("import com.google.gson.reflect.TypeToken;\n")
+                .append("import java.lang.reflect.ParameterizedType;\n")
+                .append("import java.lang.reflect.Type;\n\n")
+                .append("/**\n * 由 TypeAdapterProcessor 生成, 包含本模块所有 @GenerateTypeAdapter 实体类的 TypeAdapter, 请勿修改\n */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(simpleName).append(" implements TypeAdapterFactory {\n\n")
+                .append("    @Override\n")
+                .append("    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {\n")
+                .append("        Class<? super T> raw = type.getRawType();\n");
+        for (TypeElement model : models) {
+            out.append("        if (raw == ").append(rawName(model)).append(".class) {\n")
+                    .append("            return (TypeAdapter<T>) new ").append(qualified(packageOf(model), adapterSimpleName(model)))
+                    .append("(gson, typeArguments(type.getType(), ").append(model.getTypeParameters().size()).append("));\n")
+                    .append("        }\n");
+        }
+        out.append("        return null;\n")
+                .append("    }\n\n")
+                .append("    private static Type[] typeArguments(Type type, int count) {\n")
+                .append("        if (type instanceof ParameterizedType) {\n")
+                .append("            return ((ParameterizedType) type).getActualTypeArguments();\n")
+                .append("        }\n")
+                .append("        //原始类型按 Object 处理, 与 Gson 的反射解析一致\n")
+                .append("        Type[] args = new Type[count];\n")
+                .append("        java.util.Arrays.fill(args, Object.class);\n")
+                .append("        return args;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        write(qualifiedName, out.toString(), models.toArray(new Element[0]));
+    }
+
+    /**
+     * 收集实体类及其父类中参与序列化的字段, 父类字段在前
+     */
+    private List<Property> collectProperties(TypeElement model, String packageName) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement current = model;
+        while (current != null && !"java.lang.Object".contentEquals(current.getQualifiedName())) {
+            hierarchy.add(0, current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED ? (TypeElement) mTypes.asElement(superclass) : null;
+        }
+
+        DeclaredType modelType = (DeclaredType) model.asType();
+        Map<String, Property> properties = new LinkedHashMap<>();
+        boolean valid = true;
+        int adapterIndex = 0;
+        for (TypeElement type : hierarchy) {
+            List<ExecutableElement> methods = ElementFilter.methodsIn(type.getEnclosedElements());
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                Property property = new Property();
+                property.fieldName = field.getSimpleName().toString();
+                //父类中的类型参数替换为子类中的实际类型
+                property.type = mTypes.asMemberOf(modelType, field);
+                property.serializedName = property.fieldName;
+                readSerializedName(field, property);
+
+                boolean fieldAccessible = isAccessible(field, packageName) && !modifiers.contains(Modifier.FINAL);
+                ExecutableElement getter = findGetter(methods, field, packageName);
+                ExecutableElement setter = findSetter(methods, field, packageName);
+                if (getter != null) {
+                    property.getter = "value." + getter.getSimpleName() + "()";
+                } else if (fieldAccessible) {
+                    property.getter = "value." + property.fieldName;
+                }
+                if (setter != null) {
+                    property.setter = "value." + setter.getSimpleName() + "(%s);";
+                } else if (fieldAccessible) {
+                    property.setter = "value." + property.fieldName + " = %s;";
+                }
+                if (property.getter == null || property.setter == null) {
+                    error(field, "Field " + property.fieldName + " needs to be non-private or have a getter and setter");
+                    valid = false;
+                    continue;
+                }
+                if (fastPath(property.type) == null) {
+                    property.adapterField = "adapter" + adapterIndex++;
+                }
+                if (properties.put(property.serializedName, property) != null) {
+                    error(field, "Duplicate JSON name " + property.serializedName);
+                    valid = false;
+                }
+            }
+        }
+        return valid ? new ArrayList<>(properties.values()) : null;
+    }
+
+    private void readSerializedName(VariableElement field, Property property) {
+        for (AnnotationMirror mirror : field.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!SERIALIZED_NAME.contentEquals(annotationType.getQualifiedName())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                String key = entry.getKey().getSimpleName().toString();
+                if ("value".equals(key)) {
+                    property.serializedName = (String) entry.getValue().getValue();
+                } else if ("alternate".equals(key)) {
+                    @SuppressWarnings("unchecked")
+                    List<? extends AnnotationValue> values = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                    for (AnnotationValue value : values) {
+                        property.alternates.add((String) value.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private ExecutableElement findGetter(List<ExecutableElement> methods, VariableElement field, String packageName) {
+        String suffix = capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : methods) {
+            String name = method.getSimpleName().toString();
+            boolean matches = name.equals("get" + suffix)
+                    || (name.equals("is" + suffix) && field.asType().getKind() == TypeKind.BOOLEAN);
+            if (matches && method.getParameters().isEmpty() && !method.getModifiers().contains(Modifier.STATIC)
+                    && isAccessible(method, packageName) && mTypes.isSameType(method.getReturnType(), field.asType())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private ExecutableElement findSetter(List<ExecutableElement> methods, VariableElement field, String packageName) {
+        String name = "set" + capitalize(field.getSimpleName().toString());
+        for (ExecutableElement method : methods) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == 1
+                    && !method.getModifiers().contains(Modifier.STATIC) && isAccessible(method, packageName)
+                    && mTypes.isSameType(method.getParameters().get(0).asType(), field.asType())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasAccessibleConstructor(TypeElement model, String packageName) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(model.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && isAccessible(constructor, packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 生成的 TypeAdapter 与实体类在同一个包中, 非 private 且 (public 或同一个包) 即可访问
+     */
+    private boolean isAccessible(Element element, String packageName) {
+        Set<Modifier> modifiers = element.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return modifiers.contains(Modifier.PUBLIC) || packageName.equals(packageOf(element));
+    }
+
+    /**
+     * 基本类型与 String 返回对应的读写方式, 其他类型返回 {@code null}
+     */
+    private static String fastPath(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "boolean";
+            case INT:
+                return "int";
+            case LONG:
+                return "long";
+            case DOUBLE:
+                return "double";
+            case DECLARED:
+                switch (type.toString()) {
+                    case "java.lang.String":
+                        return "String";
+                    case "java.lang.Boolean":
+                        return "Boolean";
+                    case "java.lang.Integer":
+                        return "Integer";
+                    case "java.lang.Long":
+                        return "Long";
+                    case "java.lang.Double":
+                        return "Double";
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    private static String writeStatement(Property property) {
+        String fast = fastPath(property.type);
+        if (fast == null) {
+            return property.adapterField + ".write(out, " + property.getter + ");";
+        }
+        if ("Integer".equals(fast) || "Long".equals(fast) || "Double".equals(fast)) {
+            return "out.value((Number) " + property.getter + ");";
+        }
+        return "out.value(" + property.getter + ");";
+    }
+
+    private static String readStatements(Property property, String indent) {
+        String fast = fastPath(property.type);
+        if (fast == null) {
+            return indent + String.format(property.setter, property.adapterField + ".read(in)") + "\n";
+        }
+        String read;
+        switch (fast) {
+            case "boolean":
+            case "Boolean":
+                //与 Gson 一致, 兼容 "true" 这样的字符串
+                read = "in.peek() == JsonToken.STRING ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean()";
+                break;
+            case "int":
+            case "Integer":
+                read = "in.nextInt()";
+                break;
+            case "long":
+            case "Long":
+                read = "in.nextLong()";
+                break;
+            case "double":
+            case "Double":
+                read = "in.nextDouble()";
+                break;
+            default:
+                //与 Gson 一致, 布尔值按字符串读取
+                read = "in.peek() == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString()";
+                break;
+        }
+        boolean primitive = property.type.getKind().isPrimitive();
+        StringBuilder out = new StringBuilder();
+        out.append(indent).append("if (in.peek() == JsonToken.NULL) {\n")
+                .append(indent).append("    in.nextNull();\n");
+        if (!primitive) {
+            out.append(indent).append("    ").append(String.format(property.setter, "null")).append("\n");
+        }
+        out.append(indent).append("} else {\n")
+                .append(indent).append("    ").append(String.format(property.setter, read)).append("\n")
+                .append(indent).append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * 生成运行时 {@link java.lang.reflect.Type} 的表达式, 类型参数从构造方法的 {@code typeArgs} 中取
+     */
+    private String typeExpression(TypeMirror type, Map<String, Integer> typeVariables) {
+        switch (type.getKind()) {
+            case TYPEVAR: {
+                Integer index = typeVariables.get(((TypeVariable) type).asElement().getSimpleName().toString());
+                return index == null ? "Object.class" : "typeArgs[" + index + "]";
+            }
+            case WILDCARD: {
+                TypeMirror bound = ((WildcardType) type).getExtendsBound();
+                return bound == null ? "Object.class" : typeExpression(bound, typeVariables);
+            }
+            case ARRAY:
+                return "TypeToken.getArray(" + typeExpression(((ArrayType) type).getComponentType(), typeVariables) + ").getType()";
+            case DECLARED: {
+                List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+                String raw = mTypes.erasure(type).toString() + ".class";
+                if (args.isEmpty()) {
+                    return raw;
+                }
+                StringBuilder out = new StringBuilder("TypeToken.getParameterized(").append(raw);
+                for (TypeMirror arg : args) {
+                    out.append(", ").append(typeExpression(arg, typeVariables));
+                }
+                return out.append(").getType()").toString();
+            }
+            default:
+                //基本类型
+                return type.toString() + ".class";
+        }
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return mTypes.boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private String modelType(TypeElement model) {
+        return rawName(model) + typeParameterNames(model);
+    }
+
+    private static String typeParameterNames(TypeElement model) {
+        List<? extends TypeParameterElement> parameters = model.getTypeParameters();
+        if (parameters.isEmpty()) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder("<");
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(parameters.get(i).getSimpleName());
+        }
+        return out.append(">").toString();
+    }
+
+    /**
+     * 带上界的类型参数声明, 如 {@code <T extends Number>}
+     */
+    private static String typeParameterList(TypeElement model) {
+        List<? extends TypeParameterElement> parameters = model.getTypeParameters();
+        if (parameters.isEmpty()) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder("<");
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeParameterElement parameter = parameters.get(i);
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(parameter.getSimpleName());
+            List<? extends TypeMirror> bounds = parameter.getBounds();
+            boolean first = true;
+            for (TypeMirror bound : bounds) {
+                if ("java.lang.Object".equals(bound.toString())) {
+                    continue;
+                }
+                out.append(first ? " extends " : " & ").append(bound);
+                first = false;
+            }
+        }
+        return out.append(">").toString();
+    }
+
+    private static String rawName(TypeElement model) {
+        return model.getQualifiedName().toString();
+    }
+
+    /**
+     * 嵌套类生成 {@code Outer_Inner_TypeAdapter}
+     */
+    private String adapterSimpleName(TypeElement model) {
+        String packageName = packageOf(model);
+        String name = model.getQualifiedName().toString();
+        if (!packageName.isEmpty()) {
+            name = name.substring(packageName.length() + 1);
+        }
+        return name.replace('.', '_') + SUFFIX;
+    }
+
+    private String packageOf(Element element) {
+        PackageElement packageElement = mElements.getPackageOf(element);
+        return packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    }
+
+    private static String qualified(String packageName, String simpleName) {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    private static String capitalize(String name) {
+        return name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void write(String qualifiedName, String source, Element... originatingElements) throws IOException {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, originatingElements).openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}